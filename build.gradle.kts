@@ -1,7 +1,9 @@
 plugins {
     java
     id("org.springframework.boot") version "4.0.2"
+    id("org.springframework.boot.aot") version "4.0.2" apply false
     id("io.spring.dependency-management") version "1.1.7"
+    id("me.champeau.jmh") version "0.7.3"
 }
 
 group = "com.bravos"
@@ -14,6 +16,12 @@ java {
     }
 }
 
+// Fast-startup build (./gradlew bootJar -Paot): generates Spring AOT code, used when the app runs with
+// -Dspring.aot.enabled=true. @ConditionalOnProperty beans are resolved from the build-time environment.
+if (providers.gradleProperty("aot").isPresent) {
+    apply(plugin = "org.springframework.boot.aot")
+}
+
 configurations {
     compileOnly {
         extendsFrom(configurations.annotationProcessor.get())
@@ -30,18 +38,123 @@ dependencies {
     implementation("org.springframework.boot:spring-boot-starter-webmvc")
     implementation("org.springframework.boot:spring-boot-starter-websocket")
     implementation("org.springframework.boot:spring-boot-starter-validation")
+    implementation("org.springframework.boot:spring-boot-starter-actuator")
+    implementation("org.hibernate.orm:hibernate-micrometer")
     implementation("org.springdoc:springdoc-openapi-starter-webmvc-ui:2.8.6")
     compileOnly("org.projectlombok:lombok")
     runtimeOnly("org.postgresql:postgresql")
+    runtimeOnly("io.micrometer:micrometer-registry-prometheus")
+    testImplementation("org.springframework.boot:spring-boot-starter-test")
+    testRuntimeOnly("org.junit.platform:junit-platform-launcher")
     annotationProcessor("org.springframework.boot:spring-boot-configuration-processor")
     annotationProcessor("org.projectlombok:lombok")
     implementation("com.bucket4j:bucket4j_jdk17-core:8.16.1")
+    implementation("com.bucket4j:bucket4j_jdk17-postgresql:8.16.1")
+}
+
+tasks.withType<Test> {
+    useJUnitPlatform()
+}
+
+// Simulated device fleet, see README "Load test". Depends only on the JDK.
+val loadtest: SourceSet by sourceSets.creating
+
+tasks.register<JavaExec>("loadTest") {
+    group = "verification"
+    description = "Runs the simulated device fleet against a running instance."
+    classpath = loadtest.runtimeClasspath
+    mainClass.set("com.bravos.parentalv2.loadtest.FleetSimulator")
+    jvmArgs("-Xss256k")
+    args((providers.gradleProperty("args").orNull ?: "").split(" ").filter { it.isNotBlank() })
+}
+
+// Concurrency stress tests for the session registry, see README "Stress test". Not part of `check`.
+val jcstress: SourceSet by sourceSets.creating {
+    compileClasspath += sourceSets.main.get().output + sourceSets.test.get().output
+    runtimeClasspath += sourceSets.main.get().output + sourceSets.test.get().output
+}
+
+configurations[jcstress.implementationConfigurationName].extendsFrom(configurations.implementation.get())
+
+dependencies {
+    "jcstressImplementation"("org.openjdk.jcstress:jcstress-core:0.16")
+    "jcstressAnnotationProcessor"("org.openjdk.jcstress:jcstress-core:0.16")
+}
+
+tasks.register<JavaExec>("jcstress") {
+    group = "verification"
+    description = "Runs the jcstress tests; pass jcstress options with -Pargs, e.g. -Pargs=\"-m quick -t StaleRemove\"."
+    classpath = jcstress.runtimeClasspath
+    mainClass.set("org.openjdk.jcstress.Main")
+    workingDir = layout.buildDirectory.dir("jcstress").get().asFile
+    doFirst { workingDir.mkdirs() }
+    args((providers.gradleProperty("args").orNull ?: "-m quick").split(" ").filter { it.isNotBlank() })
+}
+
+// Benchmarks share the test fixtures, such as the WebSocketSession stub
+sourceSets.named("jmh") {
+    compileClasspath += sourceSets.test.get().output
+    runtimeClasspath += sourceSets.test.get().output
+}
+
+jmh {
+    jmhVersion.set("1.37")
+    includeTests.set(true)
+    warmupIterations.set(3)
+    iterations.set(5)
+    fork.set(1)
+    resultFormat.set("JSON")
+    resultsFile.set(layout.buildDirectory.file("reports/jmh/results.json"))
+    // e.g. ./gradlew jmh -Pjmh.includes=FanOut
+    providers.gradleProperty("jmh.includes").orNull?.let { includes.set(listOf(it)) }
+}
+
+// Regression gate: compares build/reports/jmh/results.json with a baseline saved from the main branch and fails
+// when a benchmark is slower by more than jmh.tolerance, e.g.
+// ./gradlew jmh jmhCheck -Pjmh.baseline=jmh-baseline.json -Pjmh.tolerance=0.1
+tasks.register("jmhCheck") {
+    group = "verification"
+    description = "Fails if the latest JMH results regressed against a baseline results file."
+    mustRunAfter("jmh")
+    val results = layout.buildDirectory.file("reports/jmh/results.json")
+    val baseline = layout.projectDirectory.file(providers.gradleProperty("jmh.baseline").orElse("jmh-baseline.json"))
+    val tolerance = providers.gradleProperty("jmh.tolerance").map { it.toDouble() }.orElse(0.1)
+    doLast {
+        val baselineFile = baseline.get().asFile
+        if (!baselineFile.exists()) {
+            throw GradleException("No JMH baseline at $baselineFile; save build/reports/jmh/results.json of the main branch there")
+        }
+        fun scores(file: File): Map<String, Pair<String, Double>> =
+            (groovy.json.JsonSlurper().parse(file) as List<*>).associate { run ->
+                run as Map<*, *>
+                val metric = run["primaryMetric"] as Map<*, *>
+                "${run["benchmark"]} ${run["params"] ?: ""}" to
+                    (run["mode"] as String to (metric["score"] as Number).toDouble())
+            }
+        val before = scores(baselineFile)
+        val regressions = scores(results.get().asFile).mapNotNull { (name, current) ->
+            val (mode, score) = current
+            val base = before[name]?.second ?: return@mapNotNull null
+            // Throughput is better when higher; every other mode measures time, better when lower
+            val change = if (mode == "thrpt") (base - score) / base else (score - base) / base
+            if (change > tolerance.get()) "%s: %.3f -> %.3f (%+.1f%%)".format(name, base, score, change * 100) else null
+        }
+        if (regressions.isNotEmpty()) {
+            throw GradleException("JMH regressions beyond ${tolerance.get() * 100}%:\n" + regressions.joinToString("\n"))
+        }
+        logger.lifecycle("No JMH regressions beyond ${tolerance.get() * 100}% against $baselineFile")
+    }
 }
 
 tasks.jar {
     enabled = false
 }
 
+// Tomcat reads its WebSocket I/O buffer size from this property once, at class load; the Dockerfile sets it too
+tasks.bootRun {
+    jvmArgs("-Dorg.apache.tomcat.websocket.DEFAULT_BUFFER_SIZE=2048")
+}
+
 tasks.bootJar {
     enabled = true
     archiveFileName.set("parentalv2.jar")
@@ -0,0 +1,46 @@
+#!/usr/bin/env bash
+# Compares startup of the standard image with the fast-startup image (Spring AOT + JDK AOT cache).
+# Needs Docker and the compose database: docker compose up -d db
+#
+#   scripts/startup-benchmark.sh [runs]
+#
+# For each image it reports the time Spring logs for startup and the wall time from `docker run` until
+# the health endpoint answers UP, as the median of the runs.
+set -euo pipefail
+
+RUNS=${1:-5}
+NETWORK=${NETWORK:-parentalv2_default}
+DB_HOST=${DB_HOST:-parentalv2-db}
+
+docker build -t parentalv2:standard .
+docker build --target fast -t parentalv2:fast .
+
+median() {
+  sort -n | awk '{ v[NR] = $1 } END { print (NR % 2) ? v[(NR + 1) / 2] : (v[NR / 2] + v[NR / 2 + 1]) / 2 }'
+}
+
+measure() {
+  local image=$1
+  local spring_times=() ready_times=()
+  for _ in $(seq "$RUNS"); do
+    local start end
+    start=$(date +%s%N)
+    docker run -d --rm --name parentalv2-bench --network "$NETWORK" -p 19090:9090 \
+      -e DB_HOST="$DB_HOST" -e DB_PORT=5432 "$image" > /dev/null
+    until curl -fs http://localhost:19090/actuator/health 2> /dev/null | grep -q '"UP"'; do
+      sleep 0.05
+    done
+    end=$(date +%s%N)
+    ready_times+=("$(( (end - start) / 1000000 ))")
+    spring_times+=("$(docker logs parentalv2-bench 2>&1 | sed -n 's/.*Started .* in \([0-9.]*\) seconds.*/\1/p')")
+    docker stop parentalv2-bench > /dev/null
+  done
+  printf '| %-20s | %10s s | %10s ms |\n' "$image" \
+    "$(printf '%s\n' "${spring_times[@]}" | median)" \
+    "$(printf '%s\n' "${ready_times[@]}" | median)"
+}
+
+echo "| Image                | Spring start | Ready (wall) |"
+echo "| -------------------- | ------------ | ------------ |"
+measure parentalv2:standard
+measure parentalv2:fast
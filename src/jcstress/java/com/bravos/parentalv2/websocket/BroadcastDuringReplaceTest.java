@@ -0,0 +1,53 @@
+package com.bravos.parentalv2.websocket;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.Description;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.II_Result;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE_INTERESTING;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+/**
+ * A broadcast goes out while the device's connection is replaced. The device gets the frame at most once,
+ * and the new session stays registered. Results: frames delivered across both sessions, new session current.
+ */
+@JCStressTest
+@Description("sendToAll racing a replacing registerSession delivers at most once and keeps the new session")
+@Outcome(id = "1, 1", expect = ACCEPTABLE, desc = "Delivered to the old or the new session")
+@Outcome(id = "0, 1", expect = ACCEPTABLE_INTERESTING, desc = "Old session picked up, then closed before the write")
+@Outcome(id = "2, .*", expect = FORBIDDEN, desc = "Delivered twice")
+@Outcome(expect = FORBIDDEN, desc = "New session not registered")
+@State
+public class BroadcastDuringReplaceTest {
+
+  private final DeviceSessionManager manager = Registries.newManager();
+  private final TestSession old = TestSession.discarding("old");
+  private final TestSession replacement = TestSession.discarding("new");
+
+  public BroadcastDuringReplaceTest() {
+    manager.registerSession(Registries.DEVICE, old);
+  }
+
+  @Actor
+  public void reconnect() {
+    manager.registerSession(Registries.DEVICE, replacement);
+  }
+
+  @Actor
+  public void broadcast() {
+    manager.sendToAll(Registries.FRAME);
+  }
+
+  @Arbiter
+  public void check(II_Result r) {
+    r.r1 = old.sentCount() + replacement.sentCount();
+    r.r2 = Registries.current(manager, old, replacement) == 2 && Registries.consistent(manager, old, replacement) == 1
+        ? 1 : 0;
+  }
+
+}
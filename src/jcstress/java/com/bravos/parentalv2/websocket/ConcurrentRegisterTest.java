@@ -0,0 +1,47 @@
+package com.bravos.parentalv2.websocket;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.Description;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.III_Result;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+/**
+ * Two connections of the same device register at once, e.g. a reconnect racing the old socket's handshake.
+ * Results: registered session (1 or 2), whether the other one was closed, registry consistency.
+ */
+@JCStressTest
+@Description("Concurrent registerSession for one device leaves exactly one open, registered session")
+@Outcome(id = {"1, 1, 1", "2, 1, 1"}, expect = ACCEPTABLE, desc = "One session won, the other was closed")
+@Outcome(expect = FORBIDDEN, desc = "Both sessions left open, or the registry disagrees with itself")
+@State
+public class ConcurrentRegisterTest {
+
+  private final DeviceSessionManager manager = Registries.newManager();
+  private final TestSession first = TestSession.discarding("s1");
+  private final TestSession second = TestSession.discarding("s2");
+
+  @Actor
+  public void registerFirst() {
+    manager.registerSession(Registries.DEVICE, first);
+  }
+
+  @Actor
+  public void registerSecond() {
+    manager.registerSession(Registries.DEVICE, second);
+  }
+
+  @Arbiter
+  public void check(III_Result r) {
+    r.r1 = Registries.current(manager, first, second);
+    TestSession loser = r.r1 == 1 ? second : first;
+    r.r2 = loser.isOpen() ? 0 : 1;
+    r.r3 = Registries.consistent(manager, first, second);
+  }
+
+}
@@ -0,0 +1,53 @@
+package com.bravos.parentalv2.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.springframework.web.socket.WebSocketSession;
+
+/**
+ * Shared setup and invariant checks for the {@link DeviceSessionManager} stress tests.
+ */
+final class Registries {
+
+  static final String DEVICE = "PC-1";
+  static final String FRAME = "{\"type\":\"message\",\"content\":\"x\"}";
+
+  private static final DeviceMetrics METRICS = new DeviceMetrics(new SimpleMeterRegistry());
+
+  private Registries() {
+  }
+
+  static DeviceSessionManager newManager() {
+    return new DeviceSessionManager(METRICS);
+  }
+
+  /**
+   * 1 if the device's registered session is open and maps back to the device, or nothing is registered and no
+   * session maps to it; 0 otherwise.
+   */
+  static int consistent(DeviceSessionManager manager, TestSession... sessions) {
+    WebSocketSession current = manager.getSession(DEVICE);
+    if (current != null && (!current.isOpen() || !DEVICE.equals(manager.getDeviceId(current)))) {
+      return 0;
+    }
+    for (TestSession session : sessions) {
+      if (session != current && DEVICE.equals(manager.getDeviceId(session)) && session.isOpen()) {
+        return 0;
+      }
+    }
+    return 1;
+  }
+
+  /**
+   * 1 or 2 for the registered session's position in {@code sessions}, 0 when none is registered.
+   */
+  static int current(DeviceSessionManager manager, TestSession... sessions) {
+    WebSocketSession current = manager.getSession(DEVICE);
+    for (int i = 0; i < sessions.length; i++) {
+      if (sessions[i] == current) {
+        return i + 1;
+      }
+    }
+    return current == null ? 0 : -1;
+  }
+
+}
@@ -0,0 +1,61 @@
+package com.bravos.parentalv2.websocket;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.Description;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.II_Result;
+
+import java.io.IOException;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+/**
+ * A command is sent while the device disconnects. The send either reaches the device or fails with the
+ * IOException callers handle as "offline"; nothing else may escape. Results: send outcome (1 sent, 0 offline,
+ * -1 unexpected exception), registry empty afterwards.
+ */
+@JCStressTest
+@Description("sendToDevice racing removeSession fails only with IOException and leaves an empty registry")
+@Outcome(id = {"1, 1", "0, 1"}, expect = ACCEPTABLE, desc = "Sent before the close, or reported offline")
+@Outcome(id = "-1, .*", expect = FORBIDDEN, desc = "Unexpected exception from sendToDevice")
+@Outcome(expect = FORBIDDEN, desc = "Removed session still registered")
+@State
+public class SendDuringRemoveTest {
+
+  private final DeviceSessionManager manager = Registries.newManager();
+  private final TestSession session = TestSession.discarding("s1");
+  private int sendOutcome;
+
+  public SendDuringRemoveTest() {
+    manager.registerSession(Registries.DEVICE, session);
+  }
+
+  @Actor
+  public void send() {
+    try {
+      manager.sendToDevice(Registries.DEVICE, Registries.FRAME);
+      sendOutcome = 1;
+    } catch (IOException e) {
+      sendOutcome = 0;
+    } catch (RuntimeException e) {
+      sendOutcome = -1;
+    }
+  }
+
+  @Actor
+  public void disconnect() {
+    session.close();
+    manager.removeSession(session);
+  }
+
+  @Arbiter
+  public void check(II_Result r) {
+    r.r1 = sendOutcome;
+    r.r2 = manager.isOnline(Registries.DEVICE) || manager.getDeviceId(session) != null ? 0 : 1;
+  }
+
+}
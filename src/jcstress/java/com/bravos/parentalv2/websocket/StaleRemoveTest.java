@@ -0,0 +1,55 @@
+package com.bravos.parentalv2.websocket;
+
+import org.openjdk.jcstress.annotations.Actor;
+import org.openjdk.jcstress.annotations.Arbiter;
+import org.openjdk.jcstress.annotations.Description;
+import org.openjdk.jcstress.annotations.JCStressTest;
+import org.openjdk.jcstress.annotations.Outcome;
+import org.openjdk.jcstress.annotations.State;
+import org.openjdk.jcstress.infra.results.III_Result;
+
+import static org.openjdk.jcstress.annotations.Expect.ACCEPTABLE;
+import static org.openjdk.jcstress.annotations.Expect.FORBIDDEN;
+
+/**
+ * The device reconnects while the close of its old connection is being processed. The old session's removal
+ * must never unregister the new one. Results: registered session (2 = new), registry consistency, and whether
+ * removeSession reported the old session as still current.
+ */
+@JCStressTest
+@Description("removeSession of a replaced session does not unregister its replacement")
+@Outcome(id = "2, 1, 1", expect = ACCEPTABLE, desc = "Old session removed first, then the new one registered")
+@Outcome(id = "2, 1, 0", expect = ACCEPTABLE, desc = "New session registered first; removal saw it was replaced")
+@Outcome(id = "0, .*", expect = FORBIDDEN, desc = "The live session was unregistered by the stale close")
+@Outcome(expect = FORBIDDEN, desc = "Registry inconsistent")
+@State
+public class StaleRemoveTest {
+
+  private final DeviceSessionManager manager = Registries.newManager();
+  private final TestSession old = TestSession.discarding("old");
+  private final TestSession replacement = TestSession.discarding("new");
+  private boolean removedCurrent;
+
+  public StaleRemoveTest() {
+    manager.registerSession(Registries.DEVICE, old);
+  }
+
+  @Actor
+  public void reconnect() {
+    manager.registerSession(Registries.DEVICE, replacement);
+  }
+
+  @Actor
+  public void closeOld() {
+    old.close();
+    removedCurrent = manager.removeSession(old);
+  }
+
+  @Arbiter
+  public void check(III_Result r) {
+    r.r1 = Registries.current(manager, old, replacement);
+    r.r2 = Registries.consistent(manager, old, replacement);
+    r.r3 = removedCurrent ? 1 : 0;
+  }
+
+}
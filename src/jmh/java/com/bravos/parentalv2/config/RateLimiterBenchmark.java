@@ -0,0 +1,55 @@
+package com.bravos.parentalv2.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Route resolution and bucket lookup in {@link RouteRateLimiter}, with several threads hitting a shared set of
+ * clients so bucket state is contended. Capacities are huge so every call takes the consume path.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Threads(4)
+public class RateLimiterBenchmark {
+
+  @Param({"16", "4096"})
+  public int clients;
+
+  private RouteRateLimiter limiter;
+  private String[] ips;
+  private final String[] paths = {
+      "/api/devices",
+      "/api/devices/PC-01/events",
+      "/api/auth/login",
+      "/unknown/path"
+  };
+
+  @Setup
+  public void setup() {
+    RateLimitProperties properties = new RateLimitProperties();
+    long capacity = Long.MAX_VALUE / 4;
+    properties.setPolicies(List.of(
+        new RateLimitProperties.Policy("/api/auth/login", capacity, Duration.ofMinutes(1)),
+        new RateLimitProperties.Policy("/api/devices/*/events", capacity, Duration.ofMinutes(1)),
+        new RateLimitProperties.Policy("/api/**", capacity, Duration.ofMinutes(1))));
+    properties.setFallback(new RateLimitProperties.Policy("/**", capacity, Duration.ofMinutes(1)));
+    limiter = new RouteRateLimiter(properties, new LocalRateLimitBuckets(), new SimpleMeterRegistry());
+    ips = new String[clients];
+    for (int i = 0; i < clients; i++) {
+      ips[i] = "10.0." + (i / 256) + "." + (i % 256);
+    }
+  }
+
+  @Benchmark
+  public long tryConsume() {
+    ThreadLocalRandom random = ThreadLocalRandom.current();
+    return limiter.tryConsume(paths[random.nextInt(paths.length)], ips[random.nextInt(ips.length)]);
+  }
+
+}
@@ -0,0 +1,31 @@
+package com.bravos.parentalv2.controller;
+
+import com.bravos.parentalv2.model.CommandType;
+import org.openjdk.jmh.annotations.*;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of the command frame sent for every device command.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class CommandJsonBenchmark {
+
+  private DeviceController controller;
+  private int delaySeconds;
+
+  @Setup
+  public void setup() {
+    controller = new DeviceController(null, null, null, null, null, null, JsonMapper.builder().build());
+    delaySeconds = 60;
+  }
+
+  @Benchmark
+  public String lockCommand() {
+    return controller.commandJson(CommandType.LOCK, delaySeconds);
+  }
+
+}
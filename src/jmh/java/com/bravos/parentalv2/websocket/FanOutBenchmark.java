@@ -0,0 +1,37 @@
+package com.bravos.parentalv2.websocket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link DeviceSessionManager#sendToAll} over N registered sessions whose transport does nothing, i.e. the
+ * per-session overhead of a broadcast.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class FanOutBenchmark {
+
+  @Param({"100", "1000", "10000"})
+  public int sessions;
+
+  private DeviceSessionManager sessionManager;
+  private String message;
+
+  @Setup
+  public void setup() {
+    sessionManager = new DeviceSessionManager(new DeviceMetrics(new SimpleMeterRegistry()));
+    for (int i = 0; i < sessions; i++) {
+      sessionManager.registerSession("PC-" + i, TestSession.discarding("s-" + i));
+    }
+    message = "{\"type\":\"command\",\"command\":\"LOCK\",\"delaySeconds\":60}";
+  }
+
+  @Benchmark
+  public void sendToAll() {
+    sessionManager.sendToAll(message);
+  }
+
+}
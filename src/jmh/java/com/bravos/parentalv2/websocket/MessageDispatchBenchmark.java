@@ -0,0 +1,125 @@
+package com.bravos.parentalv2.websocket;
+
+import com.bravos.parentalv2.config.CommandLatencyProperties;
+import com.bravos.parentalv2.config.ConcurrencyLimitProperties;
+import com.bravos.parentalv2.config.ConcurrencyLimiters;
+import com.bravos.parentalv2.config.DataSourcePoolProperties;
+import com.bravos.parentalv2.config.IngestProperties;
+import com.bravos.parentalv2.config.SqlAccountingProperties;
+import com.bravos.parentalv2.config.SqlAccountingRecorder;
+import com.bravos.parentalv2.model.EventType;
+import com.bravos.parentalv2.model.LockStatus;
+import com.bravos.parentalv2.service.CommandLatencyTracker;
+import com.bravos.parentalv2.service.DeviceIngest;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.web.socket.TextMessage;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost on the WebSocket I/O thread of parsing an inbound frame and handing it to the device's mailbox.
+ * The ingest is a no-op, so database time is excluded on purpose. Frames go round-robin to many devices, as
+ * they do in production, and at most {@value #MAX_IN_FLIGHT} may be queued: the benchmark thread waits for the
+ * mailboxes to catch up rather than measuring an ever-growing backlog, and every iteration starts drained.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class MessageDispatchBenchmark {
+
+  private static final int MAX_IN_FLIGHT = 4096;
+
+  @Param({"1000"})
+  public int devices;
+
+  private final Semaphore inFlight = new Semaphore(MAX_IN_FLIGHT);
+
+  private final DeviceIngest countingIngest = new DeviceIngest() {
+    @Override
+    public void register(String deviceId, String deviceName, String ipAddress) {
+    }
+
+    @Override
+    public void lockStatus(String deviceId, LockStatus lockStatus) {
+      inFlight.release();
+    }
+
+    @Override
+    public void event(String deviceId, EventType eventType, String description) {
+      inFlight.release();
+    }
+
+    @Override
+    public void disconnected(String deviceId) {
+    }
+  };
+
+  private DeviceWebSocketHandler handler;
+  private TestSession[] sessions;
+  private int next;
+  private TextMessage statusFrame;
+  private TextMessage eventFrame;
+  private TextMessage unknownFrame;
+
+  @Setup
+  public void setup() {
+    DeviceMetrics metrics = new DeviceMetrics(new SimpleMeterRegistry());
+    IngestProperties ingestProperties = new IngestProperties();
+    ingestProperties.setMaxConcurrency(4);
+    // Never full, so no frame is dropped without giving its in-flight permit back
+    ingestProperties.setMailboxCapacity(MAX_IN_FLIGHT);
+    DeviceSessionManager sessionManager = new DeviceSessionManager(metrics);
+    ConcurrencyLimiters limiters = new ConcurrencyLimiters(new ConcurrencyLimitProperties(),
+        new DataSourcePoolProperties(), ingestProperties, new SimpleMeterRegistry());
+    DeviceMailboxes mailboxes = new DeviceMailboxes(ingestProperties, limiters, metrics);
+    SqlAccountingRecorder sqlAccounting = new SqlAccountingRecorder(new SimpleMeterRegistry(),
+        new SqlAccountingProperties());
+    CommandLatencyTracker latencyTracker = new CommandLatencyTracker(new CommandLatencyProperties(),
+        new SimpleMeterRegistry());
+    handler = new DeviceWebSocketHandler(sessionManager, countingIngest, mailboxes, metrics, sqlAccounting,
+        latencyTracker, JsonMapper.builder().build());
+    sessions = new TestSession[devices];
+    for (int i = 0; i < devices; i++) {
+      sessions[i] = TestSession.discarding("bench-session-" + i);
+      sessionManager.registerSession("PC-BENCH-" + i, sessions[i]);
+    }
+
+    statusFrame = new TextMessage("{\"type\":\"status\",\"lockStatus\":\"UNLOCKED\"}");
+    eventFrame = new TextMessage("{\"type\":\"event\",\"eventType\":\"UNLOCK\",\"description\":\"Unlocked by schedule\"}");
+    unknownFrame = new TextMessage("{\"type\":\"ping\"}");
+  }
+
+  @TearDown(Level.Iteration)
+  public void drain() throws InterruptedException {
+    inFlight.acquire(MAX_IN_FLIGHT);
+    inFlight.release(MAX_IN_FLIGHT);
+  }
+
+  @Benchmark
+  public void status() throws Exception {
+    inFlight.acquire();
+    handler.handleMessage(nextSession(), statusFrame);
+  }
+
+  @Benchmark
+  public void event() throws Exception {
+    inFlight.acquire();
+    handler.handleMessage(nextSession(), eventFrame);
+  }
+
+  @Benchmark
+  public void unknownType() throws Exception {
+    // Rejected on the I/O thread, never queued
+    handler.handleMessage(nextSession(), unknownFrame);
+  }
+
+  private TestSession nextSession() {
+    TestSession session = sessions[next];
+    next = next + 1 == sessions.length ? 0 : next + 1;
+    return session;
+  }
+
+}
@@ -0,0 +1,124 @@
+package com.bravos.parentalv2.loadtest;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.CookieManager;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+
+/**
+ * Admin REST calls used to drive scenarios. Works with both session and token auth modes.
+ */
+final class AdminClient {
+
+  private final HttpClient http;
+  private final URI baseUri;
+  private volatile String bearer;
+
+  AdminClient(URI baseUri) {
+    this.baseUri = baseUri;
+    this.http = HttpClient.newBuilder()
+        .cookieHandler(new CookieManager())
+        .connectTimeout(Duration.ofSeconds(10))
+        .build();
+  }
+
+  void login(String username, String password) throws IOException, InterruptedException {
+    HttpResponse<String> response = post("/api/auth/login",
+        "{\"username\":" + Json.quote(username) + ",\"password\":" + Json.quote(password) + "}");
+    if (response.statusCode() != 200) {
+      throw new IOException("Login failed: HTTP " + response.statusCode() + " " + response.body());
+    }
+    bearer = Json.string(response.body(), "accessToken");
+  }
+
+  HttpResponse<String> post(String path, String json) throws IOException, InterruptedException {
+    return http.send(request(path)
+        .header("Content-Type", "application/json")
+        .POST(HttpRequest.BodyPublishers.ofString(json))
+        .build(), HttpResponse.BodyHandlers.ofString());
+  }
+
+  HttpResponse<String> get(String path) throws IOException, InterruptedException {
+    return http.send(request(path).GET().build(), HttpResponse.BodyHandlers.ofString());
+  }
+
+  /**
+   * Follows the admin SSE feed on a virtual thread, passing (event name, data) for each event.
+   */
+  Thread followFeed(BiConsumer<String, String> listener) {
+    return Thread.ofVirtual().name("feed").start(() -> {
+      String path = bearer != null ? "/api/feed?access_token=" + bearer : "/api/feed";
+      HttpRequest request = HttpRequest.newBuilder(baseUri.resolve(path))
+          .header("Accept", "text/event-stream")
+          .GET()
+          .build();
+      try {
+        HttpResponse<Stream<String>> response = http.send(request, HttpResponse.BodyHandlers.ofLines());
+        String[] event = {null};
+        response.body().forEach(line -> {
+          if (line.startsWith("event:")) {
+            event[0] = line.substring(6).trim();
+          } else if (line.startsWith("data:") && event[0] != null) {
+            listener.accept(event[0], line.substring(5).trim());
+          } else if (line.isEmpty()) {
+            event[0] = null;
+          }
+        });
+      } catch (IOException e) {
+        System.err.println("Feed closed: " + e.getMessage());
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    });
+  }
+
+  /**
+   * Raw body of a management endpoint (e.g. actuator metrics), or null if unreachable.
+   */
+  String fetch(URI uri) {
+    try {
+      HttpResponse<InputStream> response = http.send(HttpRequest.newBuilder(uri).GET().build(),
+          HttpResponse.BodyHandlers.ofInputStream());
+      try (InputStream body = response.body()) {
+        return response.statusCode() == 200 ? new String(body.readAllBytes()) : null;
+      }
+    } catch (IOException e) {
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+  }
+
+  /**
+   * POSTs to a management endpoint (e.g. an actuator write operation) and returns the body, or null on failure.
+   */
+  String trigger(URI uri) {
+    try {
+      HttpResponse<String> response = http.send(HttpRequest.newBuilder(uri)
+          .POST(HttpRequest.BodyPublishers.noBody())
+          .build(), HttpResponse.BodyHandlers.ofString());
+      return response.statusCode() == 200 ? response.body() : null;
+    } catch (IOException e) {
+      return null;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      return null;
+    }
+  }
+
+  private HttpRequest.Builder request(String path) {
+    HttpRequest.Builder builder = HttpRequest.newBuilder(baseUri.resolve(path)).timeout(Duration.ofSeconds(30));
+    if (bearer != null) {
+      builder.header("Authorization", "Bearer " + bearer);
+    }
+    return builder;
+  }
+
+}
@@ -0,0 +1,160 @@
+package com.bravos.parentalv2.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The simulated devices plus the shared bookkeeping scenarios measure against.
+ */
+final class Fleet {
+
+  final LongAdder connectFailures = new LongAdder();
+  final LongAdder closes = new LongAdder();
+  final LongAdder errors = new LongAdder();
+  final LatencyRecorder connectLatency = new LatencyRecorder("connect->registered");
+  final LatencyRecorder broadcastLatency = new LatencyRecorder("broadcast fan-out");
+  final LatencyRecorder commandLatency = new LatencyRecorder("command delivery");
+  final LatencyRecorder ackLatency = new LatencyRecorder("command->ack (feed)");
+
+  final Map<String, Long> broadcasts = new ConcurrentHashMap<>();
+  final Map<String, Long> pendingCommands = new ConcurrentHashMap<>();
+  /**
+   * deviceId to {sentAtNanos, lockStatusEventsSeen}. A per-device command produces two LOCK_STATUS feed events,
+   * one from the controller and one from the device's status report, in either order; the second is the ack.
+   */
+  final Map<String, long[]> pendingAcks = new ConcurrentHashMap<>();
+
+  private final Options options;
+  private final URI wsUri;
+  private final HttpClient wsClient;
+  private final ScheduledExecutorService scheduler;
+  private final List<SimulatedDevice> devices = new ArrayList<>();
+
+  Fleet(Options options) {
+    this.options = options;
+    this.wsUri = URI.create(options.url().replaceFirst("^http", "ws") + "/ws/device");
+    this.wsClient = HttpClient.newBuilder()
+        .executor(Executors.newVirtualThreadPerTaskExecutor())
+        .connectTimeout(Duration.ofSeconds(30))
+        .build();
+    this.scheduler = Executors.newScheduledThreadPool(4, Thread.ofPlatform().daemon(true).factory());
+    for (int i = 0; i < options.devices(); i++) {
+      devices.add(new SimulatedDevice(this, i));
+    }
+  }
+
+  List<SimulatedDevice> devices() {
+    return devices;
+  }
+
+  String secretKey() {
+    return options.secret();
+  }
+
+  ScheduledExecutorService scheduler() {
+    return scheduler;
+  }
+
+  /**
+   * Opens every socket at up to {@code ratePerSecond} new connections per second (0 = no pacing) and waits
+   * until all devices are registered or the timeout passes.
+   *
+   * @return seconds until the last device registered
+   */
+  double connectAll(int ratePerSecond) throws InterruptedException {
+    return connectFirst(devices.size(), ratePerSecond);
+  }
+
+  /**
+   * Like {@link #connectAll(int)} for the first {@code count} devices; those already registered are left alone.
+   */
+  double connectFirst(int count, int ratePerSecond) throws InterruptedException {
+    long start = System.nanoTime();
+    long intervalNanos = ratePerSecond > 0 ? TimeUnit.SECONDS.toNanos(1) / ratePerSecond : 0;
+    int opened = 0;
+    for (int i = 0; i < count; i++) {
+      if (devices.get(i).registered()) {
+        continue;
+      }
+      if (intervalNanos > 0) {
+        long due = start + opened * intervalNanos;
+        long wait = due - System.nanoTime();
+        if (wait > 0) {
+          TimeUnit.NANOSECONDS.sleep(wait);
+        }
+      }
+      devices.get(i).connect(wsClient, wsUri);
+      opened++;
+    }
+    awaitRegistered(count);
+    return (System.nanoTime() - start) / 1e9;
+  }
+
+  void disconnectAll() {
+    devices.forEach(SimulatedDevice::disconnect);
+  }
+
+  void reconnect(SimulatedDevice device) {
+    device.connect(wsClient, wsUri);
+  }
+
+  int registeredCount() {
+    int count = 0;
+    for (SimulatedDevice device : devices) {
+      if (device.registered()) {
+        count++;
+      }
+    }
+    return count;
+  }
+
+  void awaitRegistered(int expected) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.timeoutSeconds());
+    while (registeredCount() < expected && System.nanoTime() < deadline) {
+      Thread.sleep(50);
+    }
+  }
+
+  void onMessage(String content, long receivedNanos) {
+    if (content == null) {
+      return;
+    }
+    Long sentAt = broadcasts.get(content);
+    if (sentAt != null) {
+      broadcastLatency.record(receivedNanos - sentAt);
+    }
+  }
+
+  void onCommand(String deviceId, String command, long receivedNanos) {
+    Long sentAt = pendingCommands.remove(deviceId);
+    if (sentAt != null) {
+      commandLatency.record(receivedNanos - sentAt);
+    }
+  }
+
+  void onFeed(String event, String data) {
+    if (!"device".equals(event) || !"LOCK_STATUS".equals(Json.string(data, "change"))) {
+      return;
+    }
+    String deviceId = Json.string(data, "deviceId");
+    long[] pending = deviceId != null ? pendingAcks.get(deviceId) : null;
+    if (pending != null && ++pending[1] == 2 && pendingAcks.remove(deviceId, pending)) {
+      ackLatency.record(System.nanoTime() - pending[0]);
+    }
+  }
+
+  void shutdown() {
+    disconnectAll();
+    scheduler.shutdownNow();
+  }
+
+}
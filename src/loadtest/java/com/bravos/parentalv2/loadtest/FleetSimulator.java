@@ -0,0 +1,216 @@
+package com.bravos.parentalv2.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpResponse;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Opens a fleet of simulated devices against a running instance and runs load scenarios against it.
+ * See {@link Options#USAGE} for arguments; run with {@code ./gradlew loadTest -Pargs="..."}.
+ */
+public final class FleetSimulator {
+
+  private final Options options;
+  private final Fleet fleet;
+  private final AdminClient admin;
+  private final ServerStats stats;
+
+  private FleetSimulator(Options options) {
+    this.options = options;
+    this.fleet = new Fleet(options);
+    this.admin = new AdminClient(URI.create(options.url()));
+    this.stats = new ServerStats(admin, options.managementUrl());
+  }
+
+  public static void main(String[] args) throws Exception {
+    Options options;
+    try {
+      options = Options.parse(args);
+    } catch (IllegalArgumentException e) {
+      System.err.println(e.getMessage());
+      System.exit(2);
+      return;
+    }
+    new FleetSimulator(options).run();
+  }
+
+  private void run() throws Exception {
+    admin.login(options.adminUser(), options.adminPassword());
+    admin.followFeed(fleet::onFeed);
+    try {
+      for (String scenario : options.scenarios()) {
+        System.out.printf("%n=== %s (%d devices) ===%n", scenario.trim(), options.devices());
+        stats.start();
+        switch (scenario.trim()) {
+          case "connect" -> connect();
+          case "reconnect-storm" -> reconnectStorm();
+          case "status-churn" -> statusChurn();
+          case "broadcast-storm" -> broadcastStorm();
+          case "command" -> command();
+          case "memory" -> memory();
+          default -> System.out.println("Unknown scenario, skipped. " + Options.USAGE);
+        }
+        System.out.println(stats.stop());
+        System.out.printf("connect failures=%d closes=%d errors=%d%n",
+            fleet.connectFailures.sum(), fleet.closes.sum(), fleet.errors.sum());
+      }
+    } finally {
+      fleet.shutdown();
+    }
+  }
+
+  private void connect() throws InterruptedException {
+    ensureConnected();
+  }
+
+  private void ensureConnected() throws InterruptedException {
+    if (fleet.registeredCount() == options.devices()) {
+      return;
+    }
+    fleet.connectLatency.reset();
+    double seconds = fleet.connectAll(options.connectRate());
+    report(seconds);
+  }
+
+  /**
+   * Everyone drops at once (e.g. the server or a network link restarts) and reconnects unpaced.
+   */
+  private void reconnectStorm() throws InterruptedException {
+    ensureConnected();
+    fleet.disconnectAll();
+    Thread.sleep(1000);
+    fleet.connectLatency.reset();
+    double seconds = fleet.connectAll(0);
+    report(seconds);
+  }
+
+  private void report(double seconds) {
+    int registered = fleet.registeredCount();
+    System.out.printf("registered %d/%d in %.2fs (%.0f/s)%n", registered, options.devices(), seconds,
+        registered / Math.max(seconds, 1e-9));
+    System.out.println(fleet.connectLatency.summary());
+  }
+
+  /**
+   * Every device reports a status flip and an event at the configured interval, with random phase.
+   */
+  private void statusChurn() throws InterruptedException {
+    ensureConnected();
+    LongAdder frames = new LongAdder();
+    long intervalMs = options.churnIntervalMs();
+    List<SimulatedDevice> devices = fleet.devices();
+    var tasks = devices.stream().map(device -> fleet.scheduler().scheduleAtFixedRate(() -> {
+      boolean lock = ThreadLocalRandom.current().nextBoolean();
+      device.sendStatus(lock ? "LOCKED" : "UNLOCKED");
+      device.sendEvent(lock ? "LOCK" : "UNLOCK", "load test churn");
+      frames.add(2);
+    }, ThreadLocalRandom.current().nextLong(intervalMs), intervalMs, TimeUnit.MILLISECONDS)).toList();
+    Thread.sleep(TimeUnit.SECONDS.toMillis(options.churnSeconds()));
+    tasks.forEach(task -> task.cancel(false));
+    System.out.printf("sent %d frames in %ds (%.0f/s)%n", frames.sum(), options.churnSeconds(),
+        frames.sum() / (double) options.churnSeconds());
+  }
+
+  /**
+   * Back-to-back broadcast messages; latency is from just before the POST to receipt on each device.
+   */
+  private void broadcastStorm() throws Exception {
+    ensureConnected();
+    fleet.broadcastLatency.reset();
+    int expected = 0;
+    for (int i = 0; i < options.broadcasts(); i++) {
+      String content = "bench-" + System.nanoTime() + "-" + i;
+      fleet.broadcasts.put(content, System.nanoTime());
+      HttpResponse<String> response = admin.post("/api/devices/message",
+          "{\"message\":" + Json.quote(content) + "}");
+      if (response.statusCode() != 200) {
+        System.out.println("broadcast " + i + " failed: HTTP " + response.statusCode());
+        fleet.broadcasts.remove(content);
+      } else {
+        expected += fleet.registeredCount();
+      }
+      Thread.sleep(options.broadcastIntervalMs());
+    }
+    awaitSamples(fleet.broadcastLatency, expected);
+    fleet.broadcasts.clear();
+    System.out.printf("delivered %d/%d%n", fleet.broadcastLatency.count(), expected);
+    System.out.println(fleet.broadcastLatency.summary());
+  }
+
+  /**
+   * Per-device UNLOCK then LOCK: delivery is measured on the device, the ack once the device's status report
+   * shows up on the admin feed, i.e. after the server has applied it.
+   */
+  private void command() throws Exception {
+    ensureConnected();
+    fleet.commandLatency.reset();
+    fleet.ackLatency.reset();
+    List<SimulatedDevice> sample = fleet.devices().stream()
+        .filter(SimulatedDevice::registered)
+        .limit(options.samples())
+        .toList();
+    int issued = 0;
+    for (String command : List.of("UNLOCK", "LOCK")) {
+      for (SimulatedDevice device : sample) {
+        long start = System.nanoTime();
+        fleet.pendingCommands.put(device.deviceId(), start);
+        fleet.pendingAcks.put(device.deviceId(), new long[]{start, 0});
+        HttpResponse<String> response = admin.post("/api/devices/" + device.deviceId() + "/command",
+            "{\"commandType\":\"" + command + "\",\"delaySeconds\":0}");
+        if (response.statusCode() == 200) {
+          issued++;
+        } else {
+          fleet.pendingCommands.remove(device.deviceId());
+          fleet.pendingAcks.remove(device.deviceId());
+        }
+      }
+      awaitSamples(fleet.ackLatency, issued);
+    }
+    System.out.println(fleet.commandLatency.summary());
+    System.out.println(fleet.ackLatency.summary());
+  }
+
+  /**
+   * Connects the fleet in steps and reports the heap retained per registered session at each step, from the live
+   * heap after a full collection on the server compared with the same figure with no device connected.
+   */
+  private void memory() throws InterruptedException {
+    fleet.disconnectAll();
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.timeoutSeconds());
+    while (stats.sessions() > 0 && System.nanoTime() < deadline) {
+      Thread.sleep(200);
+    }
+    long baseline = stats.liveHeapBytes();
+    if (baseline < 0) {
+      System.out.println("gc endpoint not reachable at " + options.managementUrl()
+          + "/actuator/gc; expose it with MANAGEMENT_ENDPOINTS_WEB_EXPOSURE_INCLUDE=health,metrics,prometheus,gc");
+      return;
+    }
+    System.out.printf("baseline live heap %.1fMB%n", baseline / (1024.0 * 1024));
+    System.out.printf("%10s %10s %14s %16s%n", "sessions", "registered", "live heap MB", "bytes/session");
+    for (int step : options.memorySteps()) {
+      if (step > options.devices()) {
+        System.out.printf("%10d skipped, only %d devices simulated%n", step, options.devices());
+        continue;
+      }
+      fleet.connectFirst(step, options.connectRate());
+      // Let registrations reach the database and the mailboxes drain before measuring
+      Thread.sleep(2000);
+      long heap = stats.liveHeapBytes();
+      double sessions = stats.sessions();
+      System.out.printf("%10d %10.0f %14.1f %16.0f%n", step, sessions, heap / (1024.0 * 1024),
+          sessions > 0 ? (heap - baseline) / sessions : Double.NaN);
+    }
+  }
+
+  private void awaitSamples(LatencyRecorder recorder, int expected) throws InterruptedException {
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(options.timeoutSeconds());
+    while (recorder.count() < expected && System.nanoTime() < deadline) {
+      Thread.sleep(50);
+    }
+  }
+
+}
@@ -0,0 +1,33 @@
+package com.bravos.parentalv2.loadtest;
+
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Just enough JSON for the device protocol; keeps the harness free of dependencies.
+ */
+final class Json {
+
+  private Json() {
+  }
+
+  static String string(String json, String field) {
+    Matcher m = Pattern.compile("\"" + field + "\"\\s*:\\s*\"((?:[^\"\\\\]|\\\\.)*)\"").matcher(json);
+    return m.find() ? m.group(1) : null;
+  }
+
+  static long number(String json, String field, long defaultValue) {
+    Matcher m = Pattern.compile("\"" + field + "\"\\s*:\\s*(-?\\d+(?:\\.\\d+)?)").matcher(json);
+    return m.find() ? (long) Double.parseDouble(m.group(1)) : defaultValue;
+  }
+
+  static double decimal(String json, String field, double defaultValue) {
+    Matcher m = Pattern.compile("\"" + field + "\"\\s*:\\s*(-?\\d+(?:\\.\\d+)?(?:[eE][-+]?\\d+)?)").matcher(json);
+    return m.find() ? Double.parseDouble(m.group(1)) : defaultValue;
+  }
+
+  static String quote(String value) {
+    return "\"" + value.replace("\\", "\\\\").replace("\"", "\\\"") + "\"";
+  }
+
+}
@@ -0,0 +1,54 @@
+package com.bravos.parentalv2.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Collects latency samples in nanoseconds and prints percentiles.
+ */
+final class LatencyRecorder {
+
+  private final String name;
+  private long[] samples = new long[1024];
+  private int size;
+
+  LatencyRecorder(String name) {
+    this.name = name;
+  }
+
+  synchronized void record(long nanos) {
+    if (size == samples.length) {
+      samples = Arrays.copyOf(samples, size * 2);
+    }
+    samples[size++] = nanos;
+  }
+
+  synchronized int count() {
+    return size;
+  }
+
+  synchronized void reset() {
+    size = 0;
+  }
+
+  synchronized String summary() {
+    if (size == 0) {
+      return String.format("%-24s no samples", name);
+    }
+    long[] sorted = Arrays.copyOf(samples, size);
+    Arrays.sort(sorted);
+    return String.format("%-24s n=%-7d p50=%8.2fms p90=%8.2fms p99=%8.2fms p99.9=%8.2fms max=%8.2fms",
+        name, size, ms(percentile(sorted, 50)), ms(percentile(sorted, 90)), ms(percentile(sorted, 99)),
+        ms(percentile(sorted, 99.9)), ms(sorted[size - 1]));
+  }
+
+  private static long percentile(long[] sorted, double p) {
+    int index = (int) Math.ceil(p / 100.0 * sorted.length) - 1;
+    return sorted[Math.max(0, Math.min(sorted.length - 1, index))];
+  }
+
+  private static double ms(long nanos) {
+    return nanos / (double) TimeUnit.MILLISECONDS.toNanos(1);
+  }
+
+}
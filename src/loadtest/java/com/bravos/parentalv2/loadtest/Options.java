@@ -0,0 +1,79 @@
+package com.bravos.parentalv2.loadtest;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Command-line options in {@code --name=value} form.
+ */
+record Options(String url,
+               String managementUrl,
+               String secret,
+               String adminUser,
+               String adminPassword,
+               int devices,
+               int connectRate,
+               List<String> scenarios,
+               int broadcasts,
+               int broadcastIntervalMs,
+               int samples,
+               int churnSeconds,
+               int churnIntervalMs,
+               int timeoutSeconds,
+               List<Integer> memorySteps) {
+
+  static final String USAGE = """
+      Usage: FleetSimulator [--name=value ...]
+        --url=http://localhost:8080           application base URL
+        --management-url=http://localhost:9090 actuator base URL for server resource sampling
+        --secret=KEY                          WebSocket secret (POST /api/ws-secret/generate)
+        --admin-user=admin --admin-password=admin
+        --devices=1000                        simulated devices
+        --connect-rate=200                    new connections per second, 0 = unpaced
+        --scenarios=connect,broadcast-storm   comma-separated, run in order:
+                                              connect, reconnect-storm, status-churn, broadcast-storm, command,
+                                              memory
+        --broadcasts=20 --broadcast-interval-ms=250
+        --samples=100                         devices used by the command scenario
+        --churn-seconds=30 --churn-interval-ms=2000
+        --timeout-seconds=120
+        --memory-steps=10000,50000,100000     session counts the memory scenario measures at
+                                              (needs the gc actuator endpoint exposed)
+      """;
+
+  static Options parse(String[] args) {
+    Map<String, String> values = new HashMap<>();
+    for (String arg : args) {
+      if (arg.equals("--help") || !arg.startsWith("--") || !arg.contains("=")) {
+        throw new IllegalArgumentException(USAGE);
+      }
+      int eq = arg.indexOf('=');
+      values.put(arg.substring(2, eq), arg.substring(eq + 1));
+    }
+    Options options = new Options(
+        values.getOrDefault("url", "http://localhost:8080"),
+        values.getOrDefault("management-url", "http://localhost:9090"),
+        values.getOrDefault("secret", ""),
+        values.getOrDefault("admin-user", "admin"),
+        values.getOrDefault("admin-password", "admin"),
+        Integer.parseInt(values.getOrDefault("devices", "1000")),
+        Integer.parseInt(values.getOrDefault("connect-rate", "200")),
+        List.of(values.getOrDefault("scenarios", "connect,broadcast-storm,command").split(",")),
+        Integer.parseInt(values.getOrDefault("broadcasts", "20")),
+        Integer.parseInt(values.getOrDefault("broadcast-interval-ms", "250")),
+        Integer.parseInt(values.getOrDefault("samples", "100")),
+        Integer.parseInt(values.getOrDefault("churn-seconds", "30")),
+        Integer.parseInt(values.getOrDefault("churn-interval-ms", "2000")),
+        Integer.parseInt(values.getOrDefault("timeout-seconds", "120")),
+        Arrays.stream(values.getOrDefault("memory-steps", "10000,50000,100000").split(","))
+            .map(step -> Integer.parseInt(step.trim()))
+            .toList());
+    if (options.secret().isBlank()) {
+      throw new IllegalArgumentException("--secret is required\n" + USAGE);
+    }
+    return options;
+  }
+
+}
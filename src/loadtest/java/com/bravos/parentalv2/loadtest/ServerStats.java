@@ -0,0 +1,79 @@
+package com.bravos.parentalv2.loadtest;
+
+import java.net.URI;
+
+/**
+ * Samples server resource use from the actuator once a second and keeps the peaks.
+ */
+final class ServerStats {
+
+  private final AdminClient client;
+  private final String managementUrl;
+  private Thread sampler;
+
+  private volatile double peakCpu;
+  private volatile double peakHeapMb;
+  private volatile double peakThreads;
+  private volatile double peakSessions;
+  private volatile boolean reachable;
+
+  ServerStats(AdminClient client, String managementUrl) {
+    this.client = client;
+    this.managementUrl = managementUrl;
+  }
+
+  void start() {
+    peakCpu = peakHeapMb = peakThreads = peakSessions = 0;
+    sampler = Thread.ofVirtual().name("server-stats").start(() -> {
+      while (!Thread.currentThread().isInterrupted()) {
+        sample();
+        try {
+          Thread.sleep(1000);
+        } catch (InterruptedException e) {
+          return;
+        }
+      }
+    });
+  }
+
+  String stop() {
+    if (sampler != null) {
+      sampler.interrupt();
+    }
+    if (!reachable) {
+      return "server: actuator not reachable at " + managementUrl;
+    }
+    return String.format("server peaks: cpu=%.0f%% heap=%.0fMB threads=%.0f sessions=%.0f",
+        peakCpu * 100, peakHeapMb, peakThreads, peakSessions);
+  }
+
+  private void sample() {
+    double cpu = metric("process.cpu.usage");
+    double heap = metric("jvm.memory.used?tag=area:heap");
+    double threads = metric("jvm.threads.live");
+    double sessions = metric("ws.sessions.active");
+    reachable |= cpu >= 0;
+    peakCpu = Math.max(peakCpu, cpu);
+    peakHeapMb = Math.max(peakHeapMb, heap / (1024 * 1024));
+    peakThreads = Math.max(peakThreads, threads);
+    peakSessions = Math.max(peakSessions, sessions);
+  }
+
+  /**
+   * Heap in use right after a full collection on the server, or -1 if the {@code gc} endpoint is not exposed.
+   */
+  long liveHeapBytes() {
+    String body = client.trigger(URI.create(managementUrl + "/actuator/gc"));
+    return body != null ? Json.number(body, "heapUsed", -1) : -1;
+  }
+
+  double sessions() {
+    return metric("ws.sessions.active");
+  }
+
+  private double metric(String name) {
+    String body = client.fetch(URI.create(managementUrl + "/actuator/metrics/" + name));
+    return body != null ? Json.decimal(body, "value", -1) : -1;
+  }
+
+}
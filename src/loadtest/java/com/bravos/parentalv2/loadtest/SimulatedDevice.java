@@ -0,0 +1,158 @@
+package com.bravos.parentalv2.loadtest;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.WebSocket;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One fake device speaking the real protocol: registers on connect, applies lock/unlock commands and reports its
+ * status back, drops the connection on shutdown and reconnects on restart.
+ */
+final class SimulatedDevice implements WebSocket.Listener {
+
+  private final Fleet fleet;
+  private final String deviceId;
+  private final StringBuilder partial = new StringBuilder();
+
+  private volatile WebSocket socket;
+  private CompletableFuture<?> sendTail = CompletableFuture.completedFuture(null);
+  private volatile long connectStartedNanos;
+  private volatile boolean registered;
+  private volatile String lockStatus = "LOCKED";
+
+  SimulatedDevice(Fleet fleet, int index) {
+    this.fleet = fleet;
+    this.deviceId = "SIM-" + index;
+  }
+
+  String deviceId() {
+    return deviceId;
+  }
+
+  boolean registered() {
+    return registered;
+  }
+
+  CompletableFuture<WebSocket> connect(HttpClient client, URI uri) {
+    registered = false;
+    connectStartedNanos = System.nanoTime();
+    return client.newWebSocketBuilder()
+        .header("X-Secret-Key", fleet.secretKey())
+        .buildAsync(uri, this)
+        .whenComplete((_, error) -> {
+          if (error != null) {
+            fleet.connectFailures.increment();
+          }
+        });
+  }
+
+  void disconnect() {
+    WebSocket ws = socket;
+    if (ws != null) {
+      ws.abort();
+    }
+    registered = false;
+  }
+
+  void sendStatus(String status) {
+    lockStatus = status;
+    send("{\"type\":\"status\",\"lockStatus\":" + Json.quote(status) + "}");
+  }
+
+  void sendEvent(String eventType, String description) {
+    send("{\"type\":\"event\",\"eventType\":" + Json.quote(eventType)
+        + ",\"description\":" + Json.quote(description) + "}");
+  }
+
+  @Override
+  public void onOpen(WebSocket webSocket) {
+    socket = webSocket;
+    send("{\"type\":\"register\",\"deviceId\":" + Json.quote(deviceId)
+        + ",\"deviceName\":" + Json.quote("Simulated " + deviceId) + "}");
+    webSocket.request(1);
+  }
+
+  @Override
+  public CompletionStage<?> onText(WebSocket webSocket, CharSequence data, boolean last) {
+    partial.append(data);
+    if (last) {
+      String frame = partial.toString();
+      partial.setLength(0);
+      onFrame(frame);
+    }
+    webSocket.request(1);
+    return null;
+  }
+
+  @Override
+  public CompletionStage<?> onClose(WebSocket webSocket, int statusCode, String reason) {
+    registered = false;
+    fleet.closes.increment();
+    return null;
+  }
+
+  @Override
+  public void onError(WebSocket webSocket, Throwable error) {
+    registered = false;
+    fleet.errors.increment();
+  }
+
+  private void onFrame(String frame) {
+    long now = System.nanoTime();
+    String type = Json.string(frame, "type");
+    if (type == null) {
+      return;
+    }
+    switch (type) {
+      case "registered" -> {
+        registered = true;
+        fleet.connectLatency.record(now - connectStartedNanos);
+      }
+      case "message" -> fleet.onMessage(Json.string(frame, "content"), now);
+      case "command" -> onCommand(Json.string(frame, "command"), Json.number(frame, "delaySeconds", 0), now);
+      default -> {
+      }
+    }
+  }
+
+  private void onCommand(String command, long delaySeconds, long receivedNanos) {
+    fleet.onCommand(deviceId, command, receivedNanos);
+    ScheduledExecutorService scheduler = fleet.scheduler();
+    long delayMs = Math.max(0, delaySeconds) * 1000;
+    switch (command) {
+      case "LOCK", "UNLOCK" -> {
+        String target = command.equals("LOCK") ? "LOCKED" : "UNLOCKED";
+        if (delayMs == 0) {
+          sendStatus(target);
+        } else {
+          scheduler.schedule(() -> sendStatus(target), delayMs, TimeUnit.MILLISECONDS);
+        }
+      }
+      case "SHUTDOWN" -> scheduler.schedule(this::disconnect, delayMs, TimeUnit.MILLISECONDS);
+      case "RESTART" -> scheduler.schedule(() -> {
+        disconnect();
+        fleet.reconnect(this);
+      }, delayMs, TimeUnit.MILLISECONDS);
+      default -> {
+      }
+    }
+  }
+
+  private void send(String text) {
+    WebSocket ws = socket;
+    if (ws == null) {
+      return;
+    }
+    // The JDK client allows one outstanding send per socket, so chain sends instead of blocking the listener
+    synchronized (this) {
+      sendTail = sendTail
+          .exceptionally(_ -> null)
+          .thenCompose(_ -> ws.sendText(text, true));
+    }
+  }
+
+}
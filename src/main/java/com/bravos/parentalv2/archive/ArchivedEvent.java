@@ -0,0 +1,12 @@
+package com.bravos.parentalv2.archive;
+
+import com.bravos.parentalv2.model.EventType;
+
+import java.time.LocalDateTime;
+
+public record ArchivedEvent(long id,
+                            String deviceId,
+                            EventType eventType,
+                            String description,
+                            LocalDateTime timestamp) {
+}
@@ -0,0 +1,216 @@
+package com.bravos.parentalv2.archive;
+
+import com.bravos.parentalv2.model.EventType;
+
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+/**
+ * Read-only, memory-mapped view of a segment written by {@link EventSegmentWriter}.
+ * Only the sparse device index is kept on heap; event blocks are inflated on demand.
+ */
+public class EventSegment {
+
+  static final int MAGIC = 0x50435347;
+  static final short VERSION = 1;
+  static final int HEADER_SIZE = 4 + 2 + 8 + 8;
+  static final int TRAILER_SIZE = 8 + 4;
+
+  static final String PENDING_SUFFIX = ".pending";
+
+  private static final Pattern FILE_NAME = Pattern.compile("events-(-?\\d+)-(-?\\d+)-(\\d+)\\.seg(\\.pending)?");
+
+  private final Path path;
+  private final long rangeStart;
+  private final long rangeEnd;
+  private final long createdAt;
+  private final MappedByteBuffer buffer;
+  private final Map<String, DeviceEntry> index;
+
+  private record Block(long offset, int compressedLength, int rawLength, int recordCount) {
+  }
+
+  private record DeviceEntry(int count, Block[] blocks) {
+  }
+
+  private EventSegment(Path path, long rangeStart, long rangeEnd, long createdAt,
+                       MappedByteBuffer buffer, Map<String, DeviceEntry> index) {
+    this.path = path;
+    this.rangeStart = rangeStart;
+    this.rangeEnd = rangeEnd;
+    this.createdAt = createdAt;
+    this.buffer = buffer;
+    this.index = index;
+  }
+
+  static String fileName(long rangeStart, long rangeEnd, long createdAt) {
+    return "events-" + rangeStart + "-" + rangeEnd + "-" + createdAt + ".seg";
+  }
+
+  public static boolean isSegmentFile(Path path) {
+    Matcher matcher = FILE_NAME.matcher(path.getFileName().toString());
+    return matcher.matches() && matcher.group(4) == null;
+  }
+
+  /**
+   * A complete segment whose archive transaction had not been seen to commit; see {@link EventSegmentWriter}.
+   */
+  public static boolean isPendingFile(Path path) {
+    Matcher matcher = FILE_NAME.matcher(path.getFileName().toString());
+    return matcher.matches() && matcher.group(4) != null;
+  }
+
+  public static EventSegment open(Path path) throws IOException {
+    Matcher matcher = FILE_NAME.matcher(path.getFileName().toString());
+    if (!matcher.matches()) {
+      throw new IOException("Not a segment file: " + path);
+    }
+    long createdAt = Long.parseLong(matcher.group(3));
+
+    MappedByteBuffer buffer;
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_SIZE + TRAILER_SIZE || size > Integer.MAX_VALUE) {
+        throw new IOException("Invalid segment size " + size + ": " + path);
+      }
+      buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+    }
+
+    if (buffer.getInt(0) != MAGIC || buffer.getShort(4) != VERSION) {
+      throw new IOException("Invalid segment header: " + path);
+    }
+    long rangeStart = buffer.getLong(6);
+    long rangeEnd = buffer.getLong(14);
+
+    int trailerPosition = buffer.capacity() - TRAILER_SIZE;
+    long indexOffset = buffer.getLong(trailerPosition);
+    if (buffer.getInt(trailerPosition + 8) != MAGIC || indexOffset < HEADER_SIZE || indexOffset > trailerPosition) {
+      throw new IOException("Invalid segment trailer: " + path);
+    }
+
+    byte[] indexBytes = new byte[trailerPosition - (int) indexOffset];
+    buffer.get((int) indexOffset, indexBytes);
+    DataInputStream in = new DataInputStream(new ByteArrayInputStream(indexBytes));
+    int deviceCount = in.readInt();
+    Map<String, DeviceEntry> index = HashMap.newHashMap(deviceCount);
+    for (int i = 0; i < deviceCount; i++) {
+      String deviceId = in.readUTF();
+      int count = in.readInt();
+      Block[] blocks = new Block[in.readInt()];
+      for (int b = 0; b < blocks.length; b++) {
+        blocks[b] = new Block(in.readLong(), in.readInt(), in.readInt(), in.readInt());
+      }
+      index.put(deviceId, new DeviceEntry(count, blocks));
+    }
+    return new EventSegment(path, rangeStart, rangeEnd, createdAt, buffer, index);
+  }
+
+  public Path getPath() {
+    return path;
+  }
+
+  public long getRangeStart() {
+    return rangeStart;
+  }
+
+  public long getRangeEnd() {
+    return rangeEnd;
+  }
+
+  public long getCreatedAt() {
+    return createdAt;
+  }
+
+  /**
+   * Id of one event in the segment. A segment is written by a single archive batch, so this one event tells
+   * whether the batch's rows are still in the table.
+   */
+  public long anyEventId() {
+    return read(index.keySet().iterator().next(), 0, 1).getFirst().id();
+  }
+
+  public int count(String deviceId) {
+    DeviceEntry entry = index.get(deviceId);
+    return entry != null ? entry.count() : 0;
+  }
+
+  /**
+   * Returns up to {@code limit} events of the device, newest first, after skipping {@code skip} of them.
+   */
+  public List<ArchivedEvent> read(String deviceId, int skip, int limit) {
+    DeviceEntry entry = index.get(deviceId);
+    List<ArchivedEvent> result = new ArrayList<>(Math.max(0, Math.min(limit, entry != null ? entry.count() : 0)));
+    if (entry == null || limit <= 0) {
+      return result;
+    }
+    int remainingSkip = skip;
+    for (Block block : entry.blocks()) {
+      if (result.size() >= limit) {
+        break;
+      }
+      if (remainingSkip >= block.recordCount()) {
+        remainingSkip -= block.recordCount();
+        continue;
+      }
+      decodeBlock(deviceId, block, remainingSkip, limit - result.size(), result);
+      remainingSkip = 0;
+    }
+    return result;
+  }
+
+  private void decodeBlock(String deviceId, Block block, int skip, int limit, List<ArchivedEvent> out) {
+    byte[] raw = new byte[block.rawLength()];
+    Inflater inflater = new Inflater();
+    try {
+      ByteBuffer compressed = buffer.slice((int) block.offset(), block.compressedLength());
+      inflater.setInput(compressed);
+      int inflated = 0;
+      while (inflated < raw.length && !inflater.finished()) {
+        inflated += inflater.inflate(raw, inflated, raw.length - inflated);
+      }
+    } catch (DataFormatException e) {
+      throw new UncheckedIOException(new IOException("Corrupted block in segment " + path, e));
+    } finally {
+      inflater.end();
+    }
+
+    try {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(raw));
+      for (int i = 0; i < block.recordCount(); i++) {
+        long id = in.readLong();
+        long epochSecond = in.readLong();
+        int nano = in.readInt();
+        EventType eventType = EventType.valueOf(in.readUTF());
+        String description = in.readBoolean() ? in.readUTF() : null;
+        if (i < skip) {
+          continue;
+        }
+        if (limit-- <= 0) {
+          break;
+        }
+        LocalDateTime timestamp = LocalDateTime.ofEpochSecond(epochSecond, nano, ZoneOffset.UTC);
+        out.add(new ArchivedEvent(id, deviceId, eventType, description, timestamp));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+}
@@ -0,0 +1,149 @@
+package com.bravos.parentalv2.archive;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.Deflater;
+
+/**
+ * Writes an immutable segment file holding archived events of one time range.
+ * <p>
+ * A segment is first written under a pending name, and only {@link #commit} gives it the name readers load, once
+ * the archive transaction that deletes its rows from the table has committed.
+ * <p>
+ * Layout: header | deflated blocks, grouped by device and ordered newest first | sparse device index | trailer.
+ * The index keeps one entry per block rather than per event, so readers can skip whole blocks by count.
+ */
+public final class EventSegmentWriter {
+
+  private static final Comparator<ArchivedEvent> NEWEST_FIRST = Comparator
+      .comparing(ArchivedEvent::timestamp)
+      .thenComparingLong(ArchivedEvent::id)
+      .reversed();
+
+  private EventSegmentWriter() {
+  }
+
+  public static Path write(Path directory, long rangeStart, long rangeEnd,
+                           List<ArchivedEvent> events, int blockSize) throws IOException {
+    Map<String, List<ArchivedEvent>> byDevice = new TreeMap<>();
+    for (ArchivedEvent event : events) {
+      byDevice.computeIfAbsent(event.deviceId(), _ -> new ArrayList<>()).add(event);
+    }
+
+    String fileName = EventSegment.fileName(rangeStart, rangeEnd, System.currentTimeMillis());
+    Path target = directory.resolve(fileName + EventSegment.PENDING_SUFFIX);
+    Path temp = directory.resolve(fileName + ".tmp");
+
+    Deflater deflater = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+      ByteBuffer header = ByteBuffer.allocate(EventSegment.HEADER_SIZE)
+          .putInt(EventSegment.MAGIC)
+          .putShort(EventSegment.VERSION)
+          .putLong(rangeStart)
+          .putLong(rangeEnd)
+          .flip();
+      writeFully(channel, header);
+      long position = EventSegment.HEADER_SIZE;
+
+      ByteArrayOutputStream indexBytes = new ByteArrayOutputStream();
+      DataOutputStream index = new DataOutputStream(indexBytes);
+      index.writeInt(byDevice.size());
+      for (Map.Entry<String, List<ArchivedEvent>> entry : byDevice.entrySet()) {
+        List<ArchivedEvent> deviceEvents = entry.getValue();
+        deviceEvents.sort(NEWEST_FIRST);
+        int blockCount = (deviceEvents.size() + blockSize - 1) / blockSize;
+        index.writeUTF(entry.getKey());
+        index.writeInt(deviceEvents.size());
+        index.writeInt(blockCount);
+        for (int from = 0; from < deviceEvents.size(); from += blockSize) {
+          List<ArchivedEvent> block = deviceEvents.subList(from, Math.min(from + blockSize, deviceEvents.size()));
+          byte[] raw = encodeBlock(block);
+          byte[] compressed = deflate(deflater, raw);
+          writeFully(channel, ByteBuffer.wrap(compressed));
+          index.writeLong(position);
+          index.writeInt(compressed.length);
+          index.writeInt(raw.length);
+          index.writeInt(block.size());
+          position += compressed.length;
+        }
+      }
+      index.flush();
+
+      writeFully(channel, ByteBuffer.wrap(indexBytes.toByteArray()));
+      ByteBuffer trailer = ByteBuffer.allocate(EventSegment.TRAILER_SIZE)
+          .putLong(position)
+          .putInt(EventSegment.MAGIC)
+          .flip();
+      writeFully(channel, trailer);
+      channel.force(true);
+    } catch (IOException e) {
+      Files.deleteIfExists(temp);
+      throw e;
+    } finally {
+      deflater.end();
+    }
+
+    Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE);
+    return target;
+  }
+
+  /**
+   * Renames a pending segment to its final name and returns that path.
+   */
+  public static Path commit(Path pending) throws IOException {
+    String name = pending.getFileName().toString();
+    Path target = pending.resolveSibling(name.substring(0, name.length() - EventSegment.PENDING_SUFFIX.length()));
+    Files.move(pending, target, StandardCopyOption.ATOMIC_MOVE);
+    return target;
+  }
+
+  private static byte[] encodeBlock(List<ArchivedEvent> block) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(block.size() * 48);
+    DataOutputStream out = new DataOutputStream(bytes);
+    for (ArchivedEvent event : block) {
+      out.writeLong(event.id());
+      out.writeLong(event.timestamp().toEpochSecond(ZoneOffset.UTC));
+      out.writeInt(event.timestamp().getNano());
+      out.writeUTF(event.eventType().name());
+      out.writeBoolean(event.description() != null);
+      if (event.description() != null) {
+        out.writeUTF(event.description());
+      }
+    }
+    out.flush();
+    return bytes.toByteArray();
+  }
+
+  private static byte[] deflate(Deflater deflater, byte[] raw) {
+    deflater.reset();
+    deflater.setInput(raw);
+    deflater.finish();
+    ByteArrayOutputStream out = new ByteArrayOutputStream(raw.length / 2 + 16);
+    byte[] chunk = new byte[4096];
+    while (!deflater.finished()) {
+      int n = deflater.deflate(chunk);
+      out.write(chunk, 0, n);
+    }
+    return out.toByteArray();
+  }
+
+  private static void writeFully(FileChannel channel, ByteBuffer buffer) throws IOException {
+    while (buffer.hasRemaining()) {
+      channel.write(buffer);
+    }
+  }
+
+}
@@ -0,0 +1,24 @@
+package com.bravos.parentalv2.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.archive")
+@Getter
+@Setter
+public class ArchiveProperties {
+
+  private boolean enabled = true;
+  private String directory = "data/archive";
+  private Duration maxAge = Duration.ofDays(90);
+  private Duration segmentSpan = Duration.ofDays(1);
+  private int batchSize = 5000;
+  private int blockSize = 128;
+  private String cron = "0 30 3 * * *";
+
+}
@@ -0,0 +1,38 @@
+package com.bravos.parentalv2.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.auth")
+@Getter
+@Setter
+public class AuthProperties {
+
+  /**
+   * {@code session} keeps the login in the servlet session; {@code token} issues signed bearer tokens so any
+   * instance can serve admin requests without session replication.
+   */
+  private String mode = "session";
+
+  /**
+   * HMAC key for tokens, at least 32 bytes. Must be identical on every instance; required in token mode.
+   */
+  private String tokenSecret = "";
+  private Duration accessTokenTtl = Duration.ofMinutes(15);
+  private Duration refreshTokenTtl = Duration.ofDays(7);
+
+  /**
+   * Absolute lifetime of a login in token mode; refreshing never extends a session past it.
+   */
+  private Duration sessionMaxLifetime = Duration.ofDays(30);
+
+  public boolean isTokenMode() {
+    return "token".equalsIgnoreCase(mode);
+  }
+
+}
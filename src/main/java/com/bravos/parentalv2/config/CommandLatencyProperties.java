@@ -0,0 +1,26 @@
+package com.bravos.parentalv2.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.command-latency")
+@Getter
+@Setter
+public class CommandLatencyProperties {
+
+  /**
+   * A command whose status report has not arrived this long after its delay elapsed is counted as unanswered.
+   */
+  private Duration timeout = Duration.ofMinutes(2);
+
+  /**
+   * Devices whose average round trip (weighted towards recent commands) is at least this are reported as slow.
+   */
+  private Duration slowThreshold = Duration.ofSeconds(2);
+
+}
@@ -0,0 +1,80 @@
+package com.bravos.parentalv2.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.jspecify.annotations.NonNull;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Admits admin API requests through the adaptive limit of their class and sheds the rest with 503 and
+ * {@code Retry-After}, instead of letting them queue for a pool connection until it times out. Long-lived
+ * streams and authentication (bounded by the password hasher) are not limited. Requests that fan out to the
+ * fleet are kept apart from single-device commands, so a broadcast neither takes their permits nor skews
+ * their latency baseline.
+ */
+@Component
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class ConcurrencyLimitFilter extends OncePerRequestFilter {
+
+  private final ConcurrencyLimiters limiters;
+
+  public ConcurrencyLimitFilter(ConcurrencyLimiters limiters) {
+    this.limiters = limiters;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+    String uri = request.getRequestURI();
+    return !limiters.isEnabled()
+        || !uri.startsWith("/api/")
+        || uri.startsWith("/api/auth/")
+        || uri.startsWith("/api/feed");
+  }
+
+  @Override
+  protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                  @NonNull HttpServletResponse response,
+                                  @NonNull FilterChain filterChain) throws ServletException, IOException {
+    WorkloadClass workloadClass = classify(request);
+    ConcurrencyLimiter.Permit permit = limiters.tryAcquire(workloadClass);
+    if (permit == null) {
+      response.setHeader(HttpHeaders.RETRY_AFTER, Integer.toString(limiters.getRetryAfterSeconds()));
+      response.setStatus(HttpStatus.SERVICE_UNAVAILABLE.value());
+      return;
+    }
+    boolean dropped = false;
+    try {
+      filterChain.doFilter(request, response);
+      dropped = response.getStatus() == HttpStatus.SERVICE_UNAVAILABLE.value();
+    } catch (IOException | ServletException | RuntimeException e) {
+      dropped = ConcurrencyLimiters.isCapacityFailure(e);
+      throw e;
+    } finally {
+      permit.release(dropped);
+    }
+  }
+
+  static WorkloadClass classify(HttpServletRequest request) {
+    String method = request.getMethod();
+    if ("GET".equals(method) || "HEAD".equals(method)) {
+      return WorkloadClass.ADMIN_READ;
+    }
+    String uri = request.getRequestURI();
+    if (uri.equals("/api/devices/command")
+        || uri.equals("/api/devices/bulk/command")
+        || uri.equals("/api/rollouts")) {
+      return WorkloadClass.FANOUT;
+    }
+    return WorkloadClass.COMMAND;
+  }
+
+}
@@ -0,0 +1,50 @@
+package com.bravos.parentalv2.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.concurrency-limit")
+@Getter
+@Setter
+public class ConcurrencyLimitProperties {
+
+  private boolean enabled = true;
+
+  /**
+   * Seconds suggested to clients in {@code Retry-After} when a request is shed.
+   */
+  private int retryAfterSeconds = 1;
+
+  private Map<WorkloadClass, Limit> limits = new EnumMap<>(WorkloadClass.class);
+
+  public Limit limitFor(WorkloadClass workloadClass) {
+    return limits.computeIfAbsent(workloadClass, _ -> new Limit());
+  }
+
+  @Getter
+  @Setter
+  public static class Limit {
+
+    private int initial = 4;
+    private int min = 1;
+
+    /**
+     * Ceiling for the adaptive limit; 0 means the size of the connection pool the class uses (for ingest,
+     * {@code app.ingest.max-concurrency} when set).
+     */
+    private int max = 0;
+
+    /**
+     * Weight of each new estimate, 0..1; lower values change the limit more slowly.
+     */
+    private double smoothing = 0.5;
+
+  }
+
+}
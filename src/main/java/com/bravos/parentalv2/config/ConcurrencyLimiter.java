@@ -0,0 +1,144 @@
+package com.bravos.parentalv2.config;
+
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Concurrency limit that adapts to latency, after TCP Vegas: the lowest round trip seen stands for the
+ * unloaded service time, and the ratio of the current round trip to it estimates how many requests are
+ * queued downstream (for us, waiting on a pool connection). The limit grows while that queue is short and
+ * shrinks once it builds up or when work fails for lack of capacity. Every {@code 30 × limit} samples the
+ * baseline is reset to the latest round trip, so it follows real changes in the database.
+ */
+public class ConcurrencyLimiter {
+
+  private static final int PROBE_MULTIPLIER = 30;
+
+  private final int min;
+  private final int max;
+  private final double smoothing;
+  private final ReentrantLock lock = new ReentrantLock();
+  private final Condition available = lock.newCondition();
+
+  private double limit;
+  private int inflight;
+  private long baselineNanos;
+  private long samplesSinceProbe;
+
+  public ConcurrencyLimiter(int initial, int min, int max, double smoothing) {
+    this.min = Math.max(1, min);
+    this.max = Math.max(this.min, max);
+    this.smoothing = smoothing;
+    this.limit = Math.clamp(initial, this.min, this.max);
+  }
+
+  /**
+   * @return a permit, or null if the limit is reached
+   */
+  public Permit tryAcquire() {
+    lock.lock();
+    try {
+      if (inflight >= (int) limit) {
+        return null;
+      }
+      return new Permit(++inflight);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  /**
+   * Waits until the limit allows one more.
+   */
+  public Permit acquire() throws InterruptedException {
+    lock.lockInterruptibly();
+    try {
+      while (inflight >= (int) limit) {
+        available.await();
+      }
+      return new Permit(++inflight);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int getLimit() {
+    lock.lock();
+    try {
+      return (int) limit;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  public int getInflight() {
+    lock.lock();
+    try {
+      return inflight;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void release(Permit permit, long rttNanos, boolean dropped) {
+    lock.lock();
+    try {
+      inflight--;
+      int before = (int) limit;
+      update(rttNanos, permit.inflightAtStart, dropped);
+      if ((int) limit > before) {
+        available.signalAll();
+      } else {
+        available.signal();
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  private void update(long rttNanos, int inflightAtStart, boolean dropped) {
+    if (baselineNanos == 0 || rttNanos < baselineNanos || ++samplesSinceProbe >= PROBE_MULTIPLIER * limit) {
+      baselineNanos = Math.max(1, rttNanos);
+      samplesSinceProbe = 0;
+    }
+    double step = Math.max(1, Math.log10(limit));
+    double target;
+    if (dropped) {
+      target = limit - step;
+    } else if (inflightAtStart * 2 < limit) {
+      // Not using the limit, so the samples say nothing about raising it
+      return;
+    } else {
+      double queued = Math.ceil(limit * (1 - (double) baselineNanos / Math.max(1, rttNanos)));
+      if (queued <= step) {
+        target = limit + 6 * step;
+      } else if (queued < 3 * step) {
+        target = limit + step;
+      } else if (queued > 6 * step) {
+        target = limit - step;
+      } else {
+        return;
+      }
+    }
+    limit = Math.clamp((1 - smoothing) * limit + smoothing * target, min, max);
+  }
+
+  /**
+   * One admitted unit of work. Release exactly once, reporting whether it failed for lack of capacity.
+   */
+  public final class Permit {
+
+    private final int inflightAtStart;
+    private final long startNanos = System.nanoTime();
+
+    private Permit(int inflightAtStart) {
+      this.inflightAtStart = inflightAtStart;
+    }
+
+    public void release(boolean dropped) {
+      ConcurrencyLimiter.this.release(this, System.nanoTime() - startNanos, dropped);
+    }
+
+  }
+
+}
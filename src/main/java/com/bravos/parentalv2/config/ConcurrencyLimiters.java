@@ -0,0 +1,97 @@
+package com.bravos.parentalv2.config;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.sql.SQLTransientConnectionException;
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * One {@link ConcurrencyLimiter} per {@link WorkloadClass}. HTTP requests over the limit are shed at once;
+ * device ingest waits for a permit instead, since its backlog is already bounded by the per-device mailboxes.
+ * With limiting disabled, ingest keeps a fixed limit at its ceiling and HTTP requests are not limited.
+ */
+@Component
+public class ConcurrencyLimiters {
+
+  private final ConcurrencyLimitProperties properties;
+  private final Map<WorkloadClass, ConcurrencyLimiter> limiters = new EnumMap<>(WorkloadClass.class);
+  private final Map<WorkloadClass, Counter> rejected = new EnumMap<>(WorkloadClass.class);
+
+  public ConcurrencyLimiters(ConcurrencyLimitProperties properties,
+                             DataSourcePoolProperties poolProperties,
+                             IngestProperties ingestProperties,
+                             MeterRegistry registry) {
+    this.properties = properties;
+    for (WorkloadClass workloadClass : WorkloadClass.values()) {
+      ConcurrencyLimitProperties.Limit settings = properties.limitFor(workloadClass);
+      int max = settings.getMax() > 0 ? settings.getMax() : defaultMax(workloadClass, poolProperties, ingestProperties);
+      ConcurrencyLimiter limiter = properties.isEnabled() && workloadClass.isAdaptive()
+          ? new ConcurrencyLimiter(settings.getInitial(), settings.getMin(), max, settings.getSmoothing())
+          : new ConcurrencyLimiter(max, max, max, 0);
+      limiters.put(workloadClass, limiter);
+      String tag = workloadClass.name().toLowerCase();
+      Gauge.builder("concurrency.limit", limiter, ConcurrencyLimiter::getLimit)
+          .description("Current adaptive concurrency limit")
+          .tag("class", tag)
+          .register(registry);
+      Gauge.builder("concurrency.inflight", limiter, ConcurrencyLimiter::getInflight)
+          .description("Work currently admitted")
+          .tag("class", tag)
+          .register(registry);
+      rejected.put(workloadClass, Counter.builder("concurrency.rejected")
+          .description("Requests shed because the concurrency limit was reached")
+          .tag("class", tag)
+          .register(registry));
+    }
+  }
+
+  public boolean isEnabled() {
+    return properties.isEnabled();
+  }
+
+  public int getRetryAfterSeconds() {
+    return properties.getRetryAfterSeconds();
+  }
+
+  /**
+   * @return a permit, or null if the request should be shed
+   */
+  public ConcurrencyLimiter.Permit tryAcquire(WorkloadClass workloadClass) {
+    ConcurrencyLimiter.Permit permit = limiters.get(workloadClass).tryAcquire();
+    if (permit == null) {
+      rejected.get(workloadClass).increment();
+    }
+    return permit;
+  }
+
+  public ConcurrencyLimiter.Permit acquire(WorkloadClass workloadClass) throws InterruptedException {
+    return limiters.get(workloadClass).acquire();
+  }
+
+  /**
+   * Whether a failure means the database had no capacity left, which should lower the limit.
+   */
+  public static boolean isCapacityFailure(Throwable failure) {
+    for (Throwable t = failure; t != null; t = t.getCause()) {
+      if (t instanceof CannotCreateTransactionException || t instanceof SQLTransientConnectionException) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  private static int defaultMax(WorkloadClass workloadClass, DataSourcePoolProperties pools, IngestProperties ingest) {
+    return switch (workloadClass) {
+      case ADMIN_READ -> pools.getRead().getMaximumPoolSize();
+      case COMMAND -> pools.getWrite().getMaximumPoolSize();
+      case FANOUT -> Math.max(1, pools.getWrite().getMaximumPoolSize() / 2);
+      case INGEST -> ingest.getMaxConcurrency() > 0 ? ingest.getMaxConcurrency() : pools.getWrite().getMaximumPoolSize();
+    };
+  }
+
+}
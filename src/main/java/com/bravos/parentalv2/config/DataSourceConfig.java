@@ -0,0 +1,89 @@
+package com.bravos.parentalv2.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import javax.sql.DataSource;
+
+/**
+ * Separate connection pools for writes and read-only transactions, so a burst of admin queries cannot starve
+ * device ingest and vice versa. {@code @Transactional(readOnly = true)} work is routed to the read pool, which
+ * may point at a replica; everything else uses the write pool.
+ */
+@Configuration
+public class DataSourceConfig {
+
+  @Value("${spring.datasource.url}")
+  private String url;
+
+  @Value("${spring.datasource.username}")
+  private String username;
+
+  @Value("${spring.datasource.password}")
+  private String password;
+
+  @Value("${spring.datasource.driver-class-name}")
+  private String driverClassName;
+
+  @Bean(destroyMethod = "close")
+  public HikariDataSource writeDataSource(DataSourcePoolProperties properties) {
+    return createPool("write", properties.getWrite(), false);
+  }
+
+  @Bean(destroyMethod = "close")
+  public HikariDataSource readDataSource(DataSourcePoolProperties properties) {
+    return createPool("read", properties.getRead(), true);
+  }
+
+  /**
+   * The Postgres rate-limit store's own pool. Statements are capped too, so a row lock held by another node's
+   * check does not pin a connection for long.
+   */
+  @Bean(destroyMethod = "close")
+  @ConditionalOnProperty(prefix = "app.rate-limit", name = "store", havingValue = "postgres")
+  public HikariDataSource rateLimitDataSource(DataSourcePoolProperties properties,
+                                              RateLimitProperties rateLimitProperties) {
+    HikariDataSource dataSource = createPool("ratelimit", properties.getRateLimit(), false);
+    dataSource.setConnectionInitSql("SET statement_timeout = "
+        + rateLimitProperties.getPostgres().getStatementTimeout().toMillis());
+    return dataSource;
+  }
+
+  @Bean
+  @Primary
+  public DataSource dataSource(@Qualifier("writeDataSource") DataSource writeDataSource,
+                               @Qualifier("readDataSource") DataSource readDataSource) {
+    LazyConnectionDataSourceProxy routing = new LazyConnectionDataSourceProxy(writeDataSource);
+    routing.setReadOnlyDataSource(readDataSource);
+    return routing;
+  }
+
+  private HikariDataSource createPool(String name, DataSourcePoolProperties.Pool pool, boolean readOnly) {
+    // Configured without starting the pool; it connects on first use like the auto-configured one did
+    HikariDataSource dataSource = new HikariDataSource();
+    dataSource.setPoolName(name);
+    dataSource.setJdbcUrl(hasText(pool.getUrl()) ? pool.getUrl() : url);
+    dataSource.setUsername(hasText(pool.getUsername()) ? pool.getUsername() : username);
+    dataSource.setPassword(hasText(pool.getPassword()) ? pool.getPassword() : password);
+    dataSource.setDriverClassName(driverClassName);
+    dataSource.setMaximumPoolSize(pool.getMaximumPoolSize());
+    dataSource.setMinimumIdle(pool.getMinimumIdle());
+    dataSource.setConnectionTimeout(pool.getConnectionTimeout().toMillis());
+    dataSource.setIdleTimeout(pool.getIdleTimeout().toMillis());
+    dataSource.setMaxLifetime(pool.getMaxLifetime().toMillis());
+    dataSource.setAutoCommit(true);
+    dataSource.setReadOnly(readOnly);
+    return dataSource;
+  }
+
+  private static boolean hasText(String value) {
+    return value != null && !value.isBlank();
+  }
+
+}
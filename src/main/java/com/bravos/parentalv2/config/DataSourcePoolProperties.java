@@ -0,0 +1,48 @@
+package com.bravos.parentalv2.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.datasource")
+@Getter
+@Setter
+public class DataSourcePoolProperties {
+
+  private Pool write = new Pool();
+  private Pool read = new Pool();
+
+  /**
+   * Used only by the Postgres rate-limit store. Kept small and quick to give up, so a request flood waiting on
+   * bucket rows cannot take connections from ingest and commands.
+   */
+  private Pool rateLimit = rateLimitDefaults();
+
+  private static Pool rateLimitDefaults() {
+    Pool pool = new Pool();
+    pool.setMaximumPoolSize(2);
+    pool.setMinimumIdle(1);
+    pool.setConnectionTimeout(Duration.ofMillis(250));
+    return pool;
+  }
+
+  @Getter
+  @Setter
+  public static class Pool {
+
+    private String url;
+    private String username;
+    private String password;
+    private int maximumPoolSize = 5;
+    private int minimumIdle = 1;
+    private Duration connectionTimeout = Duration.ofSeconds(30);
+    private Duration idleTimeout = Duration.ofMinutes(10);
+    private Duration maxLifetime = Duration.ofMinutes(30);
+
+  }
+
+}
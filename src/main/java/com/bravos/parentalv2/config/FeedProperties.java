@@ -0,0 +1,21 @@
+package com.bravos.parentalv2.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.feed")
+@Getter
+@Setter
+public class FeedProperties {
+
+  private int replaySize = 2048;
+  private int subscriberBufferSize = 256;
+  private int maxSubscribers = 64;
+  private Duration emitterTimeout = Duration.ofMinutes(30);
+
+}
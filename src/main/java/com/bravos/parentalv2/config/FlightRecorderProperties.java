@@ -0,0 +1,38 @@
+package com.bravos.parentalv2.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.jfr")
+@Getter
+@Setter
+public class FlightRecorderProperties {
+
+  /**
+   * Where recordings are dumped. Files are never served over HTTP; copy them off the host.
+   */
+  private String directory = "data/jfr";
+
+  /**
+   * Built-in JFR configuration the recording starts from: {@code default} (~1% overhead) or {@code profile}.
+   */
+  private String settings = "default";
+
+  /**
+   * Upper bounds on how much a running recording keeps in its buffer.
+   */
+  private Duration maxAge = Duration.ofMinutes(30);
+  private DataSize maxSize = DataSize.ofMegabytes(256);
+
+  /**
+   * A recording left running is stopped and dumped after this long.
+   */
+  private Duration maxDuration = Duration.ofHours(2);
+
+}
@@ -0,0 +1,28 @@
+package com.bravos.parentalv2.config;
+
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.WriteOperation;
+import org.springframework.stereotype.Component;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryMXBean;
+import java.util.Map;
+
+/**
+ * {@code POST /actuator/gc}: runs a full collection and reports the live heap, so the memory load scenario can
+ * measure retained bytes per connection. Not exposed by default; add {@code gc} to
+ * {@code management.endpoints.web.exposure.include} on the management port while benchmarking.
+ */
+@Component
+@Endpoint(id = "gc")
+public class GcEndpoint {
+
+  @WriteOperation
+  public Map<String, Long> collect() {
+    MemoryMXBean memory = ManagementFactory.getMemoryMXBean();
+    long before = memory.getHeapMemoryUsage().getUsed();
+    memory.gc();
+    return Map.of("heapUsedBefore", before, "heapUsed", memory.getHeapMemoryUsage().getUsed());
+  }
+
+}
@@ -0,0 +1,223 @@
+package com.bravos.parentalv2.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ReadListener;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletInputStream;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletRequestWrapper;
+import jakarta.servlet.http.HttpServletResponse;
+import org.jspecify.annotations.NonNull;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.server.PathContainer;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.util.ContentCachingResponseWrapper;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Makes POSTs carrying an {@code Idempotency-Key} header safe to retry: the first request runs and its response is
+ * stored; repeats with the same key, user and path get the stored response without touching any device. A repeat
+ * that arrives while the first is still running gets 409, and reusing a key with a different body gets 422. Only
+ * outcomes a retry could not change are stored (2xx and deterministic client errors), so server errors, shed
+ * requests and auth failures can be retried. Runs after Spring Security, so replays are only served to
+ * authenticated callers.
+ */
+@Component
+public class IdempotencyFilter extends OncePerRequestFilter {
+
+  public static final String HEADER = "Idempotency-Key";
+  private static final int MAX_KEY_LENGTH = 255;
+
+  // Client errors that depend on timing or credentials rather than on the request itself
+  private static final Set<Integer> RETRYABLE_CLIENT_ERRORS = Set.of(401, 403, 408, 409, 423, 425, 429);
+
+  private final IdempotencyStore store;
+  private final List<PathPattern> paths;
+  private final long maxBodySize;
+  private final int maxRequestSize;
+
+  public IdempotencyFilter(IdempotencyStore store, IdempotencyProperties properties) {
+    this.store = store;
+    this.paths = properties.getPaths().stream().map(PathPatternParser.defaultInstance::parse).toList();
+    this.maxBodySize = properties.getMaxBodySize().toBytes();
+    this.maxRequestSize = Math.toIntExact(properties.getMaxRequestSize().toBytes());
+  }
+
+  @Override
+  protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+    if (!HttpMethod.POST.matches(request.getMethod()) || request.getHeader(HEADER) == null) {
+      return true;
+    }
+    PathContainer path = PathContainer.parsePath(request.getRequestURI());
+    return paths.stream().noneMatch(pattern -> pattern.matches(path));
+  }
+
+  @Override
+  protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                  @NonNull HttpServletResponse response,
+                                  @NonNull FilterChain filterChain) throws ServletException, IOException {
+    String idempotencyKey = request.getHeader(HEADER);
+    if (idempotencyKey.isBlank() || idempotencyKey.length() > MAX_KEY_LENGTH) {
+      writeError(response, HttpStatus.BAD_REQUEST, "Invalid Idempotency-Key");
+      return;
+    }
+    Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+    String user = auth != null ? auth.getName() : "";
+    String key = user + "|" + request.getRequestURI() + "|" + idempotencyKey;
+
+    byte[] requestBody = readBody(request);
+    if (requestBody == null) {
+      writeError(response, HttpStatus.CONTENT_TOO_LARGE, "Request body too large for an Idempotency-Key");
+      return;
+    }
+    CachedBodyRequest cachedRequest = new CachedBodyRequest(request, requestBody);
+    IdempotencyStore.Claim claim = store.claim(key, sha256(cachedRequest.body));
+    if (claim.mismatch()) {
+      writeError(response, HttpStatus.UNPROCESSABLE_CONTENT,
+          "Idempotency-Key was already used for a different request");
+      return;
+    }
+    if (claim.response() != null) {
+      IdempotencyStore.StoredResponse stored = claim.response();
+      response.setStatus(stored.status());
+      if (stored.contentType() != null) {
+        response.setContentType(stored.contentType());
+      }
+      response.setHeader("Idempotent-Replayed", "true");
+      response.getOutputStream().write(stored.body());
+      return;
+    }
+    if (!claim.acquired()) {
+      writeError(response, HttpStatus.CONFLICT, "A request with this Idempotency-Key is still in progress");
+      return;
+    }
+
+    ContentCachingResponseWrapper wrapper = new ContentCachingResponseWrapper(response);
+    boolean completed = false;
+    try {
+      filterChain.doFilter(cachedRequest, wrapper);
+      byte[] body = wrapper.getContentAsByteArray();
+      if (isFinal(wrapper.getStatus()) && body.length <= maxBodySize) {
+        store.complete(key, new IdempotencyStore.StoredResponse(wrapper.getStatus(), wrapper.getContentType(), body));
+        completed = true;
+      }
+    } finally {
+      if (!completed) {
+        store.release(key);
+      }
+      wrapper.copyBodyToResponse();
+    }
+  }
+
+  /**
+   * The whole body, or null if it is larger than the limit; never reads more than one byte past the limit.
+   */
+  private byte[] readBody(HttpServletRequest request) throws IOException {
+    if (request.getContentLengthLong() > maxRequestSize) {
+      return null;
+    }
+    byte[] body = request.getInputStream().readNBytes(maxRequestSize + 1);
+    return body.length > maxRequestSize ? null : body;
+  }
+
+  static boolean isFinal(int status) {
+    return (status >= 200 && status < 300)
+        || (status >= 400 && status < 500 && !RETRYABLE_CLIENT_ERRORS.contains(status));
+  }
+
+  private static String sha256(byte[] body) {
+    try {
+      return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(body));
+    } catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private static void writeError(HttpServletResponse response, HttpStatus status, String message) throws IOException {
+    response.setStatus(status.value());
+    response.setContentType(MediaType.APPLICATION_JSON_VALUE);
+    response.getOutputStream().write(("{\"success\":false,\"message\":\"" + message + "\"}")
+        .getBytes(StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Holds the body read up front, so it can be hashed before the request runs and still be read by the handler.
+   */
+  private static final class CachedBodyRequest extends HttpServletRequestWrapper {
+
+    private final byte[] body;
+
+    private CachedBodyRequest(HttpServletRequest request, byte[] body) {
+      super(request);
+      this.body = body;
+    }
+
+    @Override
+    public ServletInputStream getInputStream() {
+      ByteArrayInputStream in = new ByteArrayInputStream(body);
+      return new ServletInputStream() {
+        @Override
+        public boolean isFinished() {
+          return in.available() == 0;
+        }
+
+        @Override
+        public boolean isReady() {
+          return true;
+        }
+
+        /**
+         * The body is already in memory, so it is available at once: the listener is called before this returns.
+         */
+        @Override
+        public void setReadListener(ReadListener readListener) {
+          try {
+            if (!isFinished()) {
+              readListener.onDataAvailable();
+            }
+            readListener.onAllDataRead();
+          } catch (IOException e) {
+            readListener.onError(e);
+          }
+        }
+
+        @Override
+        public int read() {
+          return in.read();
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) {
+          return in.read(b, off, len);
+        }
+      };
+    }
+
+    @Override
+    public BufferedReader getReader() {
+      String encoding = getCharacterEncoding();
+      Charset charset = encoding != null ? Charset.forName(encoding) : StandardCharsets.UTF_8;
+      return new BufferedReader(new InputStreamReader(getInputStream(), charset));
+    }
+
+  }
+
+}
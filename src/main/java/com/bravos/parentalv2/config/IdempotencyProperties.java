@@ -0,0 +1,43 @@
+package com.bravos.parentalv2.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.idempotency")
+@Getter
+@Setter
+public class IdempotencyProperties {
+
+  /**
+   * {@code memory} keeps responses on this instance; {@code postgres} shares them across instances.
+   */
+  private String store = "memory";
+  private Duration ttl = Duration.ofHours(24);
+  private int maxEntries = 10000;
+  private DataSize maxBodySize = DataSize.ofKilobytes(64);
+
+  /**
+   * Largest request body read for hashing; a keyed request above it is refused with 413 before anything runs.
+   */
+  private DataSize maxRequestSize = DataSize.ofMegabytes(1);
+
+  /**
+   * How long a key stays claimed by a request that never finished (for example because its node died).
+   */
+  private Duration inProgressTimeout = Duration.ofMinutes(1);
+
+  /**
+   * POST paths that honour the {@code Idempotency-Key} header.
+   */
+  private List<String> paths = new ArrayList<>(List.of("/api/devices/**", "/api/rollouts"));
+  private String table = "idempotency_key";
+
+}
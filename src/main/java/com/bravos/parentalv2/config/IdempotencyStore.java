@@ -0,0 +1,36 @@
+package com.bravos.parentalv2.config;
+
+/**
+ * Remembers the response to each idempotency key. A key is first claimed, then either completed with the
+ * response to replay or released so a retry can run again. Each key is tied to a hash of the request body it was
+ * first used with, so reusing a key for a different request is refused rather than answered with the old response.
+ */
+public interface IdempotencyStore {
+
+  /**
+   * @return {@link Claim#acquired()} if the caller now owns the key; {@link Claim#mismatch()} if the key is
+   * already held or completed for a different request hash; otherwise the stored response, or a claim with
+   * neither when another request with the key is still running
+   */
+  Claim claim(String key, String requestHash);
+
+  void complete(String key, StoredResponse response);
+
+  void release(String key);
+
+  record StoredResponse(int status, String contentType, byte[] body) {
+  }
+
+  record Claim(boolean acquired, StoredResponse response, boolean mismatch) {
+
+    static final Claim ACQUIRED = new Claim(true, null, false);
+    static final Claim IN_PROGRESS = new Claim(false, null, false);
+    static final Claim MISMATCH = new Claim(false, null, true);
+
+    static Claim completed(StoredResponse response) {
+      return new Claim(false, response, false);
+    }
+
+  }
+
+}
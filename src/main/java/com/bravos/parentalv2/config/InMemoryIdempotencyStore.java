@@ -0,0 +1,71 @@
+package com.bravos.parentalv2.config;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * Bounded LRU of recent keys. Entries expire after the configured TTL; the least recently used are evicted first
+ * when the table is full. Keys still in flight are kept apart from the LRU, so a burst of new keys cannot evict
+ * one and let a retry run the request a second time.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.idempotency", name = "store", havingValue = "memory", matchIfMissing = true)
+public class InMemoryIdempotencyStore implements IdempotencyStore {
+
+  private final long ttlMillis;
+  private final long inProgressMillis;
+  private final Map<String, Entry> entries;
+  private final Map<String, Entry> inFlight = new HashMap<>();
+
+  public InMemoryIdempotencyStore(IdempotencyProperties properties) {
+    this.ttlMillis = properties.getTtl().toMillis();
+    this.inProgressMillis = properties.getInProgressTimeout().toMillis();
+    int maxEntries = properties.getMaxEntries();
+    this.entries = new LinkedHashMap<>(16, 0.75f, true) {
+      @Override
+      protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+        return size() > maxEntries;
+      }
+    };
+  }
+
+  @Override
+  public synchronized Claim claim(String key, String requestHash) {
+    long now = System.currentTimeMillis();
+    Entry entry = inFlight.get(key);
+    if (entry == null || entry.expiresAt <= now) {
+      entry = entries.get(key);
+    }
+    if (entry == null || entry.expiresAt <= now) {
+      entries.remove(key);
+      inFlight.put(key, new Entry(null, requestHash, now + inProgressMillis));
+      return Claim.ACQUIRED;
+    }
+    if (!Objects.equals(entry.requestHash, requestHash)) {
+      return Claim.MISMATCH;
+    }
+    return entry.response != null ? Claim.completed(entry.response) : Claim.IN_PROGRESS;
+  }
+
+  @Override
+  public synchronized void complete(String key, StoredResponse response) {
+    Entry claimed = inFlight.remove(key);
+    if (claimed != null) {
+      entries.put(key, new Entry(response, claimed.requestHash, System.currentTimeMillis() + ttlMillis));
+    }
+  }
+
+  @Override
+  public synchronized void release(String key) {
+    inFlight.remove(key);
+  }
+
+  private record Entry(StoredResponse response, String requestHash, long expiresAt) {
+  }
+
+}
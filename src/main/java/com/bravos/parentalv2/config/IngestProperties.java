@@ -0,0 +1,24 @@
+package com.bravos.parentalv2.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.ingest")
+@Getter
+@Setter
+public class IngestProperties {
+
+  /**
+   * Device tasks allowed to run at once; 0 means the size of the write connection pool.
+   */
+  private int maxConcurrency = 0;
+
+  /**
+   * Tasks queued per device before further frames from that device are dropped.
+   */
+  private int mailboxCapacity = 256;
+
+}
@@ -0,0 +1,25 @@
+package com.bravos.parentalv2.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.journal")
+@Getter
+@Setter
+public class JournalProperties {
+
+  private boolean enabled = true;
+  private String directory = "data/journal";
+  private DataSize maxSegmentSize = DataSize.ofMegabytes(64);
+  private int queueCapacity = 65536;
+  private int maxBatch = 512;
+  private Duration appendTimeout = Duration.ofSeconds(5);
+  private Duration maxRetryBackoff = Duration.ofSeconds(30);
+
+}
@@ -0,0 +1,26 @@
+package com.bravos.parentalv2.config;
+
+import io.github.bucket4j.Bandwidth;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.local.LocalBucketBuilder;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Keeps buckets in this instance's memory. Limits apply per node.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.rate-limit", name = "store", havingValue = "local", matchIfMissing = true)
+public class LocalRateLimitBuckets implements RateLimitBuckets {
+
+  @Override
+  public Bucket create(String key, BucketConfiguration configuration) {
+    LocalBucketBuilder builder = Bucket.builder();
+    for (Bandwidth bandwidth : configuration.getBandwidths()) {
+      builder.addLimit(bandwidth);
+    }
+    return builder.build();
+  }
+
+}
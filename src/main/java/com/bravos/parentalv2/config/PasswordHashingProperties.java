@@ -0,0 +1,28 @@
+package com.bravos.parentalv2.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.password-hashing")
+@Getter
+@Setter
+public class PasswordHashingProperties {
+
+  /**
+   * BCrypt cost for new hashes. Stored hashes with a lower cost are rehashed on the next successful login.
+   */
+  private int strength = 12;
+
+  /**
+   * Hashing threads; 0 means a quarter of the available processors (at least one).
+   */
+  private int threads = 0;
+  private int queueCapacity = 16;
+  private Duration timeout = Duration.ofSeconds(3);
+
+}
@@ -0,0 +1,97 @@
+package com.bravos.parentalv2.config;
+
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Keeps idempotency keys in Postgres so a retry routed to another instance still sees the original response.
+ * Claiming relies on the primary key: only one {@code INSERT ... ON CONFLICT DO NOTHING} can win.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.idempotency", name = "store", havingValue = "postgres")
+public class PostgresIdempotencyStore implements IdempotencyStore {
+
+  private final JdbcTemplate jdbcTemplate;
+  private final IdempotencyProperties properties;
+  private final String table;
+
+  public PostgresIdempotencyStore(@Qualifier("writeDataSource") DataSource dataSource,
+                                  IdempotencyProperties properties) {
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.properties = properties;
+    this.table = properties.getTable();
+    if (!table.matches("[a-z_][a-z0-9_]*")) {
+      throw new IllegalStateException("Invalid idempotency table name: " + table);
+    }
+  }
+
+  /**
+   * Runs once the application is up, so context refresh needs no database.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void createTable() {
+    jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + table + " ("
+        + "idempotency_key VARCHAR(512) PRIMARY KEY, "
+        + "status INT, content_type VARCHAR(255), body BYTEA, "
+        + "expires_at TIMESTAMPTZ NOT NULL)");
+    jdbcTemplate.execute("ALTER TABLE " + table + " ADD COLUMN IF NOT EXISTS request_hash VARCHAR(64)");
+    jdbcTemplate.execute("CREATE INDEX IF NOT EXISTS idx_" + table + "_expires_at ON " + table + " (expires_at)");
+  }
+
+  @Override
+  public Claim claim(String key, String requestHash) {
+    Instant now = Instant.now();
+    jdbcTemplate.update("DELETE FROM " + table + " WHERE idempotency_key = ? AND expires_at <= ?",
+        key, Timestamp.from(now));
+    int inserted = jdbcTemplate.update("INSERT INTO " + table + " (idempotency_key, request_hash, expires_at) "
+            + "VALUES (?, ?, ?) ON CONFLICT (idempotency_key) DO NOTHING",
+        key, requestHash, Timestamp.from(now.plus(properties.getInProgressTimeout())));
+    if (inserted == 1) {
+      return Claim.ACQUIRED;
+    }
+    List<Claim> rows = jdbcTemplate.query(
+        "SELECT status, content_type, body, request_hash FROM " + table + " WHERE idempotency_key = ?",
+        (rs, _) -> {
+          String storedHash = rs.getString("request_hash");
+          if (storedHash != null && !storedHash.equals(requestHash)) {
+            return Claim.MISMATCH;
+          }
+          return rs.getObject("status") == null
+              ? Claim.IN_PROGRESS
+              : Claim.completed(new StoredResponse(rs.getInt("status"), rs.getString("content_type"),
+                  rs.getBytes("body")));
+        },
+        key);
+    // An empty result means it was released between our insert and select; let the client retry
+    return rows.isEmpty() ? Claim.IN_PROGRESS : rows.getFirst();
+  }
+
+  @Override
+  public void complete(String key, StoredResponse response) {
+    jdbcTemplate.update("UPDATE " + table + " SET status = ?, content_type = ?, body = ?, expires_at = ? "
+            + "WHERE idempotency_key = ?",
+        response.status(), response.contentType(), response.body(),
+        Timestamp.from(Instant.now().plus(properties.getTtl())), key);
+  }
+
+  @Override
+  public void release(String key) {
+    jdbcTemplate.update("DELETE FROM " + table + " WHERE idempotency_key = ? AND status IS NULL", key);
+  }
+
+  @Scheduled(fixedDelayString = "${app.idempotency.cleanup-interval:10m}")
+  public void removeExpired() {
+    jdbcTemplate.update("DELETE FROM " + table + " WHERE expires_at <= ?", Timestamp.from(Instant.now()));
+  }
+
+}
@@ -0,0 +1,94 @@
+package com.bravos.parentalv2.config;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.distributed.ExpirationAfterWriteStrategy;
+import io.github.bucket4j.distributed.jdbc.PrimaryKeyMapper;
+import io.github.bucket4j.distributed.proxy.optimization.DelayParameters;
+import io.github.bucket4j.distributed.proxy.optimization.Optimizations;
+import io.github.bucket4j.postgresql.Bucket4jPostgreSQL;
+import io.github.bucket4j.postgresql.PostgreSQLSelectForUpdateBasedProxyManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.time.Duration;
+
+/**
+ * Shares bucket state between instances through a Postgres table, updated under {@code SELECT ... FOR UPDATE}.
+ * To keep most requests off the database, each node may consume a small number of tokens locally before
+ * synchronizing; routes whose capacity is too small for that (the login route) synchronize on every request.
+ * <p>
+ * Runs on its own small pool ({@code app.datasource.rate-limit}) with a short connection timeout: when it is
+ * exhausted the check fails and {@link RouteRateLimiter} lets the request through, instead of queueing on the
+ * write pool that device ingest and commands depend on.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.rate-limit", name = "store", havingValue = "postgres")
+public class PostgresRateLimitBuckets implements RateLimitBuckets {
+
+  private static final Logger log = LoggerFactory.getLogger(PostgresRateLimitBuckets.class);
+  private static final int CLEANUP_BATCH = 1000;
+
+  private final PostgreSQLSelectForUpdateBasedProxyManager<String> proxyManager;
+  private final RateLimitProperties.Postgres settings;
+  private final JdbcTemplate jdbcTemplate;
+
+  public PostgresRateLimitBuckets(@Qualifier("rateLimitDataSource") DataSource dataSource,
+                                  RateLimitProperties properties) {
+    this.settings = properties.getPostgres();
+    String table = settings.getTable();
+    if (!table.matches("[a-z_][a-z0-9_]*")) {
+      throw new IllegalStateException("Invalid rate limit table name: " + table);
+    }
+    this.jdbcTemplate = new JdbcTemplate(dataSource);
+    this.proxyManager = Bucket4jPostgreSQL.selectForUpdateBasedBuilder(dataSource)
+        .primaryKeyMapper(PrimaryKeyMapper.STRING)
+        .table(table)
+        .expirationAfterWrite(ExpirationAfterWriteStrategy.basedOnTimeForRefillingBucketUpToMax(
+            properties.getIdleTimeout()))
+        .build();
+  }
+
+  /**
+   * Runs once the application is up, so context refresh needs no database.
+   */
+  @EventListener(ApplicationReadyEvent.class)
+  public void createTable() {
+    jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + settings.getTable()
+        + " (id VARCHAR(512) PRIMARY KEY, state BYTEA, expires_at BIGINT)");
+  }
+
+  @Override
+  public Bucket create(String key, BucketConfiguration configuration) {
+    long capacity = configuration.getBandwidths()[0].getCapacity();
+    long unsynchronized = Math.min(settings.getMaxUnsynchronizedTokens(), capacity / 10);
+    if (unsynchronized < 1) {
+      return proxyManager.builder().build(key, () -> configuration);
+    }
+    Duration timeout = settings.getMaxUnsynchronizedTimeout();
+    return proxyManager.builder()
+        .withOptimization(Optimizations.delaying(new DelayParameters(unsynchronized, timeout)))
+        .build(key, () -> configuration);
+  }
+
+  @Scheduled(fixedDelayString = "${app.rate-limit.sweep-interval:1m}")
+  public void removeExpired() {
+    try {
+      int removed;
+      do {
+        removed = proxyManager.removeExpired(CLEANUP_BATCH);
+      } while (removed == CLEANUP_BATCH);
+    } catch (RuntimeException e) {
+      log.warn("Failed to remove expired rate limit buckets: {}", e.getMessage());
+    }
+  }
+
+}
@@ -0,0 +1,14 @@
+package com.bravos.parentalv2.config;
+
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+
+/**
+ * Where rate-limit bucket state lives. {@link RouteRateLimiter} caches the returned buckets per client, so
+ * {@link #create} is only called the first time a client is seen on a route.
+ */
+public interface RateLimitBuckets {
+
+  Bucket create(String key, BucketConfiguration configuration);
+
+}
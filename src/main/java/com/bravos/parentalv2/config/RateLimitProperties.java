@@ -0,0 +1,79 @@
+package com.bravos.parentalv2.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.rate-limit")
+@Getter
+@Setter
+public class RateLimitProperties {
+
+  /**
+   * {@code local} keeps limits per instance; {@code postgres} shares them across instances.
+   */
+  private String store = "local";
+  private int maxBucketsPerRoute = 10000;
+
+  /**
+   * Addresses (or CIDR ranges) of reverse proxies whose {@code X-Real-IP} header is believed. Requests from
+   * anywhere else are limited by their socket address, so a client cannot pick someone else's bucket.
+   */
+  private List<String> trustedProxies = new ArrayList<>(List.of("127.0.0.1", "::1"));
+  private Duration idleTimeout = Duration.ofMinutes(10);
+  private Duration sweepInterval = Duration.ofMinutes(1);
+  private Policy fallback = new Policy("/**", 120, Duration.ofMinutes(1));
+
+  /**
+   * Checked in order; the first pattern matching the request path is the route the client is limited on.
+   */
+  private List<Policy> policies = new ArrayList<>();
+  private Postgres postgres = new Postgres();
+
+  @Getter
+  @Setter
+  public static class Policy {
+
+    private String pattern;
+    private long capacity;
+    private Duration period;
+
+    /**
+     * Clients tracked on this route at once; 0 means {@code max-buckets-per-route}.
+     */
+    private int maxBuckets;
+
+    public Policy() {
+    }
+
+    public Policy(String pattern, long capacity, Duration period) {
+      this.pattern = pattern;
+      this.capacity = capacity;
+      this.period = period;
+    }
+
+  }
+
+  @Getter
+  @Setter
+  public static class Postgres {
+
+    private String table = "rate_limit_bucket";
+    private long maxUnsynchronizedTokens = 20;
+    private Duration maxUnsynchronizedTimeout = Duration.ofSeconds(1);
+
+    /**
+     * Longest a bucket query may run, including waiting for another node's row lock; the request is then let
+     * through.
+     */
+    private Duration statementTimeout = Duration.ofMillis(500);
+
+  }
+
+}
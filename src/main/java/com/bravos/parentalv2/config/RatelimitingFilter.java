@@ -1,59 +1,63 @@
 package com.bravos.parentalv2.config;
 
-import io.github.bucket4j.BandwidthBuilder;
-import io.github.bucket4j.Bucket;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import lombok.NonNull;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.web.util.matcher.IpAddressMatcher;
 import org.springframework.stereotype.Component;
 import org.springframework.web.filter.OncePerRequestFilter;
 
-import java.time.Duration;
-import java.util.Map;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
 
 @Component
 public class RatelimitingFilter extends OncePerRequestFilter {
 
-  private final Map<String, Bucket> buckets = new ConcurrentHashMap<>();
+  private final RouteRateLimiter rateLimiter;
+  private final List<IpAddressMatcher> trustedProxies;
+
+  public RatelimitingFilter(RouteRateLimiter rateLimiter, RateLimitProperties properties) {
+    this.rateLimiter = rateLimiter;
+    this.trustedProxies = properties.getTrustedProxies().stream()
+        .map(IpAddressMatcher::new)
+        .toList();
+  }
 
   @Override
   protected void doFilterInternal(@NonNull HttpServletRequest request,
                                   @NonNull HttpServletResponse response,
                                   @NonNull FilterChain filterChain) {
-    String ip = request.getHeader("X-Real-IP");
-    if (ip == null || ip.isBlank()) {
-      ip = request.getRemoteAddr();
-    }
-    String uri = request.getRequestURI();
-    Bucket bucket = buckets.computeIfAbsent(ip + ":" + uri, k -> newBucket(uri));
-    if (bucket.tryConsume(1)) {
+    String ip = clientIp(request);
+    long waitNanos = rateLimiter.tryConsume(request.getRequestURI(), ip);
+    if (waitNanos == 0) {
       try {
         filterChain.doFilter(request, response);
       } catch (Exception e) {
         throw new RuntimeException(e);
       }
     } else {
+      response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(Math.max(1, TimeUnit.NANOSECONDS.toSeconds(waitNanos))));
       response.setStatus(429);
     }
   }
 
-  private Bucket newBucket(String uri) {
-    if(uri.startsWith("/api/auth/login")) {
-      return Bucket.builder()
-          .addLimit(BandwidthBuilder.builder()
-              .capacity(5)
-              .refillGreedy(5, Duration.ofMinutes(2))
-              .build()
-          ).build();
+  /**
+   * The proxy-supplied client address when the request came through a trusted proxy, otherwise the peer itself.
+   */
+  private String clientIp(HttpServletRequest request) {
+    String peer = request.getRemoteAddr();
+    String forwarded = request.getHeader("X-Real-IP");
+    if (forwarded == null || forwarded.isBlank()) {
+      return peer;
+    }
+    for (IpAddressMatcher proxy : trustedProxies) {
+      if (proxy.matches(peer)) {
+        return forwarded.trim();
+      }
     }
-    return Bucket.builder()
-        .addLimit(BandwidthBuilder.builder()
-            .capacity(120)
-            .refillGreedy(120, Duration.ofMinutes(1))
-            .build()
-        ).build();
+    return peer;
   }
 
 }
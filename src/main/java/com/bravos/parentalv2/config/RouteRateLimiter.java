@@ -0,0 +1,236 @@
+package com.bravos.parentalv2.config;
+
+import io.github.bucket4j.BandwidthBuilder;
+import io.github.bucket4j.Bucket;
+import io.github.bucket4j.BucketConfiguration;
+import io.github.bucket4j.ConsumptionProbe;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.server.PathContainer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.web.util.pattern.PathPattern;
+import org.springframework.web.util.pattern.PathPatternParser;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Token buckets per (route, client IP). Routes are the configured path templates, so a templated route such as
+ * the device events endpoint costs one bucket per client no matter how many device ids it is called with.
+ * Each route's table is capped. When it is full, idle entries are expired on the spot; if none are idle, only the
+ * new client is turned away, so clients already being tracked keep their own limits.
+ */
+@Component
+public class RouteRateLimiter {
+
+  private static final Logger log = LoggerFactory.getLogger(RouteRateLimiter.class);
+  private static final long FULL_SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+  private static final int MAX_RESOLVED_PATHS = 4096;
+
+  private final List<Route> routes = new ArrayList<>();
+  private final Route fallback;
+  private final long idleTimeoutNanos;
+  private final Counter storeErrors;
+  private final Map<String, ResolvedPath> resolvedPaths = new ConcurrentHashMap<>();
+  private final AtomicLong lastPathSweep = new AtomicLong(System.nanoTime() - FULL_SWEEP_INTERVAL_NANOS);
+
+  public RouteRateLimiter(RateLimitProperties properties, RateLimitBuckets store, MeterRegistry meterRegistry) {
+    this.storeErrors = Counter.builder("ratelimit.store.errors")
+        .description("Requests let through because the bucket store could not be reached")
+        .register(meterRegistry);
+    this.idleTimeoutNanos = properties.getIdleTimeout().toNanos();
+    for (RateLimitProperties.Policy policy : properties.getPolicies()) {
+      routes.add(new Route(policy, properties.getMaxBucketsPerRoute(), store, meterRegistry));
+    }
+    this.fallback = new Route(properties.getFallback(), properties.getMaxBucketsPerRoute(), store, meterRegistry);
+  }
+
+  /**
+   * @return 0 if the request may proceed, otherwise the number of nanoseconds until a token is available
+   */
+  public long tryConsume(String path, String clientIp) {
+    Route route = resolve(path);
+    Entry entry = route.buckets.get(clientIp);
+    if (entry == null) {
+      entry = admit(route, clientIp);
+      if (entry == null) {
+        route.rejected.increment();
+        return FULL_SWEEP_INTERVAL_NANOS;
+      }
+    }
+    entry.lastAccess = System.nanoTime();
+    ConsumptionProbe probe;
+    try {
+      probe = entry.bucket.tryConsumeAndReturnRemaining(1);
+    } catch (RuntimeException e) {
+      // A shared store outage must not take the API down with it
+      storeErrors.increment();
+      log.debug("Rate limit store unavailable: {}", e.getMessage());
+      return 0;
+    }
+    if (probe.isConsumed()) {
+      return 0;
+    }
+    route.rejected.increment();
+    return Math.max(1, probe.getNanosToWaitForRefill());
+  }
+
+  @Scheduled(fixedDelayString = "${app.rate-limit.sweep-interval:1m}")
+  public void sweep() {
+    int removed = 0;
+    for (Route route : allRoutes()) {
+      removed += expireIdle(route);
+    }
+    if (removed > 0) {
+      log.debug("Expired {} idle rate-limit buckets", removed);
+    }
+  }
+
+  private Entry admit(Route route, String clientIp) {
+    if (route.buckets.size() >= route.maxBuckets) {
+      long now = System.nanoTime();
+      long lastSweep = route.lastFullSweep.get();
+      if (now - lastSweep >= FULL_SWEEP_INTERVAL_NANOS && route.lastFullSweep.compareAndSet(lastSweep, now)) {
+        expireIdle(route);
+      }
+      if (route.buckets.size() >= route.maxBuckets) {
+        return null;
+      }
+    }
+    return route.buckets.computeIfAbsent(clientIp, ip -> new Entry(route.newBucket(ip)));
+  }
+
+  private int expireIdle(Route route) {
+    long cutoff = System.nanoTime() - idleTimeoutNanos;
+    int removed = 0;
+    for (var it = route.buckets.values().iterator(); it.hasNext(); ) {
+      if (it.next().lastAccess - cutoff < 0) {
+        it.remove();
+        removed++;
+      }
+    }
+    return removed;
+  }
+
+  private Route resolve(String path) {
+    if (routes.isEmpty()) {
+      return fallback;
+    }
+    ResolvedPath cached = resolvedPaths.get(path);
+    if (cached != null) {
+      if (!cached.used) {
+        cached.used = true;
+      }
+      return cached.route;
+    }
+    Route route = match(PathContainer.parsePath(path));
+    if (resolvedPaths.size() >= MAX_RESOLVED_PATHS) {
+      sweepResolvedPaths();
+    }
+    // Still full of paths in use: match this one again next time rather than evict them
+    if (resolvedPaths.size() < MAX_RESOLVED_PATHS) {
+      resolvedPaths.put(path, new ResolvedPath(route));
+    }
+    return route;
+  }
+
+  /**
+   * Drops the paths not looked up since the previous sweep, at most once per sweep interval. Paths carrying ids
+   * and scanner traffic are mostly seen once, so they make room while the paths in steady use stay cached.
+   */
+  private void sweepResolvedPaths() {
+    long now = System.nanoTime();
+    long lastSweep = lastPathSweep.get();
+    if (now - lastSweep < FULL_SWEEP_INTERVAL_NANOS || !lastPathSweep.compareAndSet(lastSweep, now)) {
+      return;
+    }
+    resolvedPaths.values().removeIf(resolved -> {
+      boolean stale = !resolved.used;
+      resolved.used = false;
+      return stale;
+    });
+  }
+
+  private Route match(PathContainer container) {
+    for (Route route : routes) {
+      if (route.pattern.matches(container)) {
+        return route;
+      }
+    }
+    return fallback;
+  }
+
+  private List<Route> allRoutes() {
+    List<Route> all = new ArrayList<>(routes);
+    all.add(fallback);
+    return all;
+  }
+
+  private static final class Route {
+
+    private final PathPattern pattern;
+    private final BucketConfiguration configuration;
+    private final RateLimitBuckets store;
+    private final ConcurrentHashMap<String, Entry> buckets = new ConcurrentHashMap<>();
+    private final int maxBuckets;
+    private final AtomicLong lastFullSweep = new AtomicLong(System.nanoTime() - FULL_SWEEP_INTERVAL_NANOS);
+    private final Counter rejected;
+
+    private Route(RateLimitProperties.Policy policy, int defaultMaxBuckets, RateLimitBuckets store,
+                  MeterRegistry meterRegistry) {
+      this.pattern = PathPatternParser.defaultInstance.parse(policy.getPattern());
+      this.configuration = BucketConfiguration.builder()
+          .addLimit(BandwidthBuilder.builder()
+              .capacity(policy.getCapacity())
+              .refillGreedy(policy.getCapacity(), policy.getPeriod())
+              .build())
+          .build();
+      this.store = store;
+      this.maxBuckets = policy.getMaxBuckets() > 0 ? policy.getMaxBuckets() : defaultMaxBuckets;
+      this.rejected = Counter.builder("ratelimit.rejected")
+          .description("Requests rejected by the rate limiter")
+          .tag("route", policy.getPattern())
+          .register(meterRegistry);
+      Gauge.builder("ratelimit.buckets.active", buckets, ConcurrentHashMap::size)
+          .description("Client buckets currently held for the route")
+          .tag("route", policy.getPattern())
+          .register(meterRegistry);
+    }
+
+    private Bucket newBucket(String clientIp) {
+      return store.create(pattern.getPatternString() + "|" + clientIp, configuration);
+    }
+
+  }
+
+  private static final class ResolvedPath {
+
+    private final Route route;
+    private volatile boolean used;
+
+    private ResolvedPath(Route route) {
+      this.route = route;
+    }
+
+  }
+
+  private static final class Entry {
+
+    private final Bucket bucket;
+    private volatile long lastAccess = System.nanoTime();
+
+    private Entry(Bucket bucket) {
+      this.bucket = bucket;
+    }
+
+  }
+
+}
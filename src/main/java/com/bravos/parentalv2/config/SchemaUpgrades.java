@@ -0,0 +1,92 @@
+package com.bravos.parentalv2.config;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.core.env.Environment;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+/**
+ * Schema changes that Hibernate's {@code ddl-auto: update} cannot make to an existing database. Runs right after
+ * context refresh, so refresh itself needs no database, and ahead of the journal applier and the warm-up runner,
+ * the first code to write events; every step is a no-op once applied.
+ * <p>
+ * {@code ddl-auto} is checked when the application starts rather than with a condition, which an AOT build would
+ * freeze at build time.
+ */
+@Component
+public class SchemaUpgrades {
+
+  private static final Logger log = LoggerFactory.getLogger(SchemaUpgrades.class);
+
+  // Moves the event id sequence past ids issued by the old identity column, while the sequence is still unused.
+  // Skips a whole allocation block, whichever end of the block Hibernate's pooled optimizer hands out first.
+  private static final String ALIGN_EVENT_SEQUENCE = """
+      SELECT setval('device_events_seq', m.max_id + 50, false)
+      FROM (SELECT COALESCE(MAX(id), 0) AS max_id FROM device_events) m
+      WHERE m.max_id > 0 AND NOT (SELECT is_called FROM device_events_seq)
+      """;
+
+  private static final String NULLABLE_DEVICE_SORT_COLUMNS = """
+      SELECT column_name FROM information_schema.columns
+      WHERE table_schema = current_schema() AND table_name = 'devices'
+        AND column_name IN ('device_name', 'last_seen') AND is_nullable = 'YES'
+      """;
+
+  // Serves the case-insensitive name prefix filter whatever the database collation
+  private static final String DEVICE_NAME_PREFIX_INDEX =
+      "CREATE INDEX IF NOT EXISTS idx_devices_name_lower ON devices (LOWER(device_name) text_pattern_ops)";
+
+  private final JdbcTemplate jdbcTemplate;
+  private final Environment environment;
+
+  public SchemaUpgrades(@Qualifier("writeDataSource") DataSource writeDataSource, Environment environment) {
+    this.jdbcTemplate = new JdbcTemplate(writeDataSource);
+    this.environment = environment;
+  }
+
+  @EventListener(ApplicationStartedEvent.class)
+  @Order(Ordered.HIGHEST_PRECEDENCE)
+  public void upgrade() {
+    if (!"update".equals(environment.getProperty("spring.jpa.hibernate.ddl-auto"))) {
+      return;
+    }
+    alignEventSequence(jdbcTemplate);
+    makeDeviceSortColumnsNotNull(jdbcTemplate);
+    jdbcTemplate.execute(DEVICE_NAME_PREFIX_INDEX);
+  }
+
+  private static void alignEventSequence(JdbcTemplate jdbcTemplate) {
+    Long next = jdbcTemplate.query(ALIGN_EVENT_SEQUENCE, rs -> rs.next() ? rs.getLong(1) : null);
+    if (next != null) {
+      log.info("Aligned device_events_seq to {} after existing event ids", next);
+    }
+  }
+
+  /**
+   * Keyset pages compare {@code (column, id)} as a row value, which needs sort columns without nulls.
+   */
+  private static void makeDeviceSortColumnsNotNull(JdbcTemplate jdbcTemplate) {
+    List<String> nullable = jdbcTemplate.queryForList(NULLABLE_DEVICE_SORT_COLUMNS, String.class);
+    if (nullable.contains("device_name")) {
+      jdbcTemplate.update("UPDATE devices SET device_name = '' WHERE device_name IS NULL");
+      jdbcTemplate.execute("ALTER TABLE devices ALTER COLUMN device_name SET NOT NULL");
+    }
+    if (nullable.contains("last_seen")) {
+      jdbcTemplate.update("UPDATE devices SET last_seen = created_at WHERE last_seen IS NULL");
+      jdbcTemplate.execute("ALTER TABLE devices ALTER COLUMN last_seen SET NOT NULL");
+    }
+    if (!nullable.isEmpty()) {
+      log.info("Made devices columns {} NOT NULL", nullable);
+    }
+  }
+
+}
@@ -1,5 +1,6 @@
 package com.bravos.parentalv2.config;
 
+import jakarta.servlet.DispatcherType;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
@@ -25,9 +26,11 @@ public class SecurityConfig {
   private String corsAllowedOrigin;
 
   private final SessionAuthFilter sessionAuthFilter;
+  private final AuthProperties authProperties;
 
-  public SecurityConfig(SessionAuthFilter sessionAuthFilter) {
+  public SecurityConfig(SessionAuthFilter sessionAuthFilter, AuthProperties authProperties) {
     this.sessionAuthFilter = sessionAuthFilter;
+    this.authProperties = authProperties;
   }
 
   @Bean
@@ -35,10 +38,14 @@ public class SecurityConfig {
     http
         .csrf(AbstractHttpConfigurer::disable)
         .cors(cors -> cors.configurationSource(corsConfigurationSource))
-        .sessionManagement(session -> session.sessionCreationPolicy(SessionCreationPolicy.IF_REQUIRED))
+        .sessionManagement(session -> session.sessionCreationPolicy(authProperties.isTokenMode()
+            ? SessionCreationPolicy.STATELESS
+            : SessionCreationPolicy.IF_REQUIRED))
         .authorizeHttpRequests(auth -> auth
-            .requestMatchers("/api/auth/login").permitAll()
+            .dispatcherTypeMatchers(DispatcherType.ASYNC).permitAll()
+            .requestMatchers("/api/auth/login", "/api/auth/refresh").permitAll()
             .requestMatchers("/ws/**").permitAll()
+            .requestMatchers("/actuator/**").permitAll()
             .requestMatchers("/swagger-ui/**", "/swagger-ui.html", "/v3/api-docs/**").authenticated()
             .requestMatchers("/api/ws-secret/**").authenticated()
             .requestMatchers("/api/**").authenticated()
@@ -56,8 +63,8 @@ public class SecurityConfig {
   }
 
   @Bean
-  public PasswordEncoder passwordEncoder() {
-    return new BCryptPasswordEncoder(12);
+  public PasswordEncoder passwordEncoder(PasswordHashingProperties properties) {
+    return new BCryptPasswordEncoder(properties.getStrength());
   }
 
   @Bean
@@ -1,12 +1,15 @@
 package com.bravos.parentalv2.config;
 
+import com.bravos.parentalv2.service.AuthTokenService;
 import jakarta.servlet.FilterChain;
 import jakarta.servlet.ServletException;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpServletResponse;
 import jakarta.servlet.http.HttpSession;
 import org.jspecify.annotations.NonNull;
+import org.springframework.http.HttpHeaders;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.context.SecurityContextHolder;
 import org.springframework.stereotype.Component;
@@ -18,6 +21,16 @@ import java.util.List;
 @Component
 public class SessionAuthFilter extends OncePerRequestFilter {
 
+  private static final String BEARER = "Bearer ";
+
+  private final AuthProperties authProperties;
+  private final AuthTokenService authTokenService;
+
+  public SessionAuthFilter(AuthProperties authProperties, AuthTokenService authTokenService) {
+    this.authProperties = authProperties;
+    this.authTokenService = authTokenService;
+  }
+
   @Override
   protected void doFilterInternal(HttpServletRequest request,
                                   @NonNull HttpServletResponse response,
@@ -26,10 +39,20 @@ public class SessionAuthFilter extends OncePerRequestFilter {
     if (!uri.startsWith("/ws") &&
         !uri.startsWith("/api/") &&
         !uri.startsWith("/swagger-ui") &&
+        !uri.startsWith("/actuator") &&
         !uri.startsWith("/v3/api-docs")) {
       response.setStatus(444);
       return;
     }
+    if (authProperties.isTokenMode()) {
+      String token = bearerToken(request);
+      Authentication auth = token != null ? authTokenService.authenticate(token) : null;
+      if (auth != null) {
+        SecurityContextHolder.getContext().setAuthentication(auth);
+      }
+      filterChain.doFilter(request, response);
+      return;
+    }
     HttpSession session = request.getSession(false);
     if (session != null && Boolean.TRUE.equals(session.getAttribute("authenticated"))) {
       String username = (String) session.getAttribute("username");
@@ -40,4 +63,16 @@ public class SessionAuthFilter extends OncePerRequestFilter {
     filterChain.doFilter(request, response);
   }
 
+  private static String bearerToken(HttpServletRequest request) {
+    String header = request.getHeader(HttpHeaders.AUTHORIZATION);
+    if (header != null && header.regionMatches(true, 0, BEARER, 0, BEARER.length())) {
+      return header.substring(BEARER.length()).trim();
+    }
+    // EventSource cannot set headers, so the feed also accepts the token as a query parameter
+    if ("/api/feed".equals(request.getRequestURI())) {
+      return request.getParameter("access_token");
+    }
+    return null;
+  }
+
 }
@@ -0,0 +1,71 @@
+package com.bravos.parentalv2.config;
+
+/**
+ * Per-thread tally of the SQL statements run and the time spent executing them, fed by
+ * {@link SqlStatementCounter} and {@link SqlTimingListener}. Hibernate instantiates those itself, so the tally
+ * lives in a static thread local rather than in a bean. Work outside a {@link #begin()}/{@link Scope#close()} pair
+ * is not counted.
+ */
+public final class SqlAccounting {
+
+  private static final ThreadLocal<Scope> CURRENT = new ThreadLocal<>();
+
+  private SqlAccounting() {
+  }
+
+  /**
+   * Starts counting on this thread. Nested scopes are not supported; an inner begin returns the outer scope's
+   * tally and its close is a no-op.
+   */
+  public static Scope begin() {
+    Scope current = CURRENT.get();
+    if (current != null) {
+      return new Scope(current);
+    }
+    Scope scope = new Scope(null);
+    CURRENT.set(scope);
+    return scope;
+  }
+
+  static void statementPrepared() {
+    Scope scope = CURRENT.get();
+    if (scope != null) {
+      scope.statements++;
+    }
+  }
+
+  static void executed(long nanos) {
+    Scope scope = CURRENT.get();
+    if (scope != null) {
+      scope.dbNanos += nanos;
+    }
+  }
+
+  public static final class Scope implements AutoCloseable {
+
+    private final Scope outer;
+    private int statements;
+    private long dbNanos;
+
+    private Scope(Scope outer) {
+      this.outer = outer;
+    }
+
+    public int statements() {
+      return outer != null ? outer.statements : statements;
+    }
+
+    public long dbNanos() {
+      return outer != null ? outer.dbNanos : dbNanos;
+    }
+
+    @Override
+    public void close() {
+      if (outer == null) {
+        CURRENT.remove();
+      }
+    }
+
+  }
+
+}
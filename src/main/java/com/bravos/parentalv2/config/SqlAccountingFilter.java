@@ -0,0 +1,73 @@
+package com.bravos.parentalv2.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.jspecify.annotations.NonNull;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.security.web.util.OnCommittedResponseWrapper;
+import org.springframework.stereotype.Component;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Counts SQL statements per HTTP request and records them under the matched endpoint template, so query
+ * amplification on a route shows up in metrics instead of only in the database.
+ */
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 10)
+public class SqlAccountingFilter extends OncePerRequestFilter {
+
+  public static final String HEADER = "X-SQL-Statements";
+
+  private final SqlAccountingRecorder recorder;
+  private final SqlAccountingProperties properties;
+
+  public SqlAccountingFilter(SqlAccountingRecorder recorder, SqlAccountingProperties properties) {
+    this.recorder = recorder;
+    this.properties = properties;
+  }
+
+  @Override
+  protected boolean shouldNotFilter(@NonNull HttpServletRequest request) {
+    return !recorder.isEnabled() || !request.getRequestURI().startsWith("/api/");
+  }
+
+  @Override
+  protected void doFilterInternal(@NonNull HttpServletRequest request,
+                                  @NonNull HttpServletResponse response,
+                                  @NonNull FilterChain filterChain) throws ServletException, IOException {
+    try (SqlAccounting.Scope scope = SqlAccounting.begin()) {
+      HttpServletResponse target = properties.isDebugHeader() ? new HeaderOnCommit(response, scope) : response;
+      filterChain.doFilter(request, target);
+      Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+      String operation = request.getMethod() + " " + (pattern != null ? pattern : "unmatched");
+      recorder.record(operation, scope);
+    }
+  }
+
+  /**
+   * Sets the header at the last moment before the response is committed, so it covers as much work as possible.
+   */
+  private static final class HeaderOnCommit extends OnCommittedResponseWrapper {
+
+    private final SqlAccounting.Scope scope;
+
+    private HeaderOnCommit(HttpServletResponse response, SqlAccounting.Scope scope) {
+      super(response);
+      this.scope = scope;
+    }
+
+    @Override
+    protected void onResponseCommitted() {
+      setHeader(HEADER, scope.statements() + "; db=" + TimeUnit.NANOSECONDS.toMicros(scope.dbNanos()) / 1000.0 + "ms");
+    }
+
+  }
+
+}
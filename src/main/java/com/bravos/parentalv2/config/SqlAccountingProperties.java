@@ -0,0 +1,29 @@
+package com.bravos.parentalv2.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.sql-accounting")
+@Getter
+@Setter
+public class SqlAccountingProperties {
+
+  private boolean enabled = true;
+
+  /**
+   * Adds an {@code X-SQL-Statements} header with the count and DB time of each HTTP request.
+   */
+  private boolean debugHeader = false;
+
+  /**
+   * Requests and device messages running more statements than this (per message for journal batches) are logged.
+   */
+  private int warnStatements = 20;
+  private Duration warnDbTime = Duration.ofMillis(500);
+
+}
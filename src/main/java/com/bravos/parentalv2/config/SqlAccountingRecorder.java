@@ -0,0 +1,77 @@
+package com.bravos.parentalv2.config;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Publishes {@link SqlAccounting} tallies as {@code db.statements} and {@code db.time} per operation (an endpoint
+ * template or a device message type) and logs operations over the configured thresholds. Meters are created once
+ * per operation and cached.
+ */
+@Component
+public class SqlAccountingRecorder {
+
+  private static final Logger log = LoggerFactory.getLogger(SqlAccountingRecorder.class);
+
+  private final MeterRegistry registry;
+  private final SqlAccountingProperties properties;
+  private final long warnDbNanos;
+  private final Map<String, Meters> meters = new ConcurrentHashMap<>();
+
+  public SqlAccountingRecorder(MeterRegistry registry, SqlAccountingProperties properties) {
+    this.registry = registry;
+    this.properties = properties;
+    this.warnDbNanos = properties.getWarnDbTime().toNanos();
+  }
+
+  public boolean isEnabled() {
+    return properties.isEnabled();
+  }
+
+  public void record(String operation, SqlAccounting.Scope scope) {
+    record(operation, scope, 1);
+  }
+
+  /**
+   * @param units how many logical operations the scope covered (e.g. journal entries in a batch); thresholds
+   *              are compared per unit
+   */
+  public void record(String operation, SqlAccounting.Scope scope, int units) {
+    int statements = scope.statements();
+    long dbNanos = scope.dbNanos();
+    Meters m = meters.computeIfAbsent(operation, this::newMeters);
+    m.statements.record(statements);
+    m.dbTime.record(dbNanos, TimeUnit.NANOSECONDS);
+    int perUnit = statements / Math.max(1, units);
+    if (perUnit > properties.getWarnStatements() || dbNanos / Math.max(1, units) > warnDbNanos) {
+      log.warn("{} ran {} SQL statements ({} ms in DB) for {} unit(s)",
+          operation, statements, TimeUnit.NANOSECONDS.toMillis(dbNanos), units);
+    }
+  }
+
+  private Meters newMeters(String operation) {
+    return new Meters(
+        DistributionSummary.builder("db.statements")
+            .description("SQL statements per request or device message")
+            .tag("operation", operation)
+            .publishPercentileHistogram()
+            .register(registry),
+        Timer.builder("db.time")
+            .description("Time spent executing SQL per request or device message")
+            .tag("operation", operation)
+            .publishPercentileHistogram()
+            .register(registry));
+  }
+
+  private record Meters(DistributionSummary statements, Timer dbTime) {
+  }
+
+}
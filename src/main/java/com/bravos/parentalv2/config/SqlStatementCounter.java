@@ -0,0 +1,17 @@
+package com.bravos.parentalv2.config;
+
+import org.hibernate.resource.jdbc.spi.StatementInspector;
+
+/**
+ * Counts every SQL statement Hibernate prepares on the current thread. Registered through
+ * {@code hibernate.session_factory.statement_inspector}.
+ */
+public class SqlStatementCounter implements StatementInspector {
+
+  @Override
+  public String inspect(String sql) {
+    SqlAccounting.statementPrepared();
+    return sql;
+  }
+
+}
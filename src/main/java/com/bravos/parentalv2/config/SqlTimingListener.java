@@ -0,0 +1,34 @@
+package com.bravos.parentalv2.config;
+
+import org.hibernate.SessionEventListener;
+
+/**
+ * Measures time spent executing JDBC statements and batches. Registered through
+ * {@code hibernate.session.events.auto}, which creates one instance per session.
+ */
+public class SqlTimingListener implements SessionEventListener {
+
+  private long statementStart;
+  private long batchStart;
+
+  @Override
+  public void jdbcExecuteStatementStart() {
+    statementStart = System.nanoTime();
+  }
+
+  @Override
+  public void jdbcExecuteStatementEnd() {
+    SqlAccounting.executed(System.nanoTime() - statementStart);
+  }
+
+  @Override
+  public void jdbcExecuteBatchStart() {
+    batchStart = System.nanoTime();
+  }
+
+  @Override
+  public void jdbcExecuteBatchEnd() {
+    SqlAccounting.executed(System.nanoTime() - batchStart);
+  }
+
+}
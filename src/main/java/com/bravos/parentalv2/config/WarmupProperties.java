@@ -0,0 +1,33 @@
+package com.bravos.parentalv2.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+@Configuration
+@ConfigurationProperties(prefix = "app.warmup")
+@Getter
+@Setter
+public class WarmupProperties {
+
+  private boolean enabled = true;
+
+  /**
+   * Rounds of the synthetic register/status/event/query sequence.
+   */
+  private int iterations = 200;
+
+  /**
+   * Warm-up stops after this long even if rounds remain, so a slow database cannot hold back readiness.
+   */
+  private Duration maxDuration = Duration.ofSeconds(30);
+
+  /**
+   * Opens every connection of both pools before traffic arrives.
+   */
+  private boolean prefillPools = true;
+
+}
@@ -0,0 +1,38 @@
+package com.bravos.parentalv2.config;
+
+import lombok.Getter;
+import lombok.Setter;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.util.unit.DataSize;
+
+/**
+ * Per-connection buffer sizes of the device endpoint. Every open session holds each of these for its whole
+ * lifetime, so they bound how many devices fit in the heap. Tomcat's WebSocket I/O buffer can only be set with
+ * the {@code org.apache.tomcat.websocket.DEFAULT_BUFFER_SIZE} system property at launch; the Dockerfile and
+ * {@code bootRun} pass it.
+ */
+@Configuration
+@ConfigurationProperties(prefix = "app.websocket")
+@Getter
+@Setter
+public class WebSocketProperties {
+
+  /**
+   * Text buffer of each session. Device frames are small JSON; the longest is an event whose description is at
+   * most 255 characters. Longer frames are delivered in parts and reassembled by the handler, which answers
+   * oversized ones with an error frame.
+   */
+  private DataSize textBufferSize = DataSize.ofKilobytes(2);
+
+  /**
+   * Largest inbound binary frame. The protocol has no binary frames, they are refused.
+   */
+  private DataSize binaryBufferSize = DataSize.ofBytes(128);
+
+  /**
+   * Application read and write buffers of each NIO connection, shared with plain HTTP requests.
+   */
+  private DataSize socketBufferSize = DataSize.ofKilobytes(4);
+
+}
@@ -0,0 +1,36 @@
+package com.bravos.parentalv2.config;
+
+/**
+ * Kinds of database-bound work given separate concurrency limits, so a flood of one cannot starve the others.
+ */
+public enum WorkloadClass {
+
+  /**
+   * Admin GET requests, served mostly from the read pool.
+   */
+  ADMIN_READ,
+
+  /**
+   * Admin requests that send commands or change state.
+   */
+  COMMAND,
+
+  /**
+   * Admin requests that reach many devices: broadcasts, bulk commands and starting a rollout. They last as long
+   * as the fleet takes to answer, so they get a fixed limit of their own and feed no latency samples.
+   */
+  FANOUT,
+
+  /**
+   * Device frames processed on their mailboxes.
+   */
+  INGEST;
+
+  /**
+   * Whether the latency of this work tracks database load, and so can steer an adaptive limit.
+   */
+  public boolean isAdaptive() {
+    return this != FANOUT;
+  }
+
+}
@@ -2,37 +2,52 @@ package com.bravos.parentalv2.controller;
 
 import com.bravos.parentalv2.dto.ApiResponse;
 import com.bravos.parentalv2.dto.ChangePasswordRequest;
+import com.bravos.parentalv2.config.AuthProperties;
 import com.bravos.parentalv2.dto.LoginRequest;
+import com.bravos.parentalv2.dto.RefreshTokenRequest;
 import com.bravos.parentalv2.dto.RegisterRequest;
+import com.bravos.parentalv2.dto.TokenResponse;
 import com.bravos.parentalv2.service.AuthService;
+import com.bravos.parentalv2.service.AuthTokenService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.servlet.http.HttpServletRequest;
 import jakarta.servlet.http.HttpSession;
 import jakarta.validation.Valid;
 import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
 import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.security.Principal;
+
 @RestController
 @RequestMapping("/api/auth")
 @Tag(name = "Authentication", description = "Login, logout, registration, and password management")
 public class AuthController {
 
   private final AuthService authService;
+  private final AuthTokenService authTokenService;
+  private final AuthProperties authProperties;
 
-  public AuthController(AuthService authService) {
+  public AuthController(AuthService authService, AuthTokenService authTokenService, AuthProperties authProperties) {
     this.authService = authService;
+    this.authTokenService = authTokenService;
+    this.authProperties = authProperties;
   }
 
   @PostMapping("/login")
-  @Operation(summary = "Login with username and password")
-  public ResponseEntity<ApiResponse<Void>> login(@Valid @RequestBody LoginRequest request,
+  @Operation(summary = "Login with username and password; returns tokens when token auth is enabled")
+  public ResponseEntity<ApiResponse<TokenResponse>> login(@Valid @RequestBody LoginRequest request,
       HttpServletRequest httpRequest) {
     authService.authenticate(request.getUsername(), request.getPassword());
 
+    if (authProperties.isTokenMode()) {
+      return ResponseEntity.ok(ApiResponse.success("Login successful", authTokenService.issue(request.getUsername())));
+    }
+
     HttpSession session = httpRequest.getSession(true);
     session.setAttribute("authenticated", true);
     session.setAttribute("username", request.getUsername());
@@ -40,6 +55,15 @@ public class AuthController {
     return ResponseEntity.ok(ApiResponse.success("Login successful"));
   }
 
+  @PostMapping("/refresh")
+  @Operation(summary = "Exchange a refresh token for new tokens (token auth only)")
+  public ResponseEntity<ApiResponse<TokenResponse>> refresh(@Valid @RequestBody RefreshTokenRequest request) {
+    if (!authProperties.isTokenMode()) {
+      throw new IllegalArgumentException("Token authentication is not enabled");
+    }
+    return ResponseEntity.ok(ApiResponse.success("Token refreshed", authTokenService.refresh(request.getRefreshToken())));
+  }
+
   @PostMapping("/register")
   @Operation(summary = "Create a new admin account")
   public ResponseEntity<ApiResponse<Void>> register(@Valid @RequestBody RegisterRequest request) {
@@ -48,8 +72,14 @@ public class AuthController {
   }
 
   @PostMapping("/logout")
-  @Operation(summary = "Logout and invalidate session")
-  public ResponseEntity<ApiResponse<Void>> logout(HttpServletRequest request) {
+  @Operation(summary = "Logout; invalidates the session, or revokes the login's tokens in token mode")
+  public ResponseEntity<ApiResponse<Void>> logout(HttpServletRequest request, Authentication authentication) {
+    if (authProperties.isTokenMode()) {
+      if (authentication != null) {
+        authTokenService.revoke(authentication);
+      }
+      return ResponseEntity.ok(ApiResponse.success("Logout successful"));
+    }
     HttpSession session = request.getSession(false);
     if (session != null) {
       session.invalidate();
@@ -60,10 +90,8 @@ public class AuthController {
   @PostMapping("/change-password")
   @Operation(summary = "Change admin password")
   public ResponseEntity<ApiResponse<Void>> changePassword(@Valid @RequestBody ChangePasswordRequest request,
-      HttpServletRequest httpRequest) {
-    HttpSession session = httpRequest.getSession(false);
-    String username = (String) session.getAttribute("username");
-    authService.changePassword(username, request.getOldPassword(), request.getNewPassword());
+      Principal principal) {
+    authService.changePassword(principal.getName(), request.getOldPassword(), request.getNewPassword());
     return ResponseEntity.ok(ApiResponse.success("Password changed successfully"));
   }
 
@@ -0,0 +1,42 @@
+package com.bravos.parentalv2.controller;
+
+import com.bravos.parentalv2.dto.ApiResponse;
+import com.bravos.parentalv2.dto.DeviceLatencyResponse;
+import com.bravos.parentalv2.service.CommandLatencyTracker;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/latency")
+@Tag(name = "Command Latency", description = "Round-trip time from a command to the device's status report")
+public class CommandLatencyController {
+
+  private static final int MAX_LIMIT = 500;
+
+  private final CommandLatencyTracker latencyTracker;
+
+  public CommandLatencyController(CommandLatencyTracker latencyTracker) {
+    this.latencyTracker = latencyTracker;
+  }
+
+  @GetMapping("/slow")
+  @Operation(summary = "Connected devices whose average command round trip is above the slow threshold, slowest first")
+  public ResponseEntity<ApiResponse<List<DeviceLatencyResponse>>> slowDevices(
+      @RequestParam(defaultValue = "50") int limit) {
+    if (limit < 1 || limit > MAX_LIMIT) {
+      throw new IllegalArgumentException("limit must be between 1 and " + MAX_LIMIT);
+    }
+    return ResponseEntity.ok(ApiResponse.success(latencyTracker.slowDevices(limit)));
+  }
+
+  @GetMapping("/devices/{deviceId}")
+  @Operation(summary = "Command round-trip statistics of one device since it connected")
+  public ResponseEntity<ApiResponse<DeviceLatencyResponse>> device(@PathVariable String deviceId) {
+    return ResponseEntity.ok(ApiResponse.success(latencyTracker.device(deviceId)));
+  }
+
+}
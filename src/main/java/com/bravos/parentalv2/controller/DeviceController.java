@@ -1,29 +1,44 @@
 package com.bravos.parentalv2.controller;
 
 import com.bravos.parentalv2.dto.ApiResponse;
+import com.bravos.parentalv2.dto.BulkCommandRequest;
+import com.bravos.parentalv2.dto.BulkCommandResponse;
 import com.bravos.parentalv2.dto.CommandRequest;
+import com.bravos.parentalv2.dto.DeviceDeltaResponse;
+import com.bravos.parentalv2.dto.DevicePageResponse;
 import com.bravos.parentalv2.dto.DeviceResponse;
 import com.bravos.parentalv2.dto.MessageRequest;
 import com.bravos.parentalv2.exception.DeviceOfflineException;
+import com.bravos.parentalv2.model.CommandOutcome;
 import com.bravos.parentalv2.model.CommandType;
+import com.bravos.parentalv2.model.DeviceSort;
+import com.bravos.parentalv2.model.DeviceStatus;
 import com.bravos.parentalv2.model.EventType;
 import com.bravos.parentalv2.model.LockStatus;
+import com.bravos.parentalv2.service.CommandLatencyTracker;
+import com.bravos.parentalv2.service.DeviceCommandService;
 import com.bravos.parentalv2.service.DeviceEventService;
 import com.bravos.parentalv2.service.DeviceService;
+import com.bravos.parentalv2.service.FleetVersionService;
 import com.bravos.parentalv2.websocket.DeviceSessionManager;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import jakarta.validation.Valid;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.CacheControl;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.WebRequest;
 import tools.jackson.databind.ObjectMapper;
 
 import java.io.IOException;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Optional;
 
 @RestController
 @RequestMapping("/api/devices")
@@ -31,21 +46,31 @@ import java.util.Map;
 public class DeviceController {
 
   private static final Logger log = LoggerFactory.getLogger(DeviceController.class);
+  private static final int MAX_PAGE_SIZE = 500;
 
   private final DeviceService deviceService;
   private final DeviceEventService deviceEventService;
+  private final DeviceCommandService deviceCommandService;
   private final DeviceSessionManager sessionManager;
+  private final FleetVersionService fleetVersionService;
+  private final CommandLatencyTracker latencyTracker;
   private final ObjectMapper objectMapper;
 
   private final String unlockNowCommand;
 
   public DeviceController(DeviceService deviceService,
                           DeviceEventService deviceEventService,
+                          DeviceCommandService deviceCommandService,
                           DeviceSessionManager sessionManager,
+                          FleetVersionService fleetVersionService,
+                          CommandLatencyTracker latencyTracker,
                           ObjectMapper objectMapper) {
     this.deviceService = deviceService;
     this.deviceEventService = deviceEventService;
+    this.deviceCommandService = deviceCommandService;
     this.sessionManager = sessionManager;
+    this.fleetVersionService = fleetVersionService;
+    this.latencyTracker = latencyTracker;
     this.objectMapper = objectMapper;
 
     this.unlockNowCommand = objectMapper.writeValueAsString(Map.of(
@@ -56,9 +81,71 @@ public class DeviceController {
   }
 
   @GetMapping
-  @Operation(summary = "List all devices")
-  public ResponseEntity<ApiResponse<List<DeviceResponse>>> getAllDevices() {
-    return ResponseEntity.ok(ApiResponse.success(deviceService.getAllDevices()));
+  @Operation(summary = "List all devices (supports If-None-Match)")
+  public ResponseEntity<ApiResponse<List<DeviceResponse>>> getAllDevices(WebRequest webRequest) {
+    String etag = fleetVersionService.currentETag();
+    if (webRequest.checkNotModified(etag)) {
+      return null;
+    }
+    return ResponseEntity.ok()
+        .eTag(etag)
+        .cacheControl(CacheControl.noCache().cachePrivate())
+        .body(ApiResponse.success(deviceService.getAllDevices()));
+  }
+
+  @GetMapping(params = "since")
+  @Operation(summary = "List devices changed since a fleet version")
+  public ResponseEntity<ApiResponse<DeviceDeltaResponse>> getChangedDevices(@RequestParam long since,
+                                                                            WebRequest webRequest) {
+    String etag = fleetVersionService.currentETag();
+    if (webRequest.checkNotModified(etag)) {
+      return null;
+    }
+    Optional<FleetVersionService.Delta> delta = fleetVersionService.changesSince(since);
+    DeviceDeltaResponse response = delta
+        .map(d -> DeviceDeltaResponse.builder()
+            .version(d.version())
+            .full(false)
+            .devices(deviceService.getDevices(d.changed()))
+            .removed(d.removed())
+            .build())
+        .orElseGet(() -> DeviceDeltaResponse.builder()
+            .version(fleetVersionService.currentVersion())
+            .full(true)
+            .devices(deviceService.getAllDevices())
+            .removed(List.of())
+            .build());
+    return ResponseEntity.ok()
+        .eTag(etag)
+        .cacheControl(CacheControl.noCache().cachePrivate())
+        .body(ApiResponse.success(response));
+  }
+
+  /**
+   * A delta and a keyset page cannot be combined; without this mapping the request matched both handlers.
+   */
+  @GetMapping(params = {"since", "limit"})
+  @Operation(summary = "Rejected: since and limit cannot be combined")
+  public ResponseEntity<ApiResponse<Void>> rejectSinceWithLimit() {
+    throw new IllegalArgumentException("since and limit cannot be combined; page with limit/cursor, "
+        + "or fetch changes with since");
+  }
+
+  @GetMapping(params = "limit")
+  @Operation(summary = "List devices one keyset page at a time, with sorting and filtering")
+  public ResponseEntity<ApiResponse<DevicePageResponse>> getDevicePage(
+      @RequestParam int limit,
+      @RequestParam(required = false) String cursor,
+      @RequestParam(defaultValue = "NAME") DeviceSort sort,
+      @RequestParam(defaultValue = "false") boolean desc,
+      @RequestParam(required = false) DeviceStatus status,
+      @RequestParam(required = false) LockStatus lockStatus,
+      @RequestParam(required = false) String namePrefix) {
+    if (limit < 1 || limit > MAX_PAGE_SIZE) {
+      throw new IllegalArgumentException("limit must be between 1 and " + MAX_PAGE_SIZE);
+    }
+    return ResponseEntity.ok(ApiResponse.success(
+        deviceService.getDevicePage(status, lockStatus, namePrefix, sort, desc, cursor, limit)));
   }
 
   @GetMapping("/online")
@@ -88,16 +175,14 @@ public class DeviceController {
     if (!sessionManager.isOnline(deviceId)) {
       throw new DeviceOfflineException(deviceId);
     }
+    long commandId = 0;
     try {
-      String commandJson = objectMapper.writeValueAsString(Map.of(
-          "type", "command",
-          "command", request.getCommandType().name(),
-          "delaySeconds", request.getDelaySeconds())
-      );
+      String commandJson = commandJson(request.getCommandType(), request.getDelaySeconds());
 
+      commandId = latencyTracker.commandSent(deviceId, request.getCommandType(), request.getDelaySeconds());
       sessionManager.sendToDevice(deviceId, commandJson);
 
-      EventType eventType = mapCommandToEvent(request.getCommandType());
+      EventType eventType = DeviceCommandService.toEventType(request.getCommandType());
       if (eventType != null) {
         String desc = String.format("%s with %ds delay", request.getCommandType(), request.getDelaySeconds());
         deviceEventService.logEvent(deviceId, eventType, desc);
@@ -110,6 +195,7 @@ public class DeviceController {
 
       return ResponseEntity.ok(ApiResponse.success("Command sent successfully"));
     } catch (IOException e) {
+      latencyTracker.commandFailed(deviceId, commandId);
       throw new DeviceOfflineException(deviceId);
     }
   }
@@ -121,18 +207,20 @@ public class DeviceController {
     if (!sessionManager.isOnline(deviceId)) {
       throw new DeviceOfflineException(deviceId);
     }
+    long unlockId = 0;
+    long lockId = 0;
     try {
+      unlockId = latencyTracker.commandSent(deviceId, CommandType.UNLOCK, 0);
       sessionManager.sendToDevice(deviceId, unlockNowCommand);
       deviceService.updateLockStatus(deviceId, LockStatus.UNLOCKED);
-      String lockCommandJson = objectMapper.writeValueAsString(Map.of(
-          "type", "command",
-          "command", CommandType.LOCK.name(),
-          "delaySeconds", lockAfterSeconds)
-      );
+      String lockCommandJson = commandJson(CommandType.LOCK, lockAfterSeconds);
+      lockId = latencyTracker.commandSent(deviceId, CommandType.LOCK, lockAfterSeconds);
       sessionManager.sendToDevice(deviceId, lockCommandJson);
       deviceEventService.logEvent(deviceId, EventType.UNLOCK, "Unlock now command sent with " + lockAfterSeconds + "s lock delay");
       return ResponseEntity.ok(ApiResponse.success("Unlock command sent successfully"));
     } catch (IOException e) {
+      // The lock is only tracked once the unlock went out, so it is the one that failed if it is tracked
+      latencyTracker.commandFailed(deviceId, lockId != 0 ? lockId : unlockId);
       throw new DeviceOfflineException(deviceId);
     }
   }
@@ -159,32 +247,54 @@ public class DeviceController {
   @PostMapping("/command")
   @Operation(summary = "Send command to all online devices")
   public ResponseEntity<ApiResponse<Void>> sendCommandToAll(@Valid @RequestBody CommandRequest request) {
+    List<String> deviceIds = List.copyOf(sessionManager.getOnlineDeviceIds());
+    long commandId = 0;
     try {
-      String commandJson = objectMapper.writeValueAsString(Map.of(
-          "type", "command",
-          "command", request.getCommandType().name(),
-          "delaySeconds", request.getDelaySeconds()));
-      sessionManager.sendToAll(commandJson);
-      EventType eventType = mapCommandToEvent(request.getCommandType());
-      for (String deviceId : sessionManager.getOnlineDeviceIds()) {
-        if (eventType != null) {
-          String desc = String.format("Broadcast %s with %ds delay", request.getCommandType(),
-              request.getDelaySeconds());
-          deviceEventService.logEvent(deviceId, eventType, desc);
-        }
-        if (request.getCommandType() == CommandType.LOCK) {
-          deviceService.updateLockStatus(deviceId, LockStatus.LOCKED);
-        } else if (request.getCommandType() == CommandType.UNLOCK) {
-          deviceService.updateLockStatus(deviceId, LockStatus.UNLOCKED);
+      String commandJson = commandJson(request.getCommandType(), request.getDelaySeconds());
+      commandId = latencyTracker.commandSent(deviceIds, request.getCommandType(), request.getDelaySeconds());
+      List<String> sent = new ArrayList<>(deviceIds.size());
+      Map<String, CommandOutcome> outcomes = sessionManager.sendToDevices(deviceIds, commandJson);
+      for (Map.Entry<String, CommandOutcome> outcome : outcomes.entrySet()) {
+        if (outcome.getValue() == CommandOutcome.SENT) {
+          sent.add(outcome.getKey());
+        } else {
+          latencyTracker.commandFailed(outcome.getKey(), commandId);
         }
       }
+      String desc = String.format("Broadcast %s with %ds delay", request.getCommandType(), request.getDelaySeconds());
+      deviceCommandService.recordCommand(sent, request.getCommandType(), desc);
       return ResponseEntity.ok(ApiResponse.success("Command sent to all devices"));
     } catch (Exception e) {
       log.error("Error sending broadcast command", e);
+      for (String deviceId : deviceIds) {
+        latencyTracker.commandFailed(deviceId, commandId);
+      }
       return ResponseEntity.internalServerError().body(ApiResponse.error("Error sending command to devices"));
     }
   }
 
+  @PostMapping("/bulk/command")
+  @Operation(summary = "Send command to a list of devices and report the outcome per device")
+  public ResponseEntity<ApiResponse<BulkCommandResponse>> sendBulkCommand(
+      @Valid @RequestBody BulkCommandRequest request) {
+    String commandJson = commandJson(request.getCommandType(), request.getDelaySeconds());
+    LinkedHashSet<String> deviceIds = new LinkedHashSet<>(request.getDeviceIds());
+    long commandId = latencyTracker.commandSent(deviceIds, request.getCommandType(), request.getDelaySeconds());
+    Map<String, CommandOutcome> outcomes = sessionManager.sendToDevices(deviceIds, commandJson);
+    outcomes.forEach((deviceId, outcome) -> {
+      if (outcome != CommandOutcome.SENT) {
+        latencyTracker.commandFailed(deviceId, commandId);
+      }
+    });
+    List<String> sent = outcomes.entrySet().stream()
+        .filter(entry -> entry.getValue() == CommandOutcome.SENT)
+        .map(Map.Entry::getKey)
+        .toList();
+    String desc = String.format("Bulk %s with %ds delay", request.getCommandType(), request.getDelaySeconds());
+    deviceCommandService.recordCommand(sent, request.getCommandType(), desc);
+    return ResponseEntity.ok(ApiResponse.success(BulkCommandResponse.of(outcomes)));
+  }
+
   @PostMapping("/message")
   @Operation(summary = "Send a notification message to all online devices")
   public ResponseEntity<ApiResponse<Void>> sendMessageToAll(@Valid @RequestBody MessageRequest request) {
@@ -200,14 +310,11 @@ public class DeviceController {
     }
   }
 
-  private EventType mapCommandToEvent(CommandType commandType) {
-    return switch (commandType) {
-      case LOCK -> EventType.LOCK;
-      case UNLOCK -> EventType.UNLOCK;
-      case SHUTDOWN -> EventType.SHUTDOWN;
-      case RESTART -> EventType.RESTART;
-      case MESSAGE -> null;
-    };
+  String commandJson(CommandType commandType, int delaySeconds) {
+    return objectMapper.writeValueAsString(Map.of(
+        "type", "command",
+        "command", commandType.name(),
+        "delaySeconds", delaySeconds));
   }
 
 }
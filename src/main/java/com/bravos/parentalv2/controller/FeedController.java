@@ -0,0 +1,32 @@
+package com.bravos.parentalv2.controller;
+
+import com.bravos.parentalv2.service.AdminFeedService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import org.springframework.http.MediaType;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+@RestController
+@RequestMapping("/api/feed")
+@Tag(name = "Admin Feed", description = "Real-time device presence, lock status and event stream")
+public class FeedController {
+
+  private final AdminFeedService adminFeedService;
+
+  public FeedController(AdminFeedService adminFeedService) {
+    this.adminFeedService = adminFeedService;
+  }
+
+  @GetMapping(produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+  @Operation(summary = "Subscribe to live device updates (Server-Sent Events)")
+  public SseEmitter subscribe(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventIdHeader,
+                              @RequestParam(value = "lastEventId", required = false) Long lastEventIdParam) {
+    return adminFeedService.subscribe(lastEventIdHeader != null ? lastEventIdHeader : lastEventIdParam);
+  }
+
+}
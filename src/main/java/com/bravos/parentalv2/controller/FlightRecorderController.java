@@ -0,0 +1,50 @@
+package com.bravos.parentalv2.controller;
+
+import com.bravos.parentalv2.dto.ApiResponse;
+import com.bravos.parentalv2.dto.RecordingRequest;
+import com.bravos.parentalv2.dto.RecordingResponse;
+import com.bravos.parentalv2.service.FlightRecorderService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/jfr")
+@Tag(name = "Flight Recorder", description = "On-demand JDK Flight Recorder recordings written to the server's disk")
+public class FlightRecorderController {
+
+  private final FlightRecorderService flightRecorderService;
+
+  public FlightRecorderController(FlightRecorderService flightRecorderService) {
+    this.flightRecorderService = flightRecorderService;
+  }
+
+  @PostMapping("/start")
+  @Operation(summary = "Start a recording; it is written to disk when stopped or when its duration runs out")
+  public ResponseEntity<ApiResponse<RecordingResponse>> start(
+      @Valid @RequestBody(required = false) RecordingRequest request) {
+    RecordingRequest effective = request != null ? request : new RecordingRequest();
+    return ResponseEntity.ok(ApiResponse.success("Recording started", flightRecorderService.start(effective)));
+  }
+
+  @PostMapping("/stop")
+  @Operation(summary = "Stop the running recording and write it to disk")
+  public ResponseEntity<ApiResponse<RecordingResponse>> stop() {
+    return ResponseEntity.ok(ApiResponse.success("Recording stopped", flightRecorderService.stop()));
+  }
+
+  @PostMapping("/dump")
+  @Operation(summary = "Write what has been recorded so far to a separate file, keeping the recording running")
+  public ResponseEntity<ApiResponse<RecordingResponse>> dump() {
+    return ResponseEntity.ok(ApiResponse.success("Recording dumped", flightRecorderService.snapshot()));
+  }
+
+  @GetMapping
+  @Operation(summary = "State of the current or last recording")
+  public ResponseEntity<ApiResponse<RecordingResponse>> status() {
+    return ResponseEntity.ok(ApiResponse.success(flightRecorderService.status()));
+  }
+
+}
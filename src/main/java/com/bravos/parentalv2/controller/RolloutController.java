@@ -0,0 +1,52 @@
+package com.bravos.parentalv2.controller;
+
+import com.bravos.parentalv2.dto.ApiResponse;
+import com.bravos.parentalv2.dto.RolloutRequest;
+import com.bravos.parentalv2.dto.RolloutResponse;
+import com.bravos.parentalv2.service.RolloutService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import jakarta.validation.Valid;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+
+@RestController
+@RequestMapping("/api/rollouts")
+@Tag(name = "Rollouts", description = "Fleet-wide commands sent in waves")
+public class RolloutController {
+
+  private final RolloutService rolloutService;
+
+  public RolloutController(RolloutService rolloutService) {
+    this.rolloutService = rolloutService;
+  }
+
+  @PostMapping
+  @Operation(summary = "Start a rolling broadcast of a command to all online devices")
+  public ResponseEntity<ApiResponse<RolloutResponse>> start(@Valid @RequestBody RolloutRequest request) {
+    return ResponseEntity.status(HttpStatus.ACCEPTED)
+        .body(ApiResponse.success("Rollout started", rolloutService.start(request)));
+  }
+
+  @GetMapping
+  @Operation(summary = "List recent rollouts")
+  public ResponseEntity<ApiResponse<List<RolloutResponse>>> list() {
+    return ResponseEntity.ok(ApiResponse.success(rolloutService.list()));
+  }
+
+  @GetMapping("/{id}")
+  @Operation(summary = "Get rollout progress")
+  public ResponseEntity<ApiResponse<RolloutResponse>> get(@PathVariable String id) {
+    return ResponseEntity.ok(ApiResponse.success(rolloutService.get(id)));
+  }
+
+  @PostMapping("/{id}/abort")
+  @Operation(summary = "Abort a running rollout; devices already reached keep the command")
+  public ResponseEntity<ApiResponse<RolloutResponse>> abort(@PathVariable String id) {
+    return ResponseEntity.ok(ApiResponse.success("Rollout abort requested", rolloutService.abort(id)));
+  }
+
+}
@@ -0,0 +1,23 @@
+package com.bravos.parentalv2.dto;
+
+import com.bravos.parentalv2.model.CommandType;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.NotNull;
+import jakarta.validation.constraints.Size;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+public class BulkCommandRequest {
+
+  @NotEmpty(message = "At least one device ID is required")
+  @Size(max = 10000, message = "At most 10000 devices per request")
+  private List<String> deviceIds;
+
+  @NotNull(message = "Command type is required")
+  private CommandType commandType;
+
+  private int delaySeconds = 60;
+
+}
@@ -0,0 +1,37 @@
+package com.bravos.parentalv2.dto;
+
+import com.bravos.parentalv2.model.CommandOutcome;
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Map;
+
+@Data
+@Builder
+public class BulkCommandResponse {
+
+  private int sent;
+  private int offline;
+  private int failed;
+  private Map<String, CommandOutcome> results;
+
+  public static BulkCommandResponse of(Map<String, CommandOutcome> results) {
+    int sent = 0;
+    int offline = 0;
+    int failed = 0;
+    for (CommandOutcome outcome : results.values()) {
+      switch (outcome) {
+        case SENT -> sent++;
+        case OFFLINE -> offline++;
+        case FAILED -> failed++;
+      }
+    }
+    return BulkCommandResponse.builder()
+        .sent(sent)
+        .offline(offline)
+        .failed(failed)
+        .results(results)
+        .build();
+  }
+
+}
@@ -0,0 +1,18 @@
+package com.bravos.parentalv2.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.Collection;
+import java.util.List;
+
+@Data
+@Builder
+public class DeviceDeltaResponse {
+
+  private long version;
+  private boolean full;
+  private List<DeviceResponse> devices;
+  private Collection<String> removed;
+
+}
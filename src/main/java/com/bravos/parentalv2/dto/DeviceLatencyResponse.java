@@ -0,0 +1,20 @@
+package com.bravos.parentalv2.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class DeviceLatencyResponse {
+
+  private String deviceId;
+  private int samples;
+  private long avgMillis;
+  private long maxMillis;
+  private long lastMillis;
+  private long unanswered;
+  private LocalDateTime lastSampleAt;
+
+}
@@ -0,0 +1,16 @@
+package com.bravos.parentalv2.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.util.List;
+
+@Data
+@Builder
+public class DevicePageResponse {
+
+  private List<DeviceResponse> devices;
+  private String nextCursor;
+  private boolean hasMore;
+
+}
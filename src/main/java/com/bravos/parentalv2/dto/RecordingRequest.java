@@ -0,0 +1,17 @@
+package com.bravos.parentalv2.dto;
+
+import jakarta.validation.constraints.Pattern;
+import lombok.Data;
+
+@Data
+public class RecordingRequest {
+
+  @Pattern(regexp = "default|profile", message = "settings must be default or profile")
+  private String settings;
+
+  /**
+   * Stops the recording automatically after this many seconds; the configured maximum when absent.
+   */
+  private Integer durationSeconds;
+
+}
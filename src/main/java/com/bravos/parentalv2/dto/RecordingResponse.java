@@ -0,0 +1,20 @@
+package com.bravos.parentalv2.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.Instant;
+
+@Data
+@Builder
+public class RecordingResponse {
+
+  private long id;
+  private String name;
+  private String state;
+  private String settings;
+  private Instant startedAt;
+  private Instant stoppedAt;
+  private String file;
+
+}
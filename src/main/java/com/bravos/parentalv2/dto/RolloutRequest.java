@@ -0,0 +1,28 @@
+package com.bravos.parentalv2.dto;
+
+import com.bravos.parentalv2.model.CommandType;
+import jakarta.validation.constraints.Max;
+import jakarta.validation.constraints.Min;
+import jakarta.validation.constraints.NotNull;
+import lombok.Data;
+
+@Data
+public class RolloutRequest {
+
+  @NotNull(message = "Command type is required")
+  private CommandType commandType;
+
+  private int delaySeconds = 60;
+
+  @Min(value = 1, message = "Wave size must be at least 1")
+  private int waveSize = 50;
+
+  @Min(value = 0, message = "Wave delay cannot be negative")
+  @Max(value = 3600, message = "Wave delay must be at most 3600 seconds")
+  private int waveDelaySeconds = 10;
+
+  @Min(value = 0, message = "Jitter cannot be negative")
+  @Max(value = 600000, message = "Jitter must be at most 600000 ms")
+  private int jitterMillis = 5000;
+
+}
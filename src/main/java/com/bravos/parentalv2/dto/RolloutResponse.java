@@ -0,0 +1,26 @@
+package com.bravos.parentalv2.dto;
+
+import com.bravos.parentalv2.model.CommandType;
+import com.bravos.parentalv2.model.RolloutState;
+import lombok.Builder;
+import lombok.Data;
+
+import java.time.LocalDateTime;
+
+@Data
+@Builder
+public class RolloutResponse {
+
+  private String id;
+  private CommandType commandType;
+  private RolloutState state;
+  private int totalDevices;
+  private int totalWaves;
+  private int completedWaves;
+  private int sent;
+  private int offline;
+  private int failed;
+  private LocalDateTime startedAt;
+  private LocalDateTime finishedAt;
+
+}
@@ -0,0 +1,15 @@
+package com.bravos.parentalv2.dto;
+
+import lombok.Builder;
+import lombok.Data;
+
+@Data
+@Builder
+public class TokenResponse {
+
+  private String accessToken;
+  private String refreshToken;
+  private String tokenType;
+  private long expiresIn;
+
+}
@@ -0,0 +1,17 @@
+package com.bravos.parentalv2.event;
+
+import com.bravos.parentalv2.dto.DeviceResponse;
+
+/**
+ * Published by {@code DeviceService} whenever a device row changes.
+ */
+public record DeviceChangedEvent(Change change, DeviceResponse device) {
+
+  public enum Change {
+    REGISTERED,
+    OFFLINE,
+    LOCK_STATUS,
+    DELETED
+  }
+
+}
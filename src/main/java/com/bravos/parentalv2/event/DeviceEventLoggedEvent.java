@@ -0,0 +1,9 @@
+package com.bravos.parentalv2.event;
+
+import com.bravos.parentalv2.dto.DeviceEventResponse;
+
+/**
+ * Published by {@code DeviceEventService} for every event written to the history.
+ */
+public record DeviceEventLoggedEvent(DeviceEventResponse event) {
+}
@@ -3,9 +3,11 @@ package com.bravos.parentalv2.exception;
 import com.bravos.parentalv2.dto.ApiResponse;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.transaction.CannotCreateTransactionException;
 import org.springframework.validation.FieldError;
 import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
@@ -24,6 +26,12 @@ public class GlobalExceptionHandler {
         .body(ApiResponse.error(ex.getMessage()));
   }
 
+  @ExceptionHandler(RolloutNotFoundException.class)
+  public ResponseEntity<ApiResponse<Void>> handleRolloutNotFound(RolloutNotFoundException ex) {
+    return ResponseEntity.status(HttpStatus.NOT_FOUND)
+        .body(ApiResponse.error(ex.getMessage()));
+  }
+
   @ExceptionHandler(DeviceOfflineException.class)
   public ResponseEntity<ApiResponse<Void>> handleDeviceOffline(DeviceOfflineException ex) {
     return ResponseEntity.status(HttpStatus.BAD_REQUEST)
@@ -36,6 +44,21 @@ public class GlobalExceptionHandler {
         .body(ApiResponse.error(ex.getMessage()));
   }
 
+  @ExceptionHandler(ServiceUnavailableException.class)
+  public ResponseEntity<ApiResponse<Void>> handleServiceUnavailable(ServiceUnavailableException ex) {
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, String.valueOf(ex.getRetryAfterSeconds()))
+        .body(ApiResponse.error(ex.getMessage()));
+  }
+
+  @ExceptionHandler(CannotCreateTransactionException.class)
+  public ResponseEntity<ApiResponse<Void>> handleNoConnection(CannotCreateTransactionException ex) {
+    log.warn("No database connection available: {}", ex.getMessage());
+    return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+        .header(HttpHeaders.RETRY_AFTER, "1")
+        .body(ApiResponse.error("Database is busy, please retry"));
+  }
+
   @ExceptionHandler(BadCredentialsException.class)
   public ResponseEntity<ApiResponse<Void>> handleBadCredentials(BadCredentialsException ex) {
     return ResponseEntity.status(HttpStatus.UNAUTHORIZED)
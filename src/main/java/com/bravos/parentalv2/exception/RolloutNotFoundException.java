@@ -0,0 +1,9 @@
+package com.bravos.parentalv2.exception;
+
+public class RolloutNotFoundException extends RuntimeException {
+
+  public RolloutNotFoundException(String rolloutId) {
+    super("Rollout not found: " + rolloutId);
+  }
+
+}
@@ -0,0 +1,28 @@
+package com.bravos.parentalv2.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.bravos.parentalv2.DeviceSend")
+@Label("Device Send")
+@Category({"Parental Control", "WebSocket"})
+@Description("A frame written to a device session")
+@StackTrace(false)
+public class DeviceSendEvent extends Event {
+
+  @Label("Device")
+  public String deviceId;
+
+  @Label("Size")
+  @DataAmount
+  public long size;
+
+  @Label("Success")
+  public boolean success;
+
+}
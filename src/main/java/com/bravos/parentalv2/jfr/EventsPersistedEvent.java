@@ -0,0 +1,24 @@
+package com.bravos.parentalv2.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.bravos.parentalv2.EventsPersisted")
+@Label("Device Events Persisted")
+@Category({"Parental Control", "Persistence"})
+@Description("Device history or journal entries written to the database")
+@StackTrace(false)
+public class EventsPersistedEvent extends Event {
+
+  @Label("Source")
+  @Description("direct, bulk or journal")
+  public String source;
+
+  @Label("Batch Size")
+  public int batchSize;
+
+}
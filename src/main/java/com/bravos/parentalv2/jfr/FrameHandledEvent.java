@@ -0,0 +1,32 @@
+package com.bravos.parentalv2.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+@Name("com.bravos.parentalv2.FrameHandled")
+@Label("Device Frame Handled")
+@Category({"Parental Control", "WebSocket"})
+@Description("An inbound device message processed on its mailbox")
+@StackTrace(false)
+public class FrameHandledEvent extends Event {
+
+  @Label("Message Type")
+  public String messageType;
+
+  @Label("Device")
+  public String deviceId;
+
+  @Label("Outcome")
+  public String outcome;
+
+  @Label("Queue Time")
+  @Description("Time spent waiting in the device mailbox before processing started")
+  @Timespan(Timespan.NANOSECONDS)
+  public long queueTime;
+
+}
@@ -0,0 +1,23 @@
+package com.bravos.parentalv2.jfr;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+
+@Name("com.bravos.parentalv2.Handshake")
+@Label("Device Handshake")
+@Category({"Parental Control", "WebSocket"})
+@Description("Authorization of a device WebSocket upgrade request")
+@StackTrace(false)
+public class HandshakeEvent extends Event {
+
+  @Label("Remote Address")
+  public String remoteAddress;
+
+  @Label("Accepted")
+  public boolean accepted;
+
+}
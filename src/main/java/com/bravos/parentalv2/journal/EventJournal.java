@@ -0,0 +1,303 @@
+package com.bravos.parentalv2.journal;
+
+import com.bravos.parentalv2.config.JournalProperties;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+/**
+ * Append-only local journal for device state changes and events.
+ * <p>
+ * Appends are handed to a single writer thread which writes whatever has queued up and fsyncs once per batch,
+ * so concurrent devices share the cost of a flush. {@link #append} returns only once its entries are durable.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.journal", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class EventJournal {
+
+  private static final Logger log = LoggerFactory.getLogger(EventJournal.class);
+  private static final Pattern SEGMENT_NAME = Pattern.compile("journal-(\\d+)\\.log");
+
+  /**
+   * Everything in segment {@code segmentFirstSeq} before {@code position} is on disk, up to {@code sequence}.
+   */
+  public record DurableMark(long segmentFirstSeq, long position, long sequence) {
+  }
+
+  private record PendingAppend(JournalEntry entry, CompletableFuture<Long> done) {
+  }
+
+  private final JournalProperties properties;
+  private final Path directory;
+  private final BlockingQueue<PendingAppend> queue;
+  private final Object durableSignal = new Object();
+
+  private volatile DurableMark durableMark;
+  private volatile boolean running;
+  private Thread writerThread;
+
+  private FileChannel activeChannel;
+  private long activeFirstSeq;
+  private long activePosition;
+  private long nextSequence;
+
+  public EventJournal(JournalProperties properties) {
+    this.properties = properties;
+    this.directory = Path.of(properties.getDirectory());
+    this.queue = new LinkedBlockingQueue<>(properties.getQueueCapacity());
+  }
+
+  @PostConstruct
+  public void start() throws IOException {
+    Files.createDirectories(directory);
+    recover();
+    running = true;
+    writerThread = Thread.ofPlatform().name("journal-writer").daemon(true).start(this::writeLoop);
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException, IOException {
+    running = false;
+    writerThread.interrupt();
+    writerThread.join(TimeUnit.SECONDS.toMillis(10));
+    activeChannel.close();
+  }
+
+  public Path getDirectory() {
+    return directory;
+  }
+
+  public DurableMark durableMark() {
+    return durableMark;
+  }
+
+  /**
+   * Appends the entries in order and waits until they have been fsynced.
+   */
+  public void append(JournalEntry... entries) {
+    long timeoutNanos = properties.getAppendTimeout().toNanos();
+    long deadline = System.nanoTime() + timeoutNanos;
+    List<CompletableFuture<Long>> futures = new ArrayList<>(entries.length);
+    try {
+      for (JournalEntry entry : entries) {
+        PendingAppend pending = new PendingAppend(entry, new CompletableFuture<>());
+        if (!queue.offer(pending, deadline - System.nanoTime(), TimeUnit.NANOSECONDS)) {
+          throw new IllegalStateException("Journal queue is full");
+        }
+        futures.add(pending.done());
+      }
+      CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new))
+          .get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IllegalStateException("Interrupted while appending to journal", e);
+    } catch (TimeoutException e) {
+      throw new IllegalStateException("Journal append timed out", e);
+    } catch (ExecutionException e) {
+      throw new IllegalStateException("Journal append failed", e.getCause());
+    }
+  }
+
+  /**
+   * Blocks until something after {@code sequence} is durable or the timeout elapses.
+   */
+  public void awaitDurable(long sequence, long timeoutMillis) throws InterruptedException {
+    synchronized (durableSignal) {
+      if (durableMark.sequence() <= sequence) {
+        durableSignal.wait(timeoutMillis);
+      }
+    }
+  }
+
+  /**
+   * Deletes closed segments whose entries have all been applied.
+   */
+  public void deleteSegmentsUpTo(long appliedSequence) {
+    long activeSegment = durableMark.segmentFirstSeq();
+    try {
+      NavigableMap<Long, Path> segments = listSegments(directory);
+      for (Map.Entry<Long, Path> entry : segments.entrySet()) {
+        Map.Entry<Long, Path> next = segments.higherEntry(entry.getKey());
+        if (next == null || entry.getKey() == activeSegment || next.getKey() - 1 > appliedSequence) {
+          break;
+        }
+        Files.deleteIfExists(entry.getValue());
+      }
+    } catch (IOException e) {
+      log.warn("Failed to clean up applied journal segments", e);
+    }
+  }
+
+  static NavigableMap<Long, Path> listSegments(Path directory) throws IOException {
+    NavigableMap<Long, Path> segments = new TreeMap<>();
+    try (Stream<Path> files = Files.list(directory)) {
+      files.forEach(file -> {
+        Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+        if (matcher.matches()) {
+          segments.put(Long.parseLong(matcher.group(1)), file);
+        }
+      });
+    }
+    return segments;
+  }
+
+  static Path segmentPath(Path directory, long firstSeq) {
+    return directory.resolve(String.format("journal-%020d.log", firstSeq));
+  }
+
+  private void recover() throws IOException {
+    NavigableMap<Long, Path> segments = listSegments(directory);
+    long firstSeq = JournalCheckpoint.read(directory) + 1;
+    long lastSeq = firstSeq - 1;
+    long validPosition = 0;
+
+    if (!segments.isEmpty()) {
+      Map.Entry<Long, Path> last = segments.lastEntry();
+      firstSeq = last.getKey();
+      lastSeq = firstSeq - 1;
+      try (JournalReader reader = JournalReader.forSegment(last.getValue(), last.getKey())) {
+        long sequence;
+        while ((sequence = reader.readNextSequence()) >= 0) {
+          lastSeq = sequence;
+        }
+        validPosition = reader.position();
+      }
+    }
+
+    activeFirstSeq = firstSeq;
+    activeChannel = FileChannel.open(segmentPath(directory, firstSeq),
+        StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+    if (activeChannel.size() > validPosition) {
+      log.warn("Truncating torn journal tail at {} in segment {}", validPosition, firstSeq);
+      activeChannel.truncate(validPosition);
+      activeChannel.force(true);
+    }
+    activePosition = validPosition;
+    activeChannel.position(activePosition);
+    nextSequence = lastSeq + 1;
+    durableMark = new DurableMark(activeFirstSeq, activePosition, lastSeq);
+    log.info("Event journal opened at {} (next sequence {})", directory.toAbsolutePath(), nextSequence);
+  }
+
+  private void writeLoop() {
+    List<PendingAppend> batch = new ArrayList<>(properties.getMaxBatch());
+    while (running || !queue.isEmpty()) {
+      try {
+        PendingAppend first = queue.poll(100, TimeUnit.MILLISECONDS);
+        if (first == null) {
+          continue;
+        }
+        batch.add(first);
+        queue.drainTo(batch, properties.getMaxBatch() - 1);
+        writeBatch(batch);
+      } catch (InterruptedException e) {
+        if (!running) {
+          queue.drainTo(batch);
+          if (!batch.isEmpty()) {
+            writeBatch(batch);
+          }
+          return;
+        }
+      } finally {
+        batch.clear();
+      }
+    }
+  }
+
+  private void writeBatch(List<PendingAppend> batch) {
+    long batchStartSequence = nextSequence;
+    long batchStartPosition = activePosition;
+    long[] sequences = new long[batch.size()];
+    try {
+      for (int i = 0; i < batch.size(); i++) {
+        long sequence = nextSequence;
+        ByteBuffer frame;
+        try {
+          frame = JournalCodec.encode(batch.get(i).entry().withSequence(sequence));
+        } catch (IOException e) {
+          // Only this entry is unusable; the rest of the batch is still written
+          log.error("Rejecting journal entry for device {}: {}", batch.get(i).entry().deviceId(), e.getMessage());
+          sequences[i] = -1;
+          continue;
+        }
+        if (activePosition > 0 && activePosition + frame.remaining() > properties.getMaxSegmentSize().toBytes()) {
+          rollSegment(sequence);
+          batchStartPosition = 0;
+          batchStartSequence = sequence;
+        }
+        while (frame.hasRemaining()) {
+          activePosition += activeChannel.write(frame);
+        }
+        sequences[i] = sequence;
+        nextSequence++;
+      }
+      activeChannel.force(false);
+    } catch (IOException | RuntimeException e) {
+      log.error("Journal write failed, discarding batch of {}", batch.size(), e);
+      rollback(batchStartPosition, batchStartSequence);
+      batch.forEach(pending -> pending.done().completeExceptionally(e));
+      return;
+    }
+
+    synchronized (durableSignal) {
+      durableMark = new DurableMark(activeFirstSeq, activePosition, nextSequence - 1);
+      durableSignal.notifyAll();
+    }
+    for (int i = 0; i < batch.size(); i++) {
+      if (sequences[i] < 0) {
+        batch.get(i).done().completeExceptionally(new IOException("Journal entry could not be encoded"));
+      } else {
+        batch.get(i).done().complete(sequences[i]);
+      }
+    }
+  }
+
+  private void rollSegment(long firstSeq) throws IOException {
+    activeChannel.force(true);
+    activeChannel.close();
+    activeFirstSeq = firstSeq;
+    activePosition = 0;
+    activeChannel = FileChannel.open(segmentPath(directory, firstSeq),
+        StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+    synchronized (durableSignal) {
+      durableMark = new DurableMark(activeFirstSeq, 0, firstSeq - 1);
+      durableSignal.notifyAll();
+    }
+  }
+
+  private void rollback(long position, long sequence) {
+    try {
+      activeChannel.truncate(position);
+      activeChannel.position(position);
+      activePosition = position;
+      nextSequence = sequence;
+    } catch (IOException e) {
+      log.error("Failed to truncate journal after write error", e);
+    }
+  }
+
+}
@@ -0,0 +1,264 @@
+package com.bravos.parentalv2.journal;
+
+import com.bravos.parentalv2.config.JournalProperties;
+import com.bravos.parentalv2.config.SqlAccounting;
+import com.bravos.parentalv2.config.SqlAccountingRecorder;
+import com.bravos.parentalv2.exception.DeviceNotFoundException;
+import com.bravos.parentalv2.jfr.EventsPersistedEvent;
+import com.bravos.parentalv2.repository.DeviceEventRepository;
+import com.bravos.parentalv2.service.DeviceEventService;
+import com.bravos.parentalv2.service.DeviceService;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import jakarta.validation.ConstraintViolationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feeds journal entries into PostgreSQL in sequence order, retrying with backoff while the database is unavailable.
+ * Entries the database rejects for good (constraint or validation failures, unknown device) and frames that no
+ * longer decode are appended to {@value #DEAD_LETTER_FILE} in the journal directory instead, so one bad entry
+ * cannot hold up the rest. Any other failure is logged and retried; the loop only ends on shutdown, and
+ * {@code journal.applier.alive} and {@code journal.applier.lag} show whether it is keeping up.
+ * <p>
+ * Progress is recorded in a checkpoint after every applied batch. Entries between the checkpoint and the end of
+ * the journal at startup may already be in the database, so events among them are deduplicated by sequence.
+ */
+@Component
+@ConditionalOnProperty(prefix = "app.journal", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class JournalApplier {
+
+  private static final Logger log = LoggerFactory.getLogger(JournalApplier.class);
+  private static final long MIN_BACKOFF_MILLIS = 250;
+  static final String DEAD_LETTER_FILE = "dead-letter.log";
+
+  private final EventJournal journal;
+  private final JournalProperties properties;
+  private final DeviceService deviceService;
+  private final DeviceEventService deviceEventService;
+  private final DeviceEventRepository deviceEventRepository;
+  private final TransactionTemplate transactionTemplate;
+  private final SqlAccountingRecorder sqlAccounting;
+  private final MeterRegistry meterRegistry;
+
+  private volatile boolean running;
+  private volatile long appliedSequence;
+  private long replayUntil;
+  private JournalReader reader;
+  private Thread applierThread;
+
+  public JournalApplier(EventJournal journal,
+                        JournalProperties properties,
+                        DeviceService deviceService,
+                        DeviceEventService deviceEventService,
+                        DeviceEventRepository deviceEventRepository,
+                        PlatformTransactionManager transactionManager,
+                        SqlAccountingRecorder sqlAccounting,
+                        MeterRegistry meterRegistry) {
+    this.journal = journal;
+    this.properties = properties;
+    this.deviceService = deviceService;
+    this.deviceEventService = deviceEventService;
+    this.deviceEventRepository = deviceEventRepository;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.sqlAccounting = sqlAccounting;
+    this.meterRegistry = meterRegistry;
+  }
+
+  /**
+   * Starts once the context is refreshed, after {@code SchemaUpgrades} has aligned the event id sequence.
+   */
+  @EventListener(ApplicationStartedEvent.class)
+  public void start() throws IOException {
+    appliedSequence = JournalCheckpoint.read(journal.getDirectory());
+    replayUntil = journal.durableMark().sequence();
+    reader = JournalReader.open(journal.getDirectory(), appliedSequence + 1);
+    if (replayUntil > appliedSequence) {
+      log.info("Replaying journal entries {}..{}", appliedSequence + 1, replayUntil);
+    }
+    running = true;
+    applierThread = Thread.ofPlatform().name("journal-applier").daemon(true).start(this::applyLoop);
+    Gauge.builder("journal.applier.alive", this, applier -> applier.applierThread.isAlive() ? 1 : 0)
+        .description("1 while the journal applier thread is running")
+        .register(meterRegistry);
+    Gauge.builder("journal.applier.lag", this,
+            applier -> applier.journal.durableMark().sequence() - applier.appliedSequence)
+        .description("Durable journal entries not yet applied to the database")
+        .register(meterRegistry);
+  }
+
+  @PreDestroy
+  public void stop() throws InterruptedException, IOException {
+    running = false;
+    if (applierThread == null) {
+      return;
+    }
+    applierThread.interrupt();
+    applierThread.join(TimeUnit.SECONDS.toMillis(10));
+    reader.close();
+  }
+
+  public long getAppliedSequence() {
+    return appliedSequence;
+  }
+
+  private void applyLoop() {
+    while (running) {
+      try {
+        List<JournalEntry> batch =
+            reader.next(properties.getMaxBatch(), journal.durableMark(), this::deadLetterFrame);
+        if (batch.isEmpty() && reader.lastSequence() <= appliedSequence) {
+          journal.awaitDurable(appliedSequence, 500);
+          continue;
+        }
+        if (!batch.isEmpty() && !applyBatch(batch)) {
+          return;
+        }
+        // Also past undecodable frames read after the last entry
+        appliedSequence = Math.max(appliedSequence, reader.lastSequence());
+        JournalCheckpoint.write(journal.getDirectory(), appliedSequence);
+        journal.deleteSegmentsUpTo(appliedSequence);
+      } catch (InterruptedException e) {
+        return;
+      } catch (IOException e) {
+        log.error("Failed to read event journal", e);
+        sleepQuietly(properties.getMaxRetryBackoff().toMillis());
+      } catch (RuntimeException e) {
+        log.error("Journal applier failed after entry {}, retrying", appliedSequence, e);
+        sleepQuietly(properties.getMaxRetryBackoff().toMillis());
+      }
+    }
+  }
+
+  private boolean applyBatch(List<JournalEntry> batch) {
+    EventsPersistedEvent persisted = new EventsPersistedEvent();
+    persisted.begin();
+    try (SqlAccounting.Scope scope = SqlAccounting.begin()) {
+      transactionTemplate.executeWithoutResult(_ -> batch.forEach(this::apply));
+      sqlAccounting.record("journal apply", scope, batch.size());
+      persisted.end();
+      if (persisted.shouldCommit()) {
+        persisted.source = "journal";
+        persisted.batchSize = batch.size();
+        persisted.commit();
+      }
+      return true;
+    } catch (Exception e) {
+      log.warn("Journal batch {}..{} failed, applying entries one by one: {}",
+          batch.getFirst().sequence(), batch.getLast().sequence(), e.getMessage());
+    }
+
+    for (JournalEntry entry : batch) {
+      long backoff = MIN_BACKOFF_MILLIS;
+      while (true) {
+        try {
+          transactionTemplate.executeWithoutResult(_ -> apply(entry));
+          break;
+        } catch (Exception e) {
+          Throwable permanent = permanentCause(e);
+          if (permanent != null) {
+            deadLetter(entry, permanent);
+            break;
+          }
+          if (!running) {
+            return false;
+          }
+          log.warn("Journal entry {} not applied, retrying in {} ms: {}", entry.sequence(), backoff, e.getMessage());
+          if (!sleepQuietly(backoff)) {
+            return false;
+          }
+          backoff = Math.min(backoff * 2, properties.getMaxRetryBackoff().toMillis());
+        }
+      }
+    }
+    return true;
+  }
+
+  private void apply(JournalEntry entry) {
+    switch (entry.type()) {
+      case REGISTER -> deviceService.registerOrUpdate(entry.deviceId(), entry.deviceName(), entry.ipAddress(),
+          entry.localTimestamp());
+      case LOCK_STATUS -> deviceService.updateLockStatus(entry.deviceId(), entry.lockStatus(), entry.localTimestamp());
+      case OFFLINE -> deviceService.markOffline(entry.deviceId(), entry.localTimestamp());
+      case EVENT -> {
+        if (entry.sequence() <= replayUntil && deviceEventRepository.existsByJournalSeq(entry.sequence())) {
+          return;
+        }
+        deviceEventService.logEvent(entry.deviceId(), entry.eventType(), entry.description(),
+            entry.localTimestamp(), entry.sequence());
+      }
+    }
+  }
+
+  /**
+   * The cause that makes retrying pointless, or null if the failure may be transient (connection loss, timeout,
+   * deadlock...).
+   */
+  private static Throwable permanentCause(Throwable e) {
+    for (Throwable cause = e; cause != null; cause = cause.getCause()) {
+      if (cause instanceof DeviceNotFoundException
+          || cause instanceof DataIntegrityViolationException
+          || cause instanceof ConstraintViolationException
+          || cause instanceof org.hibernate.exception.ConstraintViolationException) {
+        return cause;
+      }
+    }
+    return null;
+  }
+
+  private void deadLetter(JournalEntry entry, Throwable cause) {
+    log.error("Journal entry {} ({}, device {}) rejected by the database, moved to {}: {}", entry.sequence(),
+        entry.type(), entry.deviceId(), DEAD_LETTER_FILE, cause.getMessage());
+    try {
+      writeDeadLetter(entry.sequence(), JournalCodec.encode(entry), cause);
+    } catch (IOException e) {
+      log.error("Failed to write journal entry {} to {}", entry.sequence(), DEAD_LETTER_FILE, e);
+    }
+  }
+
+  private void deadLetterFrame(byte[] body, RuntimeException cause) {
+    long sequence = JournalCodec.sequence(body);
+    log.error("Journal entry {} no longer decodes, moved to {}: {}", sequence, DEAD_LETTER_FILE, cause.toString());
+    writeDeadLetter(sequence, JournalCodec.frame(body), cause);
+  }
+
+  private void writeDeadLetter(long sequence, ByteBuffer frame, Throwable cause) {
+    meterRegistry.counter("journal.dead.letters", "reason", cause.getClass().getSimpleName()).increment();
+    Path file = journal.getDirectory().resolve(DEAD_LETTER_FILE);
+    try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.APPEND)) {
+      while (frame.hasRemaining()) {
+        channel.write(frame);
+      }
+      channel.force(false);
+    } catch (IOException e) {
+      log.error("Failed to write journal entry {} to {}", sequence, DEAD_LETTER_FILE, e);
+    }
+  }
+
+  private boolean sleepQuietly(long millis) {
+    try {
+      Thread.sleep(millis);
+      return true;
+    } catch (InterruptedException e) {
+      return false;
+    }
+  }
+
+}
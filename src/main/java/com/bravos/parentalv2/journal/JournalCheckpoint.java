@@ -0,0 +1,44 @@
+package com.bravos.parentalv2.journal;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Highest journal sequence known to be applied to the database.
+ */
+final class JournalCheckpoint {
+
+  private static final String FILE_NAME = "checkpoint";
+
+  private JournalCheckpoint() {
+  }
+
+  static long read(Path directory) throws IOException {
+    Path file = directory.resolve(FILE_NAME);
+    if (!Files.exists(file)) {
+      return 0;
+    }
+    byte[] bytes = Files.readAllBytes(file);
+    return bytes.length == Long.BYTES ? ByteBuffer.wrap(bytes).getLong() : 0;
+  }
+
+  static void write(Path directory, long sequence) throws IOException {
+    Path temp = directory.resolve(FILE_NAME + ".tmp");
+    try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+        StandardOpenOption.TRUNCATE_EXISTING)) {
+      ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES).putLong(sequence).flip();
+      while (buffer.hasRemaining()) {
+        channel.write(buffer);
+      }
+      channel.force(true);
+    }
+    Files.move(temp, directory.resolve(FILE_NAME), StandardCopyOption.ATOMIC_MOVE,
+        StandardCopyOption.REPLACE_EXISTING);
+  }
+
+}
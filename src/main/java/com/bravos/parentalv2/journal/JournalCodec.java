@@ -0,0 +1,106 @@
+package com.bravos.parentalv2.journal;
+
+import com.bravos.parentalv2.model.EventType;
+import com.bravos.parentalv2.model.LockStatus;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32C;
+
+/**
+ * Record framing: {@code [int bodyLength][body][int crc32c(body)]}.
+ */
+final class JournalCodec {
+
+  static final int FRAME_OVERHEAD = 8;
+
+  private JournalCodec() {
+  }
+
+  /**
+   * @throws IOException if the entry cannot be framed, e.g. a string field longer than 65535 UTF-8 bytes
+   */
+  static ByteBuffer encode(JournalEntry entry) throws IOException {
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(128);
+    DataOutputStream out = new DataOutputStream(bytes);
+    out.writeLong(entry.sequence());
+    out.writeByte(entry.type().ordinal());
+    out.writeLong(entry.timestamp());
+    out.writeUTF(entry.deviceId());
+    writeNullable(out, entry.deviceName());
+    writeNullable(out, entry.ipAddress());
+    writeNullable(out, entry.lockStatus() != null ? entry.lockStatus().name() : null);
+    writeNullable(out, entry.eventType() != null ? entry.eventType().name() : null);
+    writeNullable(out, entry.description());
+    out.flush();
+    return frame(bytes.toByteArray());
+  }
+
+  /**
+   * Wraps an encoded body in length and checksum.
+   */
+  static ByteBuffer frame(byte[] body) {
+    CRC32C crc = new CRC32C();
+    crc.update(body);
+    return ByteBuffer.allocate(body.length + FRAME_OVERHEAD)
+        .putInt(body.length)
+        .put(body)
+        .putInt((int) crc.getValue())
+        .flip();
+  }
+
+  static boolean isValid(byte[] body, int crc) {
+    CRC32C checksum = new CRC32C();
+    checksum.update(body);
+    return (int) checksum.getValue() == crc;
+  }
+
+  /**
+   * The sequence of a body, readable even when the rest of it no longer decodes.
+   */
+  static long sequence(byte[] body) {
+    return ByteBuffer.wrap(body).getLong(0);
+  }
+
+  /**
+   * @throws RuntimeException if a valid frame no longer decodes, e.g. an enum constant was renamed since it was
+   *                          written
+   */
+  static JournalEntry decode(byte[] body) {
+    try {
+      DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+      long sequence = in.readLong();
+      JournalEntry.Type type = JournalEntry.Type.values()[in.readByte()];
+      long timestamp = in.readLong();
+      String deviceId = in.readUTF();
+      String deviceName = readNullable(in);
+      String ipAddress = readNullable(in);
+      String lockStatus = readNullable(in);
+      String eventType = readNullable(in);
+      String description = readNullable(in);
+      return new JournalEntry(sequence, type, timestamp, deviceId, deviceName, ipAddress,
+          lockStatus != null ? LockStatus.valueOf(lockStatus) : null,
+          eventType != null ? EventType.valueOf(eventType) : null,
+          description);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static void writeNullable(DataOutputStream out, String value) throws IOException {
+    out.writeBoolean(value != null);
+    if (value != null) {
+      out.writeUTF(value);
+    }
+  }
+
+  private static String readNullable(DataInputStream in) throws IOException {
+    return in.readBoolean() ? in.readUTF() : null;
+  }
+
+}
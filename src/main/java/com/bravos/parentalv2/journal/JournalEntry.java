@@ -0,0 +1,56 @@
+package com.bravos.parentalv2.journal;
+
+import com.bravos.parentalv2.model.EventType;
+import com.bravos.parentalv2.model.LockStatus;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+
+public record JournalEntry(long sequence,
+                           Type type,
+                           long timestamp,
+                           String deviceId,
+                           String deviceName,
+                           String ipAddress,
+                           LockStatus lockStatus,
+                           EventType eventType,
+                           String description) {
+
+  public enum Type {
+    REGISTER,
+    LOCK_STATUS,
+    EVENT,
+    OFFLINE
+  }
+
+  public static JournalEntry register(String deviceId, String deviceName, String ipAddress) {
+    return new JournalEntry(0, Type.REGISTER, System.currentTimeMillis(), deviceId, deviceName, ipAddress,
+        null, null, null);
+  }
+
+  public static JournalEntry lockStatus(String deviceId, LockStatus lockStatus) {
+    return new JournalEntry(0, Type.LOCK_STATUS, System.currentTimeMillis(), deviceId, null, null,
+        lockStatus, null, null);
+  }
+
+  public static JournalEntry event(String deviceId, EventType eventType, String description) {
+    return new JournalEntry(0, Type.EVENT, System.currentTimeMillis(), deviceId, null, null,
+        null, eventType, description);
+  }
+
+  public static JournalEntry offline(String deviceId) {
+    return new JournalEntry(0, Type.OFFLINE, System.currentTimeMillis(), deviceId, null, null,
+        null, null, null);
+  }
+
+  public JournalEntry withSequence(long sequence) {
+    return new JournalEntry(sequence, type, timestamp, deviceId, deviceName, ipAddress,
+        lockStatus, eventType, description);
+  }
+
+  public LocalDateTime localTimestamp() {
+    return LocalDateTime.ofInstant(Instant.ofEpochMilli(timestamp), ZoneId.systemDefault());
+  }
+
+}
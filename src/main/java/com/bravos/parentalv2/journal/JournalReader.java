@@ -0,0 +1,178 @@
+package com.bravos.parentalv2.journal;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.function.BiConsumer;
+
+/**
+ * Sequential reader over journal segments. It never reads past the writer's durable mark,
+ * so it can safely tail the active segment. A frame whose checksum holds but whose body no longer decodes is
+ * handed to the caller and skipped, rather than ending the read.
+ */
+final class JournalReader implements Closeable {
+
+  private static final Logger log = LoggerFactory.getLogger(JournalReader.class);
+
+  private final Path directory;
+  private final long fromSequence;
+
+  private FileChannel channel;
+  private long segmentFirstSeq;
+  private long position;
+  private long lastSequence;
+
+  private JournalReader(Path directory, long fromSequence) {
+    this.directory = directory;
+    this.fromSequence = fromSequence;
+  }
+
+  static JournalReader forSegment(Path segment, long firstSeq) throws IOException {
+    JournalReader reader = new JournalReader(null, 0);
+    reader.channel = FileChannel.open(segment, StandardOpenOption.READ);
+    reader.segmentFirstSeq = firstSeq;
+    return reader;
+  }
+
+  static JournalReader open(Path directory, long fromSequence) throws IOException {
+    JournalReader reader = new JournalReader(directory, fromSequence);
+    NavigableMap<Long, Path> segments = EventJournal.listSegments(directory);
+    Map.Entry<Long, Path> start = segments.floorEntry(fromSequence);
+    if (start == null) {
+      start = segments.firstEntry();
+    }
+    if (start != null) {
+      reader.openSegment(start.getKey(), start.getValue());
+    }
+    return reader;
+  }
+
+  long position() {
+    return position;
+  }
+
+  /**
+   * Sequence of the last frame read, whether it was returned or skipped as undecodable.
+   */
+  long lastSequence() {
+    return lastSequence;
+  }
+
+  /**
+   * Reads the sequence of the next valid frame of a single segment, or -1 at its end or at a torn tail.
+   */
+  long readNextSequence() throws IOException {
+    byte[] body = readFrame(channel.size());
+    return body != null ? JournalCodec.sequence(body) : -1;
+  }
+
+  /**
+   * Reads up to {@code max} durable entries at or after the starting sequence, moving across segments as needed.
+   * Frames at or after the starting sequence that fail to decode go to {@code undecodable} with the cause.
+   */
+  List<JournalEntry> next(int max, EventJournal.DurableMark mark, BiConsumer<byte[], RuntimeException> undecodable)
+      throws IOException {
+    List<JournalEntry> entries = new ArrayList<>();
+    while (entries.size() < max) {
+      if (channel == null && !advance()) {
+        break;
+      }
+      boolean active = segmentFirstSeq == mark.segmentFirstSeq();
+      byte[] body = readFrame(active ? mark.position() : channel.size());
+      if (body == null) {
+        if (active) {
+          break;
+        }
+        if (position < channel.size()) {
+          log.warn("Skipping unreadable tail of journal segment {} at {}", segmentFirstSeq, position);
+        }
+        if (!advance()) {
+          break;
+        }
+        continue;
+      }
+      lastSequence = JournalCodec.sequence(body);
+      if (lastSequence < fromSequence) {
+        continue;
+      }
+      try {
+        entries.add(JournalCodec.decode(body));
+      } catch (RuntimeException e) {
+        undecodable.accept(body, e);
+      }
+    }
+    return entries;
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (channel != null) {
+      channel.close();
+    }
+  }
+
+  private boolean advance() throws IOException {
+    Map.Entry<Long, Path> next = channel == null
+        ? EventJournal.listSegments(directory).firstEntry()
+        : EventJournal.listSegments(directory).higherEntry(segmentFirstSeq);
+    if (next == null) {
+      return false;
+    }
+    close();
+    openSegment(next.getKey(), next.getValue());
+    return true;
+  }
+
+  private void openSegment(long firstSeq, Path path) throws IOException {
+    channel = FileChannel.open(path, StandardOpenOption.READ);
+    segmentFirstSeq = firstSeq;
+    position = 0;
+  }
+
+  /**
+   * The body of the next frame, or {@code null} if there is no complete frame with a valid checksum before
+   * {@code limit}.
+   */
+  private byte[] readFrame(long limit) throws IOException {
+    if (position + JournalCodec.FRAME_OVERHEAD > limit) {
+      return null;
+    }
+    ByteBuffer lengthBuffer = ByteBuffer.allocate(4);
+    readFully(lengthBuffer, position);
+    int bodyLength = lengthBuffer.getInt(0);
+    if (bodyLength < Long.BYTES || position + JournalCodec.FRAME_OVERHEAD + bodyLength > limit) {
+      return null;
+    }
+    ByteBuffer frame = ByteBuffer.allocate(bodyLength + 4);
+    readFully(frame, position + 4);
+    byte[] body = new byte[bodyLength];
+    frame.get(0, body);
+    if (!JournalCodec.isValid(body, frame.getInt(bodyLength))) {
+      return null;
+    }
+    position += JournalCodec.FRAME_OVERHEAD + bodyLength;
+    return body;
+  }
+
+  private void readFully(ByteBuffer buffer, long offset) throws IOException {
+    long at = offset;
+    while (buffer.hasRemaining()) {
+      int n = channel.read(buffer, at);
+      if (n < 0) {
+        throw new IOException("Unexpected end of journal segment " + segmentFirstSeq);
+      }
+      at += n;
+    }
+  }
+
+}
@@ -0,0 +1,49 @@
+package com.bravos.parentalv2.journal;
+
+import com.bravos.parentalv2.model.EventType;
+import com.bravos.parentalv2.model.LockStatus;
+import com.bravos.parentalv2.service.DeviceIngest;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Records device reports in the local journal; {@link JournalApplier} writes them to the database later.
+ */
+@Service
+@ConditionalOnProperty(prefix = "app.journal", name = "enabled", havingValue = "true", matchIfMissing = true)
+public class JournaledDeviceIngest implements DeviceIngest {
+
+  private final EventJournal journal;
+
+  public JournaledDeviceIngest(EventJournal journal) {
+    this.journal = journal;
+  }
+
+  @Override
+  public void register(String deviceId, String deviceName, String ipAddress) {
+    journal.append(
+        JournalEntry.register(deviceId, deviceName, ipAddress),
+        JournalEntry.event(deviceId, EventType.CONNECT, null));
+  }
+
+  @Override
+  public void lockStatus(String deviceId, LockStatus lockStatus) {
+    EventType eventType = lockStatus == LockStatus.LOCKED ? EventType.LOCK : EventType.UNLOCK;
+    journal.append(
+        JournalEntry.lockStatus(deviceId, lockStatus),
+        JournalEntry.event(deviceId, eventType, null));
+  }
+
+  @Override
+  public void event(String deviceId, EventType eventType, String description) {
+    journal.append(JournalEntry.event(deviceId, eventType, description));
+  }
+
+  @Override
+  public void disconnected(String deviceId) {
+    journal.append(
+        JournalEntry.offline(deviceId),
+        JournalEntry.event(deviceId, EventType.DISCONNECT, null));
+  }
+
+}
@@ -6,7 +6,12 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "devices")
+@Table(name = "devices", indexes = {
+    @Index(name = "idx_devices_last_seen_id", columnList = "last_seen, id"),
+    @Index(name = "idx_devices_name_id", columnList = "device_name, id"),
+    @Index(name = "idx_devices_status", columnList = "status"),
+    @Index(name = "idx_devices_lock_status", columnList = "lock_status")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -21,8 +26,9 @@ public class Device {
   @Column(name = "device_id", unique = true, nullable = false)
   private String deviceId;
 
-  @Column(name = "device_name")
-  private String deviceName;
+  @Column(name = "device_name", nullable = false)
+  @Builder.Default
+  private String deviceName = "";
 
   @Column(name = "ip_address")
   private String ipAddress;
@@ -37,8 +43,9 @@ public class Device {
   @Builder.Default
   private LockStatus lockStatus = LockStatus.LOCKED;
 
-  @Column(name = "last_seen")
-  private LocalDateTime lastSeen;
+  @Column(name = "last_seen", nullable = false)
+  @Builder.Default
+  private LocalDateTime lastSeen = LocalDateTime.now();
 
   @Column(name = "created_at", nullable = false, updatable = false)
   @Builder.Default
@@ -6,7 +6,11 @@ import lombok.*;
 import java.time.LocalDateTime;
 
 @Entity
-@Table(name = "device_events")
+@Table(name = "device_events", indexes = {
+    @Index(name = "idx_device_events_device_timestamp", columnList = "device_id, timestamp"),
+    @Index(name = "idx_device_events_timestamp", columnList = "timestamp"),
+    @Index(name = "idx_device_events_journal_seq", columnList = "journal_seq")
+})
 @Getter
 @Setter
 @NoArgsConstructor
@@ -14,8 +18,13 @@ import java.time.LocalDateTime;
 @Builder
 public class DeviceEvent {
 
+  /**
+   * Drawn from a sequence in blocks matching {@code hibernate.jdbc.batch_size}, so bulk inserts go out as JDBC
+   * batches; identity columns force one round trip per row.
+   */
   @Id
-  @GeneratedValue(strategy = GenerationType.IDENTITY)
+  @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "device_events_seq")
+  @SequenceGenerator(name = "device_events_seq", sequenceName = "device_events_seq", allocationSize = 50)
   private Long id;
 
   @ManyToOne(fetch = FetchType.LAZY)
@@ -33,4 +42,7 @@ public class DeviceEvent {
   @Builder.Default
   private LocalDateTime timestamp = LocalDateTime.now();
 
+  @Column(name = "journal_seq")
+  private Long journalSeq;
+
 }
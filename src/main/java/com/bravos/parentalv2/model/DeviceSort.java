@@ -0,0 +1,6 @@
+package com.bravos.parentalv2.model;
+
+public enum DeviceSort {
+  NAME,
+  LAST_SEEN
+}
@@ -0,0 +1,28 @@
+package com.bravos.parentalv2.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * Last deletion of a device id. Archived segments cannot be rewritten, so archived events of a device from before
+ * {@code deletedAt} are hidden instead, and a device registered again under the same id starts with no history.
+ */
+@Entity
+@Table(name = "device_tombstones")
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class DeviceTombstone {
+
+  @Id
+  @Column(name = "device_id")
+  private String deviceId;
+
+  @Column(name = "deleted_at", nullable = false)
+  private LocalDateTime deletedAt;
+
+}
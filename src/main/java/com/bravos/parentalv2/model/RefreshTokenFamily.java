@@ -0,0 +1,44 @@
+package com.bravos.parentalv2.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+
+import java.time.LocalDateTime;
+
+/**
+ * One login in token mode. Every refresh rotates {@code currentJti}; presenting any older refresh token of the
+ * family means it leaked, and revokes the whole family. {@code expiresAt} is the absolute end of the login,
+ * however often it is refreshed.
+ */
+@Entity
+@Table(name = "refresh_token_families", indexes = {
+    @Index(name = "idx_refresh_token_families_expires_at", columnList = "expires_at")
+})
+@Getter
+@Setter
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RefreshTokenFamily {
+
+  @Id
+  @Column(length = 32)
+  private String id;
+
+  @Column(nullable = false)
+  private String username;
+
+  @Column(name = "current_jti", nullable = false, length = 32)
+  private String currentJti;
+
+  @Column(name = "created_at", nullable = false, updatable = false)
+  @Builder.Default
+  private LocalDateTime createdAt = LocalDateTime.now();
+
+  @Column(name = "expires_at", nullable = false)
+  private LocalDateTime expiresAt;
+
+  @Column(name = "revoked_at")
+  private LocalDateTime revokedAt;
+
+}
@@ -0,0 +1,7 @@
+package com.bravos.parentalv2.model;
+
+public enum RolloutState {
+  RUNNING,
+  COMPLETED,
+  ABORTED
+}
@@ -10,6 +10,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.time.LocalDateTime;
 import java.util.List;
 
 @Repository
@@ -20,6 +21,11 @@ public interface DeviceEventRepository extends JpaRepository<DeviceEvent, Long>
 
   List<DeviceEvent> findByDeviceAndEventTypeOrderByTimestampDesc(Device device, EventType eventType);
 
+  @Query("SELECT de FROM DeviceEvent de JOIN FETCH de.device WHERE de.timestamp < :cutoff ORDER BY de.timestamp, de.id")
+  List<DeviceEvent> findArchivable(@Param("cutoff") LocalDateTime cutoff, Pageable pageable);
+
+  boolean existsByJournalSeq(Long journalSeq);
+
   void deleteByDevice(Device device);
 
 }
@@ -0,0 +1,20 @@
+package com.bravos.parentalv2.repository;
+
+import com.bravos.parentalv2.model.DeviceSort;
+import com.bravos.parentalv2.model.DeviceStatus;
+import com.bravos.parentalv2.model.LockStatus;
+
+/**
+ * One keyset page of devices. {@code afterId} is null for the first page; otherwise the page starts strictly
+ * after the row ({@code afterValue}, {@code afterId}) in the requested order. Both sort columns are NOT NULL, so
+ * the order is exactly that of the {@code (column, id)} indexes, read forwards or backwards.
+ */
+public record DevicePageQuery(DeviceStatus status,
+                              LockStatus lockStatus,
+                              String namePrefix,
+                              DeviceSort sort,
+                              boolean descending,
+                              Object afterValue,
+                              Long afterId,
+                              int limit) {
+}
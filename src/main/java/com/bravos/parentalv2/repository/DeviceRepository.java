@@ -5,16 +5,19 @@ import com.bravos.parentalv2.model.DeviceStatus;
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
 @Repository
-public interface DeviceRepository extends JpaRepository<Device, Long> {
+public interface DeviceRepository extends JpaRepository<Device, Long>, DeviceRepositoryCustom {
 
   Optional<Device> findByDeviceId(String deviceId);
 
   List<Device> findAllByStatus(DeviceStatus status);
 
+  List<Device> findAllByDeviceIdIn(Collection<String> deviceIds);
+
   boolean existsByDeviceId(String deviceId);
 
 }
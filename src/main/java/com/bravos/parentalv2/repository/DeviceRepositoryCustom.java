@@ -0,0 +1,11 @@
+package com.bravos.parentalv2.repository;
+
+import com.bravos.parentalv2.model.Device;
+
+import java.util.List;
+
+public interface DeviceRepositoryCustom {
+
+  List<Device> findPage(DevicePageQuery query);
+
+}
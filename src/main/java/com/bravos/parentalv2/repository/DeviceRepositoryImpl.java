@@ -0,0 +1,64 @@
+package com.bravos.parentalv2.repository;
+
+import com.bravos.parentalv2.model.Device;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.TypedQuery;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+class DeviceRepositoryImpl implements DeviceRepositoryCustom {
+
+  @PersistenceContext
+  private EntityManager entityManager;
+
+  @Override
+  public List<Device> findPage(DevicePageQuery query) {
+    String column = switch (query.sort()) {
+      case NAME -> "d.deviceName";
+      case LAST_SEEN -> "d.lastSeen";
+    };
+    String cmp = query.descending() ? "<" : ">";
+    String dir = query.descending() ? "DESC" : "ASC";
+
+    List<String> where = new ArrayList<>();
+    Map<String, Object> params = new HashMap<>();
+    if (query.status() != null) {
+      where.add("d.status = :status");
+      params.put("status", query.status());
+    }
+    if (query.lockStatus() != null) {
+      where.add("d.lockStatus = :lockStatus");
+      params.put("lockStatus", query.lockStatus());
+    }
+    if (query.namePrefix() != null && !query.namePrefix().isBlank()) {
+      where.add("LOWER(d.deviceName) LIKE :namePrefix ESCAPE '\\'");
+      params.put("namePrefix", escapeLike(query.namePrefix().toLowerCase(Locale.ROOT)) + "%");
+    }
+    if (query.afterId() != null) {
+      // Row-value comparison, so Postgres can start the (column, id) index scan right at the cursor
+      where.add("(" + column + ", d.id) " + cmp + " (:afterValue, :afterId)");
+      params.put("afterValue", query.afterValue());
+      params.put("afterId", query.afterId());
+    }
+
+    StringBuilder jpql = new StringBuilder("SELECT d FROM Device d");
+    if (!where.isEmpty()) {
+      jpql.append(" WHERE ").append(String.join(" AND ", where));
+    }
+    jpql.append(" ORDER BY ").append(column).append(' ').append(dir).append(", d.id ").append(dir);
+
+    TypedQuery<Device> typed = entityManager.createQuery(jpql.toString(), Device.class);
+    params.forEach(typed::setParameter);
+    return typed.setMaxResults(query.limit()).getResultList();
+  }
+
+  private static String escapeLike(String value) {
+    return value.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+  }
+
+}
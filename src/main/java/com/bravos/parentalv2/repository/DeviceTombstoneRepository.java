@@ -0,0 +1,9 @@
+package com.bravos.parentalv2.repository;
+
+import com.bravos.parentalv2.model.DeviceTombstone;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface DeviceTombstoneRepository extends JpaRepository<DeviceTombstone, String> {
+}
@@ -0,0 +1,33 @@
+package com.bravos.parentalv2.repository;
+
+import com.bravos.parentalv2.model.RefreshTokenFamily;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+
+import java.time.LocalDateTime;
+
+public interface RefreshTokenFamilyRepository extends JpaRepository<RefreshTokenFamily, String> {
+
+  /**
+   * Moves the family to its next refresh token, only if {@code current} is still the latest one and the family
+   * is live; a concurrent or replayed refresh finds nothing to update.
+   */
+  @Modifying
+  @Query("""
+      UPDATE RefreshTokenFamily f SET f.currentJti = :next
+      WHERE f.id = :id AND f.currentJti = :current AND f.revokedAt IS NULL AND f.expiresAt > :now
+      """)
+  int rotate(@Param("id") String id, @Param("current") String current, @Param("next") String next,
+             @Param("now") LocalDateTime now);
+
+  @Modifying
+  @Query("UPDATE RefreshTokenFamily f SET f.revokedAt = :now WHERE f.id = :id AND f.revokedAt IS NULL")
+  int revoke(@Param("id") String id, @Param("now") LocalDateTime now);
+
+  @Modifying
+  @Query("DELETE FROM RefreshTokenFamily f WHERE f.expiresAt <= :now")
+  int deleteExpired(@Param("now") LocalDateTime now);
+
+}
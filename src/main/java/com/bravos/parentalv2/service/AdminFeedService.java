@@ -0,0 +1,189 @@
+package com.bravos.parentalv2.service;
+
+import com.bravos.parentalv2.config.FeedProperties;
+import com.bravos.parentalv2.event.DeviceChangedEvent;
+import com.bravos.parentalv2.event.DeviceEventLoggedEvent;
+import com.bravos.parentalv2.exception.ServiceUnavailableException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Pushes device presence, lock status changes and new events to connected admin dashboards over SSE.
+ * <p>
+ * Every message gets a sequential id. The most recent messages are kept so a reconnecting client can resume from
+ * its {@code Last-Event-ID}; if the cursor is too old it receives a {@code reset} event and should reload.
+ * Each subscriber has a bounded buffer; a subscriber that falls behind is disconnected rather than buffered.
+ */
+@Service
+public class AdminFeedService {
+
+  private static final Logger log = LoggerFactory.getLogger(AdminFeedService.class);
+
+  private static final FeedMessage HEARTBEAT = new FeedMessage(-1, "heartbeat", "");
+  private static final String RESET = "reset";
+
+  private record FeedMessage(long id, String type, String data) {
+  }
+
+  private final FeedProperties properties;
+  private final ObjectMapper objectMapper;
+  private final ArrayDeque<FeedMessage> history;
+  private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+  private long lastId;
+
+  public AdminFeedService(FeedProperties properties, ObjectMapper objectMapper) {
+    this.properties = properties;
+    this.objectMapper = objectMapper;
+    this.history = new ArrayDeque<>(properties.getReplaySize());
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onDeviceChanged(DeviceChangedEvent event) {
+    publish("device", objectMapper.writeValueAsString(Map.of(
+        "change", event.change().name(),
+        "device", event.device())));
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onDeviceEventLogged(DeviceEventLoggedEvent event) {
+    publish("event", objectMapper.writeValueAsString(event.event()));
+  }
+
+  public SseEmitter subscribe(Long lastEventId) {
+    if (subscribers.size() >= properties.getMaxSubscribers()) {
+      throw new ServiceUnavailableException("Too many feed subscribers", 30);
+    }
+    SseEmitter emitter = new SseEmitter(properties.getEmitterTimeout().toMillis());
+    Subscriber subscriber = new Subscriber(emitter, properties.getSubscriberBufferSize());
+    emitter.onCompletion(subscriber::close);
+    emitter.onTimeout(subscriber::close);
+    emitter.onError(_ -> subscriber.close());
+
+    synchronized (history) {
+      if (lastEventId != null) {
+        List<FeedMessage> missed = missedSince(lastEventId);
+        if (missed == null || missed.size() > properties.getSubscriberBufferSize()) {
+          subscriber.offer(new FeedMessage(lastId, RESET, "{}"));
+        } else {
+          missed.forEach(subscriber::offer);
+        }
+      }
+      subscribers.add(subscriber);
+    }
+    subscriber.start();
+    return emitter;
+  }
+
+  @Scheduled(fixedRate = 15000)
+  public void heartbeat() {
+    for (Subscriber subscriber : subscribers) {
+      subscriber.offer(HEARTBEAT);
+    }
+  }
+
+  private void publish(String type, String data) {
+    synchronized (history) {
+      FeedMessage message = new FeedMessage(++lastId, type, data);
+      if (history.size() == properties.getReplaySize()) {
+        history.removeFirst();
+      }
+      history.addLast(message);
+      for (Subscriber subscriber : subscribers) {
+        subscriber.offer(message);
+      }
+    }
+  }
+
+  /**
+   * Messages after the cursor, or {@code null} when some of them are no longer retained.
+   */
+  private List<FeedMessage> missedSince(long cursor) {
+    if (cursor > lastId) {
+      return null;
+    }
+    FeedMessage oldest = history.peekFirst();
+    long oldestRetained = oldest != null ? oldest.id() : lastId + 1;
+    if (cursor < oldestRetained - 1) {
+      return null;
+    }
+    List<FeedMessage> missed = new ArrayList<>();
+    for (FeedMessage message : history) {
+      if (message.id() > cursor) {
+        missed.add(message);
+      }
+    }
+    return missed;
+  }
+
+  private final class Subscriber {
+
+    private final SseEmitter emitter;
+    private final BlockingQueue<FeedMessage> buffer;
+    private volatile boolean closed;
+    private Thread sender;
+
+    Subscriber(SseEmitter emitter, int capacity) {
+      this.emitter = emitter;
+      this.buffer = new ArrayBlockingQueue<>(capacity);
+    }
+
+    void start() {
+      sender = Thread.ofVirtual().name("admin-feed").start(this::drain);
+    }
+
+    void offer(FeedMessage message) {
+      if (closed || buffer.offer(message) || message == HEARTBEAT) {
+        return;
+      }
+      log.warn("Admin feed subscriber fell behind, disconnecting it");
+      close();
+      emitter.complete();
+    }
+
+    void close() {
+      closed = true;
+      subscribers.remove(this);
+      if (sender != null) {
+        sender.interrupt();
+      }
+    }
+
+    private void drain() {
+      try {
+        while (!closed) {
+          FeedMessage message = buffer.take();
+          if (message == HEARTBEAT) {
+            emitter.send(SseEmitter.event().comment("heartbeat"));
+          } else {
+            emitter.send(SseEmitter.event()
+                .id(Long.toString(message.id()))
+                .name(message.type())
+                .data(message.data()));
+          }
+        }
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      } catch (IOException | IllegalStateException e) {
+        close();
+      }
+    }
+
+  }
+
+}
@@ -3,7 +3,8 @@ package com.bravos.parentalv2.service;
 import com.bravos.parentalv2.config.AdminProperties;
 import com.bravos.parentalv2.model.Admin;
 import com.bravos.parentalv2.repository.AdminRepository;
-import jakarta.annotation.PostConstruct;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
 import org.springframework.security.authentication.BadCredentialsException;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
@@ -15,16 +16,23 @@ public class AuthService {
   private final AdminRepository adminRepository;
   private final AdminProperties adminProperties;
   private final PasswordEncoder passwordEncoder;
+  private final PasswordHasher passwordHasher;
 
   public AuthService(AdminRepository adminRepository,
       AdminProperties adminProperties,
-      PasswordEncoder passwordEncoder) {
+      PasswordEncoder passwordEncoder,
+      PasswordHasher passwordHasher) {
     this.adminRepository = adminRepository;
     this.adminProperties = adminProperties;
     this.passwordEncoder = passwordEncoder;
+    this.passwordHasher = passwordHasher;
   }
 
-  @PostConstruct
+  /**
+   * Seeds the default admin once the application is up rather than during context refresh, so refresh needs no
+   * database (see the AOT cache training run in the Dockerfile).
+   */
+  @EventListener(ApplicationReadyEvent.class)
   public void init() {
     if (adminRepository.count() == 0) {
       Admin defaultAdmin = Admin.builder()
@@ -37,9 +45,13 @@ public class AuthService {
 
   public void authenticate(String username, String password) {
     Admin admin = adminRepository.findByUsername(username).orElseThrow(() -> new BadCredentialsException("Invalid username or password"));
-    if (!passwordEncoder.matches(password, admin.getPassword())) {
+    if (!passwordHasher.matches(password, admin.getPassword())) {
       throw new BadCredentialsException("Invalid username or password");
     }
+    if (passwordHasher.needsRehash(admin.getPassword())) {
+      admin.setPassword(passwordHasher.encode(password));
+      adminRepository.save(admin);
+    }
   }
 
   @Transactional
@@ -49,7 +61,7 @@ public class AuthService {
     }
     Admin admin = Admin.builder()
         .username(username)
-        .password(passwordEncoder.encode(password))
+        .password(passwordHasher.encode(password))
         .build();
     adminRepository.save(admin);
   }
@@ -58,10 +70,10 @@ public class AuthService {
   public void changePassword(String username, String oldPassword, String newPassword) {
     Admin admin = adminRepository.findByUsername(username)
         .orElseThrow(() -> new BadCredentialsException("User not found"));
-    if (!passwordEncoder.matches(oldPassword, admin.getPassword())) {
+    if (!passwordHasher.matches(oldPassword, admin.getPassword())) {
       throw new BadCredentialsException("Old password is incorrect");
     }
-    admin.setPassword(passwordEncoder.encode(newPassword));
+    admin.setPassword(passwordHasher.encode(newPassword));
     adminRepository.save(admin);
   }
 
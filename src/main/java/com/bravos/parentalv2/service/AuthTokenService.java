@@ -0,0 +1,254 @@
+package com.bravos.parentalv2.service;
+
+import com.bravos.parentalv2.config.AuthProperties;
+import com.bravos.parentalv2.dto.TokenResponse;
+import com.bravos.parentalv2.model.Admin;
+import com.bravos.parentalv2.model.RefreshTokenFamily;
+import com.bravos.parentalv2.repository.AdminRepository;
+import com.bravos.parentalv2.repository.RefreshTokenFamilyRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Issues and verifies HMAC-SHA256 signed admin tokens of the form {@code payload.signature}, where the payload
+ * is {@code type:expiresAtEpochSeconds:fingerprint:family:jti:username}. Access tokens are verified without any
+ * lookup. Refresh tokens are single use: each login is a {@link RefreshTokenFamily} whose latest token id is
+ * kept in the database, a refresh rotates it, and replaying an older one revokes the family. Refresh tokens
+ * also carry a fingerprint of the admin's password hash, so changing the password revokes them, and no token
+ * outlives the family's absolute session lifetime.
+ */
+@Service
+public class AuthTokenService {
+
+  private static final Logger log = LoggerFactory.getLogger(AuthTokenService.class);
+  private static final String ALGORITHM = "HmacSHA256";
+  private static final String ACCESS = "a";
+  private static final String REFRESH = "r";
+  private static final String NONE = "-";
+  private static final int MAX_CACHED = 1024;
+  private static final Base64.Encoder ENCODER = Base64.getUrlEncoder().withoutPadding();
+  private static final Base64.Decoder DECODER = Base64.getUrlDecoder();
+
+  private final AdminRepository adminRepository;
+  private final RefreshTokenFamilyRepository familyRepository;
+  private final AuthProperties properties;
+  private final SecretKeySpec key;
+  private final ThreadLocal<Mac> mac;
+  private final SecureRandom random = new SecureRandom();
+  private final Map<String, Verified> verified = new ConcurrentHashMap<>();
+
+  // Families logged out on this instance, until their last access token expires
+  private final Map<String, Long> revokedFamilies = new ConcurrentHashMap<>();
+
+  public AuthTokenService(AdminRepository adminRepository,
+                          RefreshTokenFamilyRepository familyRepository,
+                          AuthProperties properties) {
+    this.adminRepository = adminRepository;
+    this.familyRepository = familyRepository;
+    this.properties = properties;
+    byte[] secret = properties.getTokenSecret().getBytes(StandardCharsets.UTF_8);
+    if (secret.length == 0) {
+      if (properties.isTokenMode()) {
+        throw new IllegalStateException("AUTH_TOKEN_SECRET must be set when AUTH_MODE=token");
+      }
+      // Session mode issues no tokens; the key only has to exist
+      secret = new byte[32];
+      random.nextBytes(secret);
+    } else if (secret.length < 32) {
+      throw new IllegalStateException("AUTH_TOKEN_SECRET must be at least 32 bytes");
+    }
+    this.key = new SecretKeySpec(secret, ALGORITHM);
+    this.mac = ThreadLocal.withInitial(this::newMac);
+  }
+
+  /**
+   * Starts a new login for the admin.
+   */
+  @Transactional
+  public TokenResponse issue(String username) {
+    Admin admin = adminRepository.findByUsername(username)
+        .orElseThrow(() -> new BadCredentialsException("User not found"));
+    LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+    RefreshTokenFamily family = familyRepository.save(RefreshTokenFamily.builder()
+        .id(randomId())
+        .username(username)
+        .currentJti(randomId())
+        .createdAt(now)
+        .expiresAt(now.plus(properties.getSessionMaxLifetime()))
+        .build());
+    return tokens(admin, family.getId(), family.getCurrentJti(), family.getExpiresAt());
+  }
+
+  /**
+   * Exchanges the family's latest refresh token for a new pair. A token that is not the latest (replayed,
+   * stolen, or raced by a second refresh) revokes the family, so whoever holds the newer one is logged out too.
+   */
+  @Transactional(noRollbackFor = BadCredentialsException.class)
+  public TokenResponse refresh(String refreshToken) {
+    String[] claims = verify(refreshToken, REFRESH);
+    if (claims == null) {
+      throw new BadCredentialsException("Invalid or expired refresh token");
+    }
+    String familyId = claims[3];
+    LocalDateTime now = LocalDateTime.now(ZoneOffset.UTC);
+    String next = randomId();
+    if (familyRepository.rotate(familyId, claims[4], next, now) == 0) {
+      if (familyRepository.revoke(familyId, now) > 0) {
+        log.warn("Refresh token reuse for {}; revoked the login", claims[5]);
+      }
+      throw new BadCredentialsException("Invalid or expired refresh token");
+    }
+    Admin admin = adminRepository.findByUsername(claims[5]).orElse(null);
+    if (admin == null || !claims[2].equals(fingerprint(admin))) {
+      familyRepository.revoke(familyId, now);
+      throw new BadCredentialsException("Invalid or expired refresh token");
+    }
+    RefreshTokenFamily family = familyRepository.findById(familyId)
+        .orElseThrow(() -> new BadCredentialsException("Invalid or expired refresh token"));
+    return tokens(admin, familyId, next, family.getExpiresAt());
+  }
+
+  /**
+   * Ends the login the access token belongs to: its refresh token stops working everywhere, and its access
+   * tokens are refused on this instance at once (on others they lapse within the access token TTL).
+   */
+  @Transactional
+  public void revoke(Authentication authentication) {
+    if (!(authentication.getDetails() instanceof String familyId)) {
+      return;
+    }
+    familyRepository.revoke(familyId, LocalDateTime.now(ZoneOffset.UTC));
+    revokedFamilies.put(familyId, System.currentTimeMillis() / 1000 + properties.getAccessTokenTtl().toSeconds());
+  }
+
+  @Scheduled(fixedDelayString = "${app.auth.cleanup-interval:1h}")
+  @Transactional
+  public void removeExpired() {
+    if (!properties.isTokenMode()) {
+      return;
+    }
+    long now = System.currentTimeMillis() / 1000;
+    revokedFamilies.values().removeIf(expiresAt -> expiresAt <= now);
+    familyRepository.deleteExpired(LocalDateTime.now(ZoneOffset.UTC));
+  }
+
+  private TokenResponse tokens(Admin admin, String familyId, String jti, LocalDateTime sessionExpiresAt) {
+    long now = System.currentTimeMillis() / 1000;
+    long sessionEnd = sessionExpiresAt.toEpochSecond(ZoneOffset.UTC);
+    long accessExpiresAt = Math.min(now + properties.getAccessTokenTtl().toSeconds(), sessionEnd);
+    long refreshExpiresAt = Math.min(now + properties.getRefreshTokenTtl().toSeconds(), sessionEnd);
+    return TokenResponse.builder()
+        .accessToken(sign(ACCESS, accessExpiresAt, NONE, familyId, NONE, admin.getUsername()))
+        .refreshToken(sign(REFRESH, refreshExpiresAt, fingerprint(admin), familyId, jti, admin.getUsername()))
+        .tokenType("Bearer")
+        .expiresIn(accessExpiresAt - now)
+        .build();
+  }
+
+  /**
+   * @return the authentication for a valid access token, or null
+   */
+  public Authentication authenticate(String accessToken) {
+    long now = System.currentTimeMillis() / 1000;
+    Verified cached = verified.get(accessToken);
+    if (cached != null) {
+      if (cached.expiresAt > now && !revokedFamilies.containsKey(cached.familyId)) {
+        return cached.authentication;
+      }
+      verified.remove(accessToken);
+    }
+    String[] claims = verify(accessToken, ACCESS);
+    if (claims == null || revokedFamilies.containsKey(claims[3])) {
+      return null;
+    }
+    UsernamePasswordAuthenticationToken authentication = new UsernamePasswordAuthenticationToken(
+        claims[5], null, List.of(new SimpleGrantedAuthority("ROLE_ADMIN")));
+    authentication.setDetails(claims[3]);
+    if (verified.size() >= MAX_CACHED) {
+      verified.values().removeIf(entry -> entry.expiresAt <= now);
+    }
+    // Still full of live tokens: verify this one again next time rather than drop the others
+    if (verified.size() < MAX_CACHED) {
+      verified.put(accessToken, new Verified(authentication, claims[3], Long.parseLong(claims[1])));
+    }
+    return authentication;
+  }
+
+  private String sign(String type, long expiresAt, String fingerprint, String familyId, String jti,
+                      String username) {
+    String payload = ENCODER.encodeToString((type + ":" + expiresAt + ":" + fingerprint + ":" + familyId + ":" + jti
+        + ":" + username).getBytes(StandardCharsets.UTF_8));
+    return payload + "." + ENCODER.encodeToString(hmac(payload.getBytes(StandardCharsets.US_ASCII)));
+  }
+
+  private String[] verify(String token, String expectedType) {
+    int dot = token.indexOf('.');
+    if (dot <= 0) {
+      return null;
+    }
+    try {
+      byte[] expected = hmac(token.substring(0, dot).getBytes(StandardCharsets.US_ASCII));
+      if (!MessageDigest.isEqual(expected, DECODER.decode(token.substring(dot + 1)))) {
+        return null;
+      }
+      String[] claims = new String(DECODER.decode(token.substring(0, dot)), StandardCharsets.UTF_8).split(":", 6);
+      if (claims.length != 6 || !claims[0].equals(expectedType)
+          || Long.parseLong(claims[1]) <= System.currentTimeMillis() / 1000) {
+        return null;
+      }
+      return claims;
+    } catch (IllegalArgumentException e) {
+      return null;
+    }
+  }
+
+  private String randomId() {
+    byte[] id = new byte[16];
+    random.nextBytes(id);
+    return ENCODER.encodeToString(id);
+  }
+
+  private String fingerprint(Admin admin) {
+    byte[] digest = hmac(admin.getPassword().getBytes(StandardCharsets.UTF_8));
+    return ENCODER.encodeToString(Arrays.copyOf(digest, 12));
+  }
+
+  private byte[] hmac(byte[] data) {
+    return mac.get().doFinal(data);
+  }
+
+  private Mac newMac() {
+    try {
+      Mac instance = Mac.getInstance(ALGORITHM);
+      instance.init(key);
+      return instance;
+    } catch (GeneralSecurityException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private record Verified(Authentication authentication, String familyId, long expiresAt) {
+  }
+
+}
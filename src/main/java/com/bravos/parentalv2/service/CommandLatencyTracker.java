@@ -0,0 +1,279 @@
+package com.bravos.parentalv2.service;
+
+import com.bravos.parentalv2.config.CommandLatencyProperties;
+import com.bravos.parentalv2.dto.DeviceLatencyResponse;
+import com.bravos.parentalv2.model.CommandType;
+import com.bravos.parentalv2.model.LockStatus;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures how long it takes from a lock or unlock command leaving the server to the device reporting the new
+ * status.
+ * <p>
+ * Commands are remembered per device in send order. A {@code status} report completes the oldest pending command
+ * expecting that status; pending commands queued before it are considered superseded. The delay the device was
+ * asked to wait is subtracted, so the figure is network and client processing time only.
+ * <p>
+ * The fleet-wide distribution is published as the {@code command.rtt} histogram. Tagging that by device would
+ * explode metric cardinality, so each connected device keeps only a fixed-size summary (moving average, max, last)
+ * next to its pending commands, served through {@link #slowDevices(int)} and {@link #device(String)} and dropped
+ * when the device disconnects. All state of a device is changed under {@link ConcurrentHashMap#compute}, so a send
+ * failure, a status report and a disconnect of the same device cannot interleave.
+ */
+@Service
+public class CommandLatencyTracker {
+
+  private static final int MAX_PENDING_PER_DEVICE = 8;
+
+  /**
+   * Weight of the newest round trip in a device's moving average.
+   */
+  private static final double EWMA_WEIGHT = 0.2;
+
+  private record Pending(long commandId, LockStatus expected, long dueNanos) {
+  }
+
+  private final CommandLatencyProperties properties;
+  private final Map<String, DeviceLatency> devices = new ConcurrentHashMap<>();
+  private final AtomicLong commandIds = new AtomicLong();
+  private final Map<LockStatus, Timer> fleetTimers = new EnumMap<>(LockStatus.class);
+  private final Counter superseded;
+  private final Counter timedOut;
+
+  public CommandLatencyTracker(CommandLatencyProperties properties, MeterRegistry registry) {
+    this.properties = properties;
+    for (LockStatus status : LockStatus.values()) {
+      fleetTimers.put(status, Timer.builder("command.rtt")
+          .description("Time from sending a command to the device reporting the resulting status, minus its delay")
+          .tag("status", status.name().toLowerCase())
+          .publishPercentileHistogram()
+          .minimumExpectedValue(Duration.ofMillis(5))
+          .maximumExpectedValue(properties.getTimeout())
+          .register(registry));
+    }
+    this.superseded = Counter.builder("command.rtt.unanswered")
+        .description("Commands whose status report never arrived")
+        .tag("reason", "superseded")
+        .register(registry);
+    this.timedOut = Counter.builder("command.rtt.unanswered")
+        .description("Commands whose status report never arrived")
+        .tag("reason", "timeout")
+        .register(registry);
+    Gauge.builder("command.rtt.devices", devices, Map::size)
+        .description("Devices with pending commands or a round-trip summary")
+        .register(registry);
+  }
+
+  /**
+   * Call just before the command is written to the socket, so a fast reply cannot overtake the bookkeeping.
+   * Commands that do not change the lock status are ignored.
+   *
+   * @return the id to pass to {@link #commandFailed} if the send fails
+   */
+  public long commandSent(String deviceId, CommandType commandType, int delaySeconds) {
+    LockStatus expected = DeviceCommandService.toLockStatus(commandType);
+    if (expected == null) {
+      return 0;
+    }
+    long commandId = commandIds.incrementAndGet();
+    track(deviceId, new Pending(commandId, expected, System.nanoTime() + TimeUnit.SECONDS.toNanos(delaySeconds)));
+    return commandId;
+  }
+
+  /**
+   * Tracks one command sent to many devices; all of them share the returned id.
+   */
+  public long commandSent(Collection<String> deviceIds, CommandType commandType, int delaySeconds) {
+    LockStatus expected = DeviceCommandService.toLockStatus(commandType);
+    if (expected == null) {
+      return 0;
+    }
+    long commandId = commandIds.incrementAndGet();
+    Pending command = new Pending(commandId, expected, System.nanoTime() + TimeUnit.SECONDS.toNanos(delaySeconds));
+    for (String deviceId : deviceIds) {
+      track(deviceId, command);
+    }
+    return commandId;
+  }
+
+  /**
+   * Forgets the command with this id, for a send that failed after {@link #commandSent} was called. Other
+   * commands sent to the device in the meantime are left alone.
+   */
+  public void commandFailed(String deviceId, long commandId) {
+    if (commandId == 0) {
+      return;
+    }
+    devices.computeIfPresent(deviceId, (_, device) -> {
+      if (device.pending != null) {
+        device.pending.removeIf(command -> command.commandId() == commandId);
+      }
+      return device.isEmpty() ? null : device;
+    });
+  }
+
+  /**
+   * Call on receipt of a {@code status} frame, before it is queued for processing.
+   */
+  public void statusReported(String deviceId, LockStatus status) {
+    long now = System.nanoTime();
+    devices.computeIfPresent(deviceId, (_, device) -> {
+      if (device.pending == null) {
+        return device;
+      }
+      int skipped = 0;
+      for (Iterator<Pending> it = device.pending.iterator(); it.hasNext(); skipped++) {
+        Pending command = it.next();
+        if (command.expected() == status) {
+          for (int i = 0; i <= skipped; i++) {
+            device.pending.removeFirst();
+          }
+          superseded.increment(skipped);
+          long rttNanos = Math.max(0, now - command.dueNanos());
+          fleetTimers.get(status).record(rttNanos, TimeUnit.NANOSECONDS);
+          device.record(TimeUnit.NANOSECONDS.toMillis(rttNanos));
+          break;
+        }
+      }
+      return device.isEmpty() ? null : device;
+    });
+  }
+
+  /**
+   * Drops everything kept for the device; its next session starts a fresh summary.
+   */
+  public void deviceDisconnected(String deviceId) {
+    devices.remove(deviceId);
+  }
+
+  /**
+   * Connected devices whose average round trip is at or above the slow threshold, slowest first.
+   */
+  public List<DeviceLatencyResponse> slowDevices(int limit) {
+    long thresholdMillis = properties.getSlowThreshold().toMillis();
+    List<DeviceLatencyResponse> slow = new ArrayList<>();
+    for (String deviceId : devices.keySet()) {
+      DeviceLatencyResponse response = snapshot(deviceId);
+      if (response != null && response.getSamples() > 0 && response.getAvgMillis() >= thresholdMillis) {
+        slow.add(response);
+      }
+    }
+    return slow.stream()
+        .sorted(Comparator.comparingLong(DeviceLatencyResponse::getAvgMillis).reversed())
+        .limit(limit)
+        .toList();
+  }
+
+  /**
+   * Statistics of one device; all zero when it has not answered a command since it connected.
+   */
+  public DeviceLatencyResponse device(String deviceId) {
+    DeviceLatencyResponse response = snapshot(deviceId);
+    return response != null ? response : DeviceLatencyResponse.builder().deviceId(deviceId).build();
+  }
+
+  @Scheduled(fixedDelay = 30000)
+  public void expire() {
+    long now = System.nanoTime();
+    long timeoutNanos = properties.getTimeout().toNanos();
+    for (String deviceId : devices.keySet()) {
+      devices.computeIfPresent(deviceId, (_, device) -> {
+        while (device.pending != null && !device.pending.isEmpty()
+            && now - device.pending.peekFirst().dueNanos() > timeoutNanos) {
+          device.pending.removeFirst();
+          device.unanswered++;
+          timedOut.increment();
+        }
+        return device.isEmpty() ? null : device;
+      });
+    }
+  }
+
+  private void track(String deviceId, Pending command) {
+    devices.compute(deviceId, (_, device) -> {
+      if (device == null) {
+        device = new DeviceLatency();
+      }
+      if (device.pending == null) {
+        device.pending = new ArrayDeque<>(2);
+      } else if (device.pending.size() == MAX_PENDING_PER_DEVICE) {
+        device.pending.removeFirst();
+        superseded.increment();
+      }
+      device.pending.addLast(command);
+      return device;
+    });
+  }
+
+  private DeviceLatencyResponse snapshot(String deviceId) {
+    DeviceLatencyResponse[] response = {null};
+    devices.computeIfPresent(deviceId, (_, device) -> {
+      response[0] = device.toResponse(deviceId);
+      return device;
+    });
+    return response[0];
+  }
+
+  /**
+   * Pending commands and a constant-size round-trip summary of one device. Only touched inside
+   * {@code devices.compute*}, which serializes access per device.
+   */
+  private static final class DeviceLatency {
+
+    private ArrayDeque<Pending> pending;
+    private int samples;
+    private double avgMillis;
+    private long maxMillis;
+    private long lastMillis;
+    private long unanswered;
+    private LocalDateTime lastSampleAt;
+
+    void record(long millis) {
+      avgMillis = samples == 0 ? millis : avgMillis + EWMA_WEIGHT * (millis - avgMillis);
+      samples++;
+      maxMillis = Math.max(maxMillis, millis);
+      lastMillis = millis;
+      lastSampleAt = LocalDateTime.now();
+    }
+
+    /**
+     * Nothing worth keeping: no command awaits a reply and no round trip was measured.
+     */
+    boolean isEmpty() {
+      return (pending == null || pending.isEmpty()) && samples == 0 && unanswered == 0;
+    }
+
+    DeviceLatencyResponse toResponse(String deviceId) {
+      return DeviceLatencyResponse.builder()
+          .deviceId(deviceId)
+          .samples(samples)
+          .avgMillis(Math.round(avgMillis))
+          .maxMillis(maxMillis)
+          .lastMillis(lastMillis)
+          .unanswered(unanswered)
+          .lastSampleAt(lastSampleAt)
+          .build();
+    }
+
+  }
+
+}
@@ -0,0 +1,77 @@
+package com.bravos.parentalv2.service;
+
+import com.bravos.parentalv2.model.CommandType;
+import com.bravos.parentalv2.model.Device;
+import com.bravos.parentalv2.model.EventType;
+import com.bravos.parentalv2.model.LockStatus;
+import jakarta.persistence.EntityManager;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Records the effects of commands sent to many devices: lock status and history, in one transaction. Large
+ * fleets are processed {@value #CHUNK_SIZE} devices at a time, flushing and clearing the persistence context
+ * between chunks so a broadcast to every device neither builds one huge IN list nor keeps every entity managed.
+ */
+@Service
+public class DeviceCommandService {
+
+  static final int CHUNK_SIZE = DeviceService.IN_LIST_CHUNK;
+
+  private final DeviceService deviceService;
+  private final DeviceEventService deviceEventService;
+  private final EntityManager entityManager;
+
+  public DeviceCommandService(DeviceService deviceService,
+                              DeviceEventService deviceEventService,
+                              EntityManager entityManager) {
+    this.deviceService = deviceService;
+    this.deviceEventService = deviceEventService;
+    this.entityManager = entityManager;
+  }
+
+  @Transactional
+  public void recordCommand(Collection<String> deviceIds, CommandType commandType, String description) {
+    EventType eventType = toEventType(commandType);
+    LockStatus lockStatus = toLockStatus(commandType);
+    if (deviceIds.isEmpty() || (eventType == null && lockStatus == null)) {
+      return;
+    }
+    List<String> ids = List.copyOf(deviceIds);
+    for (int from = 0; from < ids.size(); from += CHUNK_SIZE) {
+      List<String> chunk = ids.subList(from, Math.min(from + CHUNK_SIZE, ids.size()));
+      List<Device> devices = lockStatus != null
+          ? deviceService.updateLockStatus(chunk, lockStatus)
+          : deviceService.findByDeviceIds(chunk);
+      if (eventType != null) {
+        deviceEventService.logEvents(devices, eventType, description);
+      }
+      if (from + CHUNK_SIZE < ids.size()) {
+        entityManager.flush();
+        entityManager.clear();
+      }
+    }
+  }
+
+  public static EventType toEventType(CommandType commandType) {
+    return switch (commandType) {
+      case LOCK -> EventType.LOCK;
+      case UNLOCK -> EventType.UNLOCK;
+      case SHUTDOWN -> EventType.SHUTDOWN;
+      case RESTART -> EventType.RESTART;
+      case MESSAGE -> null;
+    };
+  }
+
+  public static LockStatus toLockStatus(CommandType commandType) {
+    return switch (commandType) {
+      case LOCK -> LockStatus.LOCKED;
+      case UNLOCK -> LockStatus.UNLOCKED;
+      default -> null;
+    };
+  }
+
+}
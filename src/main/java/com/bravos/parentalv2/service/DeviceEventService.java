@@ -1,25 +1,48 @@
 package com.bravos.parentalv2.service;
 
+import com.bravos.parentalv2.archive.ArchivedEvent;
 import com.bravos.parentalv2.dto.DeviceEventResponse;
+import com.bravos.parentalv2.event.DeviceEventLoggedEvent;
+import com.bravos.parentalv2.jfr.EventsPersistedEvent;
 import com.bravos.parentalv2.model.Device;
 import com.bravos.parentalv2.model.DeviceEvent;
+import com.bravos.parentalv2.model.DeviceTombstone;
 import com.bravos.parentalv2.model.EventType;
 import com.bravos.parentalv2.repository.DeviceEventRepository;
+import com.bravos.parentalv2.repository.DeviceTombstoneRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
 @Service
 public class DeviceEventService {
 
   private final DeviceEventRepository deviceEventRepository;
   private final DeviceService deviceService;
+  private final EventArchiveService eventArchiveService;
+  private final DeviceTombstoneRepository deviceTombstoneRepository;
+  private final ApplicationEventPublisher eventPublisher;
 
-  public DeviceEventService(DeviceEventRepository deviceEventRepository, DeviceService deviceService) {
+  public DeviceEventService(DeviceEventRepository deviceEventRepository,
+                            DeviceService deviceService,
+                            EventArchiveService eventArchiveService,
+                            DeviceTombstoneRepository deviceTombstoneRepository,
+                            ApplicationEventPublisher eventPublisher) {
     this.deviceEventRepository = deviceEventRepository;
     this.deviceService = deviceService;
+    this.eventArchiveService = eventArchiveService;
+    this.deviceTombstoneRepository = deviceTombstoneRepository;
+    this.eventPublisher = eventPublisher;
   }
 
   @Transactional
@@ -35,7 +58,59 @@ public class DeviceEventService {
         .eventType(eventType)
         .description(description)
         .build();
+    save(event);
+    eventPublisher.publishEvent(new DeviceEventLoggedEvent(toResponse(event)));
+  }
+
+  @Transactional
+  public void logEvent(String deviceId, EventType eventType, String description,
+                       LocalDateTime timestamp, long journalSeq) {
+    Device device = deviceService.findByDeviceId(deviceId);
+    DeviceEvent event = DeviceEvent.builder()
+        .device(device)
+        .eventType(eventType)
+        .description(description)
+        .timestamp(timestamp)
+        .journalSeq(journalSeq)
+        .build();
+    save(event);
+    eventPublisher.publishEvent(new DeviceEventLoggedEvent(toResponse(event)));
+  }
+
+  @Transactional
+  public void logEvents(List<Device> devices, EventType eventType, String description) {
+    List<DeviceEvent> events = new ArrayList<>(devices.size());
+    for (Device device : devices) {
+      events.add(DeviceEvent.builder()
+          .device(device)
+          .eventType(eventType)
+          .description(description)
+          .build());
+    }
+    EventsPersistedEvent persisted = new EventsPersistedEvent();
+    persisted.begin();
+    deviceEventRepository.saveAll(events);
+    persisted.end();
+    if (persisted.shouldCommit()) {
+      persisted.source = "bulk";
+      persisted.batchSize = events.size();
+      persisted.commit();
+    }
+    for (DeviceEvent event : events) {
+      eventPublisher.publishEvent(new DeviceEventLoggedEvent(toResponse(event)));
+    }
+  }
+
+  private void save(DeviceEvent event) {
+    EventsPersistedEvent persisted = new EventsPersistedEvent();
+    persisted.begin();
     deviceEventRepository.save(event);
+    persisted.end();
+    if (persisted.shouldCommit()) {
+      persisted.source = "direct";
+      persisted.batchSize = 1;
+      persisted.commit();
+    }
   }
 
   @Transactional(readOnly = true)
@@ -48,7 +123,33 @@ public class DeviceEventService {
       throw new IllegalArgumentException("Device ID is required and must exist");
     }
     Pageable pageable = PageRequest.of(page, size);
-    return deviceEventRepository.findByDeviceOrderByTimestampDesc(device, pageable).map(this::toResponse);
+    Page<DeviceEventResponse> hot = deviceEventRepository.findByDeviceOrderByTimestampDesc(device, pageable)
+        .map(this::toResponse);
+    // Archived events of an earlier device deleted under the same id are not this device's history
+    LocalDateTime deletedAt = deviceTombstoneRepository.findById(deviceId)
+        .map(DeviceTombstone::getDeletedAt)
+        .orElse(null);
+    int archivedCount = eventArchiveService.countArchived(deviceId, deletedAt);
+    if (archivedCount == 0) {
+      return hot;
+    }
+
+    // Archived events are all older than the hot table, so they simply continue its descending order. An event
+    // can be in both only if an archive batch was interrupted, and is then listed once.
+    List<DeviceEventResponse> content = new ArrayList<>(hot.getContent());
+    long hotTotal = hot.getTotalElements();
+    if (content.size() < size) {
+      Set<Long> listed = new HashSet<>();
+      content.forEach(event -> listed.add(event.getId()));
+      long archiveSkip = Math.max(0, pageable.getOffset() - hotTotal);
+      for (ArchivedEvent event : eventArchiveService.readArchived(deviceId, deletedAt, archiveSkip,
+          size - content.size())) {
+        if (listed.add(event.id())) {
+          content.add(toResponse(event, device));
+        }
+      }
+    }
+    return new PageImpl<>(content, pageable, hotTotal + archivedCount);
   }
 
   private DeviceEventResponse toResponse(DeviceEvent event) {
@@ -62,4 +163,15 @@ public class DeviceEventService {
         .build();
   }
 
+  private DeviceEventResponse toResponse(ArchivedEvent event, Device device) {
+    return DeviceEventResponse.builder()
+        .id(event.id())
+        .deviceId(event.deviceId())
+        .deviceName(device.getDeviceName())
+        .eventType(event.eventType())
+        .description(event.description())
+        .timestamp(event.timestamp())
+        .build();
+  }
+
 }
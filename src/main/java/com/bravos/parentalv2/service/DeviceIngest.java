@@ -0,0 +1,19 @@
+package com.bravos.parentalv2.service;
+
+import com.bravos.parentalv2.model.EventType;
+import com.bravos.parentalv2.model.LockStatus;
+
+/**
+ * Entry point for state changes and events reported by devices over the WebSocket.
+ */
+public interface DeviceIngest {
+
+  void register(String deviceId, String deviceName, String ipAddress);
+
+  void lockStatus(String deviceId, LockStatus lockStatus);
+
+  void event(String deviceId, EventType eventType, String description);
+
+  void disconnected(String deviceId);
+
+}
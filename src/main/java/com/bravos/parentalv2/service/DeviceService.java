@@ -1,58 +1,120 @@
 package com.bravos.parentalv2.service;
 
+import com.bravos.parentalv2.dto.DevicePageResponse;
 import com.bravos.parentalv2.dto.DeviceResponse;
+import com.bravos.parentalv2.event.DeviceChangedEvent;
 import com.bravos.parentalv2.exception.DeviceNotFoundException;
 import com.bravos.parentalv2.exception.DeviceOnlineException;
 import com.bravos.parentalv2.model.Device;
+import com.bravos.parentalv2.model.DeviceSort;
 import com.bravos.parentalv2.model.DeviceStatus;
+import com.bravos.parentalv2.model.DeviceTombstone;
 import com.bravos.parentalv2.model.LockStatus;
 import com.bravos.parentalv2.repository.DeviceEventRepository;
+import com.bravos.parentalv2.repository.DevicePageQuery;
 import com.bravos.parentalv2.repository.DeviceRepository;
+import com.bravos.parentalv2.repository.DeviceTombstoneRepository;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
 import java.util.List;
 
 @Service
 public class DeviceService {
 
+  static final int IN_LIST_CHUNK = 1000;
+
   private final DeviceRepository deviceRepository;
   private final DeviceEventRepository deviceEventRepository;
+  private final DeviceTombstoneRepository deviceTombstoneRepository;
+  private final ApplicationEventPublisher eventPublisher;
 
-  public DeviceService(DeviceRepository deviceRepository, DeviceEventRepository deviceEventRepository) {
+  public DeviceService(DeviceRepository deviceRepository,
+                       DeviceEventRepository deviceEventRepository,
+                       DeviceTombstoneRepository deviceTombstoneRepository,
+                       ApplicationEventPublisher eventPublisher) {
     this.deviceRepository = deviceRepository;
     this.deviceEventRepository = deviceEventRepository;
+    this.deviceTombstoneRepository = deviceTombstoneRepository;
+    this.eventPublisher = eventPublisher;
   }
 
   @Transactional
   public Device registerOrUpdate(String deviceId, String deviceName, String ipAddress) {
+    return registerOrUpdate(deviceId, deviceName, ipAddress, LocalDateTime.now());
+  }
+
+  @Transactional
+  public Device registerOrUpdate(String deviceId, String deviceName, String ipAddress, LocalDateTime seenAt) {
     Device device = deviceRepository.findByDeviceId(deviceId)
         .orElseGet(() -> Device.builder()
             .deviceId(deviceId)
             .build());
 
-    device.setDeviceName(deviceName);
+    device.setDeviceName(deviceName != null ? deviceName : "");
     device.setIpAddress(ipAddress);
     device.setStatus(DeviceStatus.ONLINE);
     device.setLockStatus(LockStatus.LOCKED);
-    device.setLastSeen(LocalDateTime.now());
+    device.setLastSeen(seenAt);
 
-    return deviceRepository.save(device);
+    Device saved = deviceRepository.save(device);
+    eventPublisher.publishEvent(new DeviceChangedEvent(DeviceChangedEvent.Change.REGISTERED, toResponse(saved)));
+    return saved;
   }
 
+  @Transactional(readOnly = true)
   public List<DeviceResponse> getAllDevices() {
     return deviceRepository.findAll().stream()
         .map(this::toResponse)
         .toList();
   }
 
+  @Transactional(readOnly = true)
+  public DevicePageResponse getDevicePage(DeviceStatus status, LockStatus lockStatus, String namePrefix,
+                                          DeviceSort sort, boolean descending, String cursor, int limit) {
+    Object afterValue = null;
+    Long afterId = null;
+    if (cursor != null && !cursor.isBlank()) {
+      String[] parts = decodeCursor(cursor, sort, descending);
+      afterId = Long.parseLong(parts[0]);
+      afterValue = parseSortValue(parts[1], sort);
+    }
+    List<Device> rows = deviceRepository.findPage(new DevicePageQuery(
+        status, lockStatus, namePrefix, sort, descending, afterValue, afterId, limit + 1));
+    boolean hasMore = rows.size() > limit;
+    List<Device> page = hasMore ? rows.subList(0, limit) : rows;
+    return DevicePageResponse.builder()
+        .devices(page.stream().map(this::toResponse).toList())
+        .nextCursor(hasMore ? encodeCursor(page.getLast(), sort, descending) : null)
+        .hasMore(hasMore)
+        .build();
+  }
+
+  @Transactional(readOnly = true)
+  public List<DeviceResponse> getDevices(Collection<String> deviceIds) {
+    if (deviceIds.isEmpty()) {
+      return List.of();
+    }
+    return findAllByDeviceIds(deviceIds).stream()
+        .map(this::toResponse)
+        .toList();
+  }
+
+  @Transactional(readOnly = true)
   public List<DeviceResponse> getOnlineDevices() {
     return deviceRepository.findAllByStatus(DeviceStatus.ONLINE).stream()
         .map(this::toResponse)
         .toList();
   }
 
+  @Transactional(readOnly = true)
   public DeviceResponse getDevice(String deviceId) {
     Device device = findByDeviceId(deviceId);
     return toResponse(device);
@@ -60,19 +122,63 @@ public class DeviceService {
 
   @Transactional
   public void markOffline(String deviceId) {
+    markOffline(deviceId, LocalDateTime.now());
+  }
+
+  @Transactional
+  public void markOffline(String deviceId, LocalDateTime seenAt) {
     deviceRepository.findByDeviceId(deviceId).ifPresent(device -> {
       device.setStatus(DeviceStatus.OFFLINE);
-      device.setLastSeen(LocalDateTime.now());
+      device.setLastSeen(seenAt);
       deviceRepository.save(device);
+      eventPublisher.publishEvent(new DeviceChangedEvent(DeviceChangedEvent.Change.OFFLINE, toResponse(device)));
     });
   }
 
   @Transactional
   public void updateLockStatus(String deviceId, LockStatus lockStatus) {
+    updateLockStatus(deviceId, lockStatus, LocalDateTime.now());
+  }
+
+  @Transactional
+  public void updateLockStatus(String deviceId, LockStatus lockStatus, LocalDateTime seenAt) {
     Device device = findByDeviceId(deviceId);
     device.setLockStatus(lockStatus);
-    device.setLastSeen(LocalDateTime.now());
+    device.setLastSeen(seenAt);
     deviceRepository.save(device);
+    eventPublisher.publishEvent(new DeviceChangedEvent(DeviceChangedEvent.Change.LOCK_STATUS, toResponse(device)));
+  }
+
+  @Transactional
+  public List<Device> updateLockStatus(Collection<String> deviceIds, LockStatus lockStatus) {
+    List<Device> devices = findAllByDeviceIds(deviceIds);
+    LocalDateTime now = LocalDateTime.now();
+    for (Device device : devices) {
+      device.setLockStatus(lockStatus);
+      device.setLastSeen(now);
+      eventPublisher.publishEvent(new DeviceChangedEvent(DeviceChangedEvent.Change.LOCK_STATUS, toResponse(device)));
+    }
+    return devices;
+  }
+
+  public List<Device> findByDeviceIds(Collection<String> deviceIds) {
+    return findAllByDeviceIds(deviceIds);
+  }
+
+  /**
+   * Looks the ids up {@value #IN_LIST_CHUNK} at a time, keeping each IN list well below the driver's limit of
+   * 65535 bind parameters whatever the size of the fleet.
+   */
+  private List<Device> findAllByDeviceIds(Collection<String> deviceIds) {
+    if (deviceIds.size() <= IN_LIST_CHUNK) {
+      return deviceRepository.findAllByDeviceIdIn(deviceIds);
+    }
+    List<String> ids = List.copyOf(deviceIds);
+    List<Device> devices = new ArrayList<>(ids.size());
+    for (int from = 0; from < ids.size(); from += IN_LIST_CHUNK) {
+      devices.addAll(deviceRepository.findAllByDeviceIdIn(ids.subList(from, Math.min(from + IN_LIST_CHUNK, ids.size()))));
+    }
+    return devices;
   }
 
   public Device findByDeviceId(String deviceId) {
@@ -87,7 +193,48 @@ public class DeviceService {
       throw new DeviceOnlineException(deviceId);
     }
     deviceEventRepository.deleteByDevice(device);
+    // Archived events cannot be deleted; the tombstone hides them
+    deviceTombstoneRepository.save(new DeviceTombstone(deviceId, LocalDateTime.now()));
     deviceRepository.delete(device);
+    eventPublisher.publishEvent(new DeviceChangedEvent(DeviceChangedEvent.Change.DELETED, toResponse(device)));
+  }
+
+  private static String encodeCursor(Device last, DeviceSort sort, boolean descending) {
+    Object value = switch (sort) {
+      case NAME -> last.getDeviceName();
+      case LAST_SEEN -> last.getLastSeen();
+    };
+    String raw = sort.name() + "|" + (descending ? "D" : "A") + "|" + last.getId() + "|=" + value;
+    return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String[] decodeCursor(String cursor, DeviceSort sort, boolean descending) {
+    String raw;
+    try {
+      raw = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+    } catch (IllegalArgumentException e) {
+      throw new IllegalArgumentException("Invalid cursor");
+    }
+    String[] parts = raw.split("\\|", 4);
+    if (parts.length != 4 || !parts[0].equals(sort.name()) || !parts[1].equals(descending ? "D" : "A")) {
+      throw new IllegalArgumentException("Cursor does not match the requested sort order");
+    }
+    return new String[]{parts[2], parts[3]};
+  }
+
+  private static Object parseSortValue(String value, DeviceSort sort) {
+    if (!value.startsWith("=")) {
+      throw new IllegalArgumentException("Invalid cursor");
+    }
+    String v = value.substring(1);
+    try {
+      return switch (sort) {
+        case NAME -> v;
+        case LAST_SEEN -> LocalDateTime.parse(v);
+      };
+    } catch (DateTimeParseException e) {
+      throw new IllegalArgumentException("Invalid cursor");
+    }
   }
 
   private DeviceResponse toResponse(Device device) {
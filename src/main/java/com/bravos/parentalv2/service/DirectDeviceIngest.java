@@ -0,0 +1,46 @@
+package com.bravos.parentalv2.service;
+
+import com.bravos.parentalv2.model.EventType;
+import com.bravos.parentalv2.model.LockStatus;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Service;
+
+/**
+ * Writes device reports straight to the database on the calling thread. Used when the journal is disabled.
+ */
+@Service
+@ConditionalOnProperty(prefix = "app.journal", name = "enabled", havingValue = "false")
+public class DirectDeviceIngest implements DeviceIngest {
+
+  private final DeviceService deviceService;
+  private final DeviceEventService deviceEventService;
+
+  public DirectDeviceIngest(DeviceService deviceService, DeviceEventService deviceEventService) {
+    this.deviceService = deviceService;
+    this.deviceEventService = deviceEventService;
+  }
+
+  @Override
+  public void register(String deviceId, String deviceName, String ipAddress) {
+    deviceService.registerOrUpdate(deviceId, deviceName, ipAddress);
+    deviceEventService.logEvent(deviceId, EventType.CONNECT);
+  }
+
+  @Override
+  public void lockStatus(String deviceId, LockStatus lockStatus) {
+    deviceService.updateLockStatus(deviceId, lockStatus);
+    deviceEventService.logEvent(deviceId, lockStatus == LockStatus.LOCKED ? EventType.LOCK : EventType.UNLOCK);
+  }
+
+  @Override
+  public void event(String deviceId, EventType eventType, String description) {
+    deviceEventService.logEvent(deviceId, eventType, description);
+  }
+
+  @Override
+  public void disconnected(String deviceId) {
+    deviceService.markOffline(deviceId);
+    deviceEventService.logEvent(deviceId, EventType.DISCONNECT);
+  }
+
+}
@@ -0,0 +1,296 @@
+package com.bravos.parentalv2.service;
+
+import com.bravos.parentalv2.archive.ArchivedEvent;
+import com.bravos.parentalv2.archive.EventSegment;
+import com.bravos.parentalv2.archive.EventSegmentWriter;
+import com.bravos.parentalv2.config.ArchiveProperties;
+import com.bravos.parentalv2.model.DeviceEvent;
+import com.bravos.parentalv2.repository.DeviceEventRepository;
+import jakarta.annotation.PostConstruct;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.context.event.ApplicationStartedEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Moves cold rows of {@code device_events} into compressed segment files and serves them back for history queries.
+ * Segments are ordered newest first; archived events are always older than anything left in the table.
+ * <p>
+ * A segment only becomes visible once the transaction deleting its rows has committed. Segments left pending by a
+ * crash in between are resolved at startup: kept if their rows are gone, discarded if they are still in the table.
+ */
+@Service
+public class EventArchiveService {
+
+  private static final Logger log = LoggerFactory.getLogger(EventArchiveService.class);
+
+  private static final Comparator<EventSegment> NEWEST_FIRST = Comparator
+      .comparingLong(EventSegment::getRangeStart)
+      .thenComparingLong(EventSegment::getCreatedAt)
+      .reversed();
+
+  private final DeviceEventRepository deviceEventRepository;
+  private final ArchiveProperties properties;
+  private final TransactionTemplate transactionTemplate;
+  private final Path directory;
+
+  private volatile List<EventSegment> segments = List.of();
+  private List<Path> pending = List.of();
+
+  public EventArchiveService(DeviceEventRepository deviceEventRepository,
+                             ArchiveProperties properties,
+                             PlatformTransactionManager transactionManager) {
+    this.deviceEventRepository = deviceEventRepository;
+    this.properties = properties;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.directory = Path.of(properties.getDirectory());
+  }
+
+  @PostConstruct
+  public void init() throws IOException {
+    if (properties.isEnabled()) {
+      Files.createDirectories(directory);
+    }
+    if (!Files.isDirectory(directory)) {
+      return;
+    }
+    List<EventSegment> loaded = new ArrayList<>();
+    List<Path> unresolved = new ArrayList<>();
+    try (Stream<Path> files = Files.list(directory)) {
+      for (Path file : files.toList()) {
+        if (file.getFileName().toString().endsWith(".tmp")) {
+          Files.deleteIfExists(file);
+        } else if (EventSegment.isPendingFile(file)) {
+          unresolved.add(file);
+        } else if (EventSegment.isSegmentFile(file)) {
+          try {
+            loaded.add(EventSegment.open(file));
+          } catch (IOException e) {
+            log.error("Skipping unreadable event segment {}", file, e);
+          }
+        }
+      }
+    }
+    loaded.sort(NEWEST_FIRST);
+    segments = List.copyOf(loaded);
+    pending = unresolved;
+    log.info("Loaded {} archived event segments from {}", loaded.size(), directory.toAbsolutePath());
+  }
+
+  /**
+   * Settles segments of archive batches interrupted between writing and renaming. Runs once the context is
+   * refreshed, so refresh itself needs no database.
+   */
+  @EventListener(ApplicationStartedEvent.class)
+  public void resolvePending() {
+    List<Path> committed = new ArrayList<>();
+    for (Path path : pending) {
+      try {
+        if (deviceEventRepository.existsById(EventSegment.open(path).anyEventId())) {
+          log.warn("Discarding segment {} of an archive batch that did not commit", path);
+          Files.deleteIfExists(path);
+        } else {
+          committed.add(EventSegmentWriter.commit(path));
+        }
+      } catch (IOException | RuntimeException e) {
+        log.error("Could not resolve pending event segment {}", path, e);
+      }
+    }
+    pending = List.of();
+    if (!committed.isEmpty()) {
+      log.info("Recovered {} event segments of committed archive batches", committed.size());
+      publish(committed);
+    }
+  }
+
+  @Scheduled(cron = "${app.archive.cron:0 30 3 * * *}")
+  public void archiveColdEvents() {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    LocalDateTime cutoff = LocalDateTime.now().minus(properties.getMaxAge());
+    long total = 0;
+    Integer archived;
+    do {
+      archived = transactionTemplate.execute(_ -> archiveBatch(cutoff));
+      total += archived != null ? archived : 0;
+    } while (archived != null && archived >= properties.getBatchSize());
+    if (total > 0) {
+      log.info("Archived {} device events older than {}", total, cutoff);
+    }
+  }
+
+  /**
+   * Counts archived events of a device newer than {@code after}, or all of them if it is null.
+   */
+  public int countArchived(String deviceId, LocalDateTime after) {
+    int count = 0;
+    for (EventSegment segment : segments) {
+      count += switch (overlap(segment, after)) {
+        case ALL -> segment.count(deviceId);
+        case NONE -> 0;
+        case PART -> newerThan(segment, deviceId, after).size();
+      };
+    }
+    return count;
+  }
+
+  /**
+   * Reads archived events of a device newer than {@code after} (all if null), newest first, as if they were one
+   * list continuing after the hot table.
+   */
+  public List<ArchivedEvent> readArchived(String deviceId, LocalDateTime after, long skip, int limit) {
+    List<ArchivedEvent> result = new ArrayList<>();
+    long remainingSkip = skip;
+    for (EventSegment segment : segments) {
+      if (result.size() >= limit) {
+        break;
+      }
+      Overlap overlap = overlap(segment, after);
+      if (overlap == Overlap.NONE) {
+        continue;
+      }
+      List<ArchivedEvent> visible = overlap == Overlap.PART ? newerThan(segment, deviceId, after) : null;
+      int count = visible != null ? visible.size() : segment.count(deviceId);
+      if (remainingSkip >= count) {
+        remainingSkip -= count;
+        continue;
+      }
+      int from = (int) remainingSkip;
+      int wanted = limit - result.size();
+      result.addAll(visible != null
+          ? visible.subList(from, Math.min(count, from + wanted))
+          : segment.read(deviceId, from, wanted));
+      remainingSkip = 0;
+    }
+    return result;
+  }
+
+  private enum Overlap {
+    ALL,
+    PART,
+    NONE
+  }
+
+  /**
+   * Which events of the segment are newer than {@code after}, judged from its time range alone where possible.
+   */
+  private static Overlap overlap(EventSegment segment, LocalDateTime after) {
+    if (after == null) {
+      return Overlap.ALL;
+    }
+    long afterSecond = after.toEpochSecond(ZoneOffset.UTC);
+    if (segment.getRangeStart() > afterSecond) {
+      return Overlap.ALL;
+    }
+    return segment.getRangeEnd() <= afterSecond ? Overlap.NONE : Overlap.PART;
+  }
+
+  private static List<ArchivedEvent> newerThan(EventSegment segment, String deviceId, LocalDateTime after) {
+    return segment.read(deviceId, 0, segment.count(deviceId)).stream()
+        .filter(event -> event.timestamp().isAfter(after))
+        .toList();
+  }
+
+  private int archiveBatch(LocalDateTime cutoff) {
+    List<DeviceEvent> batch = deviceEventRepository.findArchivable(cutoff, PageRequest.of(0, properties.getBatchSize()));
+    if (batch.isEmpty()) {
+      return 0;
+    }
+
+    long span = properties.getSegmentSpan().toSeconds();
+    Map<Long, List<ArchivedEvent>> byRange = new TreeMap<>();
+    List<Long> ids = new ArrayList<>(batch.size());
+    for (DeviceEvent event : batch) {
+      long rangeStart = Math.floorDiv(event.getTimestamp().toEpochSecond(ZoneOffset.UTC), span) * span;
+      byRange.computeIfAbsent(rangeStart, _ -> new ArrayList<>()).add(new ArchivedEvent(
+          event.getId(),
+          event.getDevice().getDeviceId(),
+          event.getEventType(),
+          event.getDescription(),
+          event.getTimestamp()));
+      ids.add(event.getId());
+    }
+
+    List<Path> written = new ArrayList<>();
+    TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+      @Override
+      public void afterCompletion(int status) {
+        if (status == STATUS_COMMITTED) {
+          publish(commit(written));
+        } else {
+          discard(written);
+        }
+      }
+    });
+
+    try {
+      for (Map.Entry<Long, List<ArchivedEvent>> entry : byRange.entrySet()) {
+        long rangeStart = entry.getKey();
+        written.add(EventSegmentWriter.write(directory, rangeStart, rangeStart + span,
+            entry.getValue(), properties.getBlockSize()));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Failed to write event segment", e);
+    }
+    deviceEventRepository.deleteAllByIdInBatch(ids);
+    return batch.size();
+  }
+
+  private synchronized void publish(List<Path> written) {
+    List<EventSegment> updated = new ArrayList<>(segments);
+    for (Path path : written) {
+      try {
+        updated.add(EventSegment.open(path));
+      } catch (IOException e) {
+        log.error("Archived segment {} could not be opened", path, e);
+      }
+    }
+    updated.sort(NEWEST_FIRST);
+    segments = List.copyOf(updated);
+  }
+
+  private List<Path> commit(List<Path> written) {
+    List<Path> committed = new ArrayList<>(written.size());
+    for (Path path : written) {
+      try {
+        committed.add(EventSegmentWriter.commit(path));
+      } catch (IOException e) {
+        // Left pending, and resolved at the next startup
+        log.error("Failed to rename archived segment {}", path, e);
+      }
+    }
+    return committed;
+  }
+
+  private void discard(List<Path> written) {
+    for (Path path : written) {
+      try {
+        Files.deleteIfExists(path);
+      } catch (IOException e) {
+        log.error("Failed to remove segment {} of a rolled back archive batch", path, e);
+      }
+    }
+  }
+
+}
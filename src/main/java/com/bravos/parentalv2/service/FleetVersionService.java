@@ -0,0 +1,91 @@
+package com.bravos.parentalv2.service;
+
+import com.bravos.parentalv2.event.DeviceChangedEvent;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.util.ArrayDeque;
+import java.util.LinkedHashSet;
+import java.util.Optional;
+import java.util.Set;
+
+/**
+ * In-memory version counter for the device list plus a bounded log of which devices changed at which version.
+ * <p>
+ * The counter starts from the wall clock so versions keep increasing across restarts, and is bumped after each
+ * committed device change.
+ */
+@Service
+public class FleetVersionService {
+
+  public record Delta(long version, Set<String> changed, Set<String> removed) {
+  }
+
+  private record Change(long version, String deviceId, boolean removed) {
+  }
+
+  private final int changeLogSize;
+  private final ArrayDeque<Change> changeLog;
+  private final long startVersion;
+
+  private volatile long version;
+
+  public FleetVersionService(@Value("${app.fleet.change-log-size:10000}") int changeLogSize) {
+    this.changeLogSize = changeLogSize;
+    this.changeLog = new ArrayDeque<>(changeLogSize);
+    this.startVersion = System.currentTimeMillis();
+    this.version = startVersion;
+  }
+
+  @TransactionalEventListener(fallbackExecution = true)
+  public void onDeviceChanged(DeviceChangedEvent event) {
+    synchronized (changeLog) {
+      if (changeLog.size() == changeLogSize) {
+        changeLog.removeFirst();
+      }
+      long next = version + 1;
+      changeLog.addLast(new Change(next, event.device().getDeviceId(),
+          event.change() == DeviceChangedEvent.Change.DELETED));
+      version = next;
+    }
+  }
+
+  public long currentVersion() {
+    return version;
+  }
+
+  public String currentETag() {
+    return "\"" + version + "\"";
+  }
+
+  /**
+   * Devices changed or removed after {@code since}, or empty when that version is unknown or no longer covered by
+   * the change log and the caller has to fall back to a full listing.
+   */
+  public Optional<Delta> changesSince(long since) {
+    synchronized (changeLog) {
+      Change oldest = changeLog.peekFirst();
+      long coveredFrom = oldest != null && changeLog.size() == changeLogSize ? oldest.version() - 1 : startVersion;
+      if (since > version || since < coveredFrom) {
+        return Optional.empty();
+      }
+      Set<String> changed = new LinkedHashSet<>();
+      Set<String> removed = new LinkedHashSet<>();
+      for (Change change : changeLog) {
+        if (change.version() <= since) {
+          continue;
+        }
+        if (change.removed()) {
+          changed.remove(change.deviceId());
+          removed.add(change.deviceId());
+        } else {
+          removed.remove(change.deviceId());
+          changed.add(change.deviceId());
+        }
+      }
+      return Optional.of(new Delta(version, changed, removed));
+    }
+  }
+
+}
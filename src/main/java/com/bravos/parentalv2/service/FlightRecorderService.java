@@ -0,0 +1,144 @@
+package com.bravos.parentalv2.service;
+
+import com.bravos.parentalv2.config.FlightRecorderProperties;
+import com.bravos.parentalv2.dto.RecordingRequest;
+import com.bravos.parentalv2.dto.RecordingResponse;
+import jakarta.annotation.PreDestroy;
+import jdk.jfr.Configuration;
+import jdk.jfr.Recording;
+import jdk.jfr.RecordingState;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.text.ParseException;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * Starts and stops an in-process JDK Flight Recorder recording on demand. The recording includes the
+ * {@code com.bravos.parentalv2.*} events next to the JVM's own GC, lock and I/O events. Only one recording
+ * runs at a time; it is written to {@code app.jfr.directory} when stopped, or when its duration runs out.
+ */
+@Service
+public class FlightRecorderService {
+
+  private static final Logger log = LoggerFactory.getLogger(FlightRecorderService.class);
+  private static final DateTimeFormatter FILE_TIMESTAMP = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss");
+
+  private final FlightRecorderProperties properties;
+
+  private Recording current;
+  private String currentSettings;
+
+  public FlightRecorderService(FlightRecorderProperties properties) {
+    this.properties = properties;
+  }
+
+  public synchronized RecordingResponse start(RecordingRequest request) {
+    if (current != null && current.getState() == RecordingState.RUNNING) {
+      throw new IllegalArgumentException("Recording " + current.getId() + " is already running");
+    }
+    closeCurrent();
+    String settings = request.getSettings() != null ? request.getSettings() : properties.getSettings();
+    Duration duration = request.getDurationSeconds() != null
+        ? Duration.ofSeconds(Math.clamp(request.getDurationSeconds(), 1, properties.getMaxDuration().toSeconds()))
+        : properties.getMaxDuration();
+    try {
+      Path directory = Files.createDirectories(Path.of(properties.getDirectory()));
+      Recording recording = new Recording(Configuration.getConfiguration(settings));
+      recording.setName("parentalv2-" + LocalDateTime.now().format(FILE_TIMESTAMP));
+      recording.setMaxAge(properties.getMaxAge());
+      recording.setMaxSize(properties.getMaxSize().toBytes());
+      recording.setDuration(duration);
+      recording.setToDisk(true);
+      recording.setDestination(directory.resolve(recording.getName() + ".jfr"));
+      recording.start();
+      current = recording;
+      currentSettings = settings;
+      log.info("Started JFR recording {} ({} settings, up to {})", recording.getName(), settings, duration);
+      return toResponse(recording);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not prepare JFR recording", e);
+    } catch (ParseException e) {
+      throw new IllegalStateException("Built-in JFR configuration " + settings + " is unreadable", e);
+    }
+  }
+
+  /**
+   * Stops the running recording, which writes it to its file.
+   */
+  public synchronized RecordingResponse stop() {
+    Recording recording = requireCurrent();
+    if (recording.getState() == RecordingState.RUNNING) {
+      recording.stop();
+      log.info("Stopped JFR recording {}, written to {}", recording.getName(), recording.getDestination());
+    }
+    return toResponse(recording);
+  }
+
+  /**
+   * Writes what has been recorded so far to a separate file, leaving the recording running.
+   */
+  public synchronized RecordingResponse snapshot() {
+    Recording recording = requireCurrent();
+    if (recording.getState() != RecordingState.RUNNING) {
+      return toResponse(recording);
+    }
+    Path file = recording.getDestination().resolveSibling(
+        recording.getName() + "-snapshot-" + LocalDateTime.now().format(FILE_TIMESTAMP) + ".jfr");
+    try {
+      recording.dump(file);
+    } catch (IOException e) {
+      throw new UncheckedIOException("Could not dump JFR recording", e);
+    }
+    log.info("Dumped JFR recording {} to {}", recording.getName(), file);
+    RecordingResponse response = toResponse(recording);
+    response.setFile(file.toString());
+    return response;
+  }
+
+  public synchronized RecordingResponse status() {
+    return toResponse(requireCurrent());
+  }
+
+  @PreDestroy
+  public synchronized void shutdown() {
+    if (current != null && current.getState() == RecordingState.RUNNING) {
+      current.stop();
+    }
+    closeCurrent();
+  }
+
+  private Recording requireCurrent() {
+    if (current == null) {
+      throw new IllegalArgumentException("No recording has been started");
+    }
+    return current;
+  }
+
+  private void closeCurrent() {
+    if (current != null) {
+      current.close();
+      current = null;
+    }
+  }
+
+  private RecordingResponse toResponse(Recording recording) {
+    return RecordingResponse.builder()
+        .id(recording.getId())
+        .name(recording.getName())
+        .state(recording.getState().name())
+        .settings(currentSettings)
+        .startedAt(recording.getStartTime())
+        .stoppedAt(recording.getState() == RecordingState.RUNNING ? null : recording.getStopTime())
+        .file(recording.getDestination() != null ? recording.getDestination().toString() : null)
+        .build();
+  }
+
+}
@@ -0,0 +1,117 @@
+package com.bravos.parentalv2.service;
+
+import com.bravos.parentalv2.config.PasswordHashingProperties;
+import com.bravos.parentalv2.exception.ServiceUnavailableException;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Runs BCrypt on a small dedicated pool so a burst of logins cannot occupy every core and request thread.
+ * When the queue is full or a hash does not finish in time the caller gets a 503 instead of waiting.
+ */
+@Service
+public class PasswordHasher {
+
+  private static final int RETRY_AFTER_SECONDS = 5;
+
+  private final PasswordEncoder passwordEncoder;
+  private final ThreadPoolExecutor executor;
+  private final long timeoutNanos;
+  private final Timer matchTimer;
+  private final Timer encodeTimer;
+  private final Counter rejected;
+
+  public PasswordHasher(PasswordEncoder passwordEncoder,
+                        PasswordHashingProperties properties,
+                        MeterRegistry meterRegistry) {
+    this.passwordEncoder = passwordEncoder;
+    int threads = properties.getThreads() > 0
+        ? properties.getThreads()
+        : Math.max(1, Runtime.getRuntime().availableProcessors() / 4);
+    this.executor = new ThreadPoolExecutor(threads, threads, 0, TimeUnit.MILLISECONDS,
+        new ArrayBlockingQueue<>(properties.getQueueCapacity()),
+        Thread.ofPlatform().name("password-hash-", 0).daemon(true).factory(),
+        new ThreadPoolExecutor.AbortPolicy());
+    this.timeoutNanos = properties.getTimeout().toNanos();
+    this.matchTimer = Timer.builder("auth.password.hash").tag("operation", "matches").register(meterRegistry);
+    this.encodeTimer = Timer.builder("auth.password.hash").tag("operation", "encode").register(meterRegistry);
+    this.rejected = Counter.builder("auth.password.rejected")
+        .description("Password hashing requests shed because the pool was saturated")
+        .register(meterRegistry);
+    Gauge.builder("auth.password.queue", executor, e -> e.getQueue().size())
+        .description("Password hashing requests waiting for a thread")
+        .register(meterRegistry);
+  }
+
+  public boolean matches(String rawPassword, String encodedPassword) {
+    return run(() -> matchTimer.record(() -> passwordEncoder.matches(rawPassword, encodedPassword)));
+  }
+
+  public String encode(String rawPassword) {
+    return run(() -> encodeTimer.record(() -> passwordEncoder.encode(rawPassword)));
+  }
+
+  /**
+   * Whether the stored hash was made with a different cost than the configured one. Cheap; no hashing involved.
+   */
+  public boolean needsRehash(String encodedPassword) {
+    return passwordEncoder.upgradeEncoding(encodedPassword);
+  }
+
+  @PreDestroy
+  public void shutdown() {
+    executor.shutdownNow();
+  }
+
+  private <T> T run(Callable<T> task) {
+    long deadline = System.nanoTime() + timeoutNanos;
+    Future<T> future;
+    try {
+      future = executor.submit(() -> {
+        // Skip work whose caller has already given up while it sat in the queue
+        if (System.nanoTime() - deadline > 0) {
+          throw new TimeoutException();
+        }
+        return task.call();
+      });
+    } catch (RejectedExecutionException e) {
+      rejected.increment();
+      throw new ServiceUnavailableException("Too many login attempts in progress", RETRY_AFTER_SECONDS);
+    }
+    try {
+      return future.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+    } catch (TimeoutException e) {
+      future.cancel(true);
+      rejected.increment();
+      throw new ServiceUnavailableException("Too many login attempts in progress", RETRY_AFTER_SECONDS);
+    } catch (InterruptedException e) {
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new ServiceUnavailableException("Interrupted while hashing password", RETRY_AFTER_SECONDS);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException runtime) {
+        throw runtime;
+      }
+      if (e.getCause() instanceof TimeoutException) {
+        rejected.increment();
+        throw new ServiceUnavailableException("Too many login attempts in progress", RETRY_AFTER_SECONDS);
+      }
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+}
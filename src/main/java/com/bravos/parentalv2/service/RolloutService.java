@@ -0,0 +1,222 @@
+package com.bravos.parentalv2.service;
+
+import com.bravos.parentalv2.dto.RolloutRequest;
+import com.bravos.parentalv2.dto.RolloutResponse;
+import com.bravos.parentalv2.exception.RolloutNotFoundException;
+import com.bravos.parentalv2.model.RolloutState;
+import com.bravos.parentalv2.websocket.DeviceSessionManager;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Service;
+import tools.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sends a command to the online fleet in waves, with a pause between waves and random per-device jitter inside
+ * each wave, so disruptive commands do not make every device drop and reconnect at the same moment.
+ */
+@Service
+public class RolloutService {
+
+  private static final Logger log = LoggerFactory.getLogger(RolloutService.class);
+  private static final int MAX_RETAINED = 50;
+
+  private final DeviceSessionManager sessionManager;
+  private final DeviceCommandService deviceCommandService;
+  private final CommandLatencyTracker latencyTracker;
+  private final ObjectMapper objectMapper;
+  private final Map<String, Rollout> rollouts = Collections.synchronizedMap(new LinkedHashMap<>() {
+    @Override
+    protected boolean removeEldestEntry(Map.Entry<String, Rollout> eldest) {
+      return size() > MAX_RETAINED && eldest.getValue().state != RolloutState.RUNNING;
+    }
+  });
+
+  public RolloutService(DeviceSessionManager sessionManager,
+                        DeviceCommandService deviceCommandService,
+                        CommandLatencyTracker latencyTracker,
+                        ObjectMapper objectMapper) {
+    this.sessionManager = sessionManager;
+    this.deviceCommandService = deviceCommandService;
+    this.latencyTracker = latencyTracker;
+    this.objectMapper = objectMapper;
+  }
+
+  public RolloutResponse start(RolloutRequest request) {
+    List<String> targets = new ArrayList<>(sessionManager.getOnlineDeviceIds());
+    Collections.shuffle(targets);
+    Rollout rollout = new Rollout(UUID.randomUUID().toString(), request, targets);
+    rollouts.put(rollout.id, rollout);
+    Thread.ofVirtual().name("rollout-" + rollout.id).start(() -> run(rollout));
+    log.info("Rollout {} started: {} to {} devices in {} waves",
+        rollout.id, request.getCommandType(), targets.size(), rollout.totalWaves);
+    return rollout.toResponse();
+  }
+
+  public RolloutResponse get(String id) {
+    return find(id).toResponse();
+  }
+
+  public List<RolloutResponse> list() {
+    synchronized (rollouts) {
+      return rollouts.values().stream().map(Rollout::toResponse).toList().reversed();
+    }
+  }
+
+  public RolloutResponse abort(String id) {
+    Rollout rollout = find(id);
+    if (rollout.state == RolloutState.RUNNING) {
+      // The coordinator is never interrupted: it must still record what the current wave delivered
+      rollout.aborted = true;
+      rollout.abortSignal.countDown();
+      ExecutorService wave = rollout.currentWave;
+      if (wave != null) {
+        wave.shutdownNow();
+      }
+    }
+    return rollout.toResponse();
+  }
+
+  private Rollout find(String id) {
+    Rollout rollout = rollouts.get(id);
+    if (rollout == null) {
+      throw new RolloutNotFoundException(id);
+    }
+    return rollout;
+  }
+
+  private void run(Rollout rollout) {
+    RolloutRequest request = rollout.request;
+    String commandJson = objectMapper.writeValueAsString(Map.of(
+        "type", "command",
+        "command", request.getCommandType().name(),
+        "delaySeconds", request.getDelaySeconds()));
+    String desc = String.format("Rollout %s with %ds delay", request.getCommandType(), request.getDelaySeconds());
+    try {
+      for (int from = 0; from < rollout.targets.size() && !rollout.aborted; from += request.getWaveSize()) {
+        if (from > 0 && rollout.abortSignal.await(request.getWaveDelaySeconds(), TimeUnit.SECONDS)) {
+          break;
+        }
+        List<String> wave = rollout.targets.subList(from, Math.min(from + request.getWaveSize(), rollout.targets.size()));
+        List<String> sent = sendWave(rollout, wave, commandJson);
+        // Whatever interrupted the wave, the commands it delivered have taken effect and must be on record
+        boolean interrupted = Thread.interrupted();
+        deviceCommandService.recordCommand(sent, request.getCommandType(), desc);
+        if (interrupted) {
+          Thread.currentThread().interrupt();
+          rollout.aborted = true;
+          break;
+        }
+        rollout.completedWaves.incrementAndGet();
+      }
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      rollout.aborted = true;
+    } catch (Exception e) {
+      log.error("Rollout {} failed", rollout.id, e);
+      rollout.aborted = true;
+    } finally {
+      rollout.finishedAt = LocalDateTime.now();
+      rollout.state = rollout.aborted ? RolloutState.ABORTED : RolloutState.COMPLETED;
+      log.info("Rollout {} {}: sent {}, offline {}, failed {}", rollout.id, rollout.state,
+          rollout.sent.get(), rollout.offline.get(), rollout.failed.get());
+    }
+  }
+
+  private List<String> sendWave(Rollout rollout, List<String> wave, String commandJson) {
+    List<String> sent = Collections.synchronizedList(new ArrayList<>(wave.size()));
+    int jitter = rollout.request.getJitterMillis();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      rollout.currentWave = executor;
+      for (String deviceId : wave) {
+        executor.execute(() -> {
+          long commandId = 0;
+          try {
+            if (jitter > 0) {
+              Thread.sleep(ThreadLocalRandom.current().nextInt(jitter + 1));
+            }
+            if (rollout.aborted) {
+              return;
+            }
+            if (!sessionManager.isOnline(deviceId)) {
+              rollout.offline.incrementAndGet();
+              return;
+            }
+            commandId = latencyTracker.commandSent(deviceId, rollout.request.getCommandType(),
+                rollout.request.getDelaySeconds());
+            sessionManager.sendToDevice(deviceId, commandJson);
+            sent.add(deviceId);
+            rollout.sent.incrementAndGet();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+          } catch (IOException | IllegalStateException e) {
+            latencyTracker.commandFailed(deviceId, commandId);
+            log.warn("Rollout {} could not reach device {}: {}", rollout.id, deviceId, e.getMessage());
+            rollout.failed.incrementAndGet();
+          }
+        });
+      }
+    } finally {
+      rollout.currentWave = null;
+    }
+    return sent;
+  }
+
+  private static final class Rollout {
+
+    private final String id;
+    private final RolloutRequest request;
+    private final List<String> targets;
+    private final int totalWaves;
+    private final LocalDateTime startedAt = LocalDateTime.now();
+    private final AtomicInteger completedWaves = new AtomicInteger();
+    private final AtomicInteger sent = new AtomicInteger();
+    private final AtomicInteger offline = new AtomicInteger();
+    private final AtomicInteger failed = new AtomicInteger();
+
+    private volatile RolloutState state = RolloutState.RUNNING;
+    private volatile boolean aborted;
+    private volatile LocalDateTime finishedAt;
+    private final CountDownLatch abortSignal = new CountDownLatch(1);
+    private volatile ExecutorService currentWave;
+
+    private Rollout(String id, RolloutRequest request, List<String> targets) {
+      this.id = id;
+      this.request = request;
+      this.targets = List.copyOf(targets);
+      this.totalWaves = (targets.size() + request.getWaveSize() - 1) / request.getWaveSize();
+    }
+
+    private RolloutResponse toResponse() {
+      return RolloutResponse.builder()
+          .id(id)
+          .commandType(request.getCommandType())
+          .state(state)
+          .totalDevices(targets.size())
+          .totalWaves(totalWaves)
+          .completedWaves(completedWaves.get())
+          .sent(sent.get())
+          .offline(offline.get())
+          .failed(failed.get())
+          .startedAt(startedAt)
+          .finishedAt(finishedAt)
+          .build();
+    }
+
+  }
+
+}
@@ -0,0 +1,155 @@
+package com.bravos.parentalv2.service;
+
+import com.bravos.parentalv2.config.WarmupProperties;
+import com.bravos.parentalv2.dto.DeviceResponse;
+import com.bravos.parentalv2.model.DeviceSort;
+import com.bravos.parentalv2.model.EventType;
+import com.bravos.parentalv2.model.LockStatus;
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import tools.jackson.databind.JsonNode;
+import tools.jackson.databind.ObjectMapper;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs the device and admin hot paths against a scratch device before the application reports ready, so the
+ * first devices to reconnect after a deploy meet compiled Jackson and Hibernate code and an open connection
+ * pool. Every round runs in a transaction that is rolled back, leaving no trace in the database or the admin
+ * feed.
+ * <p>
+ * As an {@link ApplicationRunner} it delays the readiness state; {@code WebSocketAuthInterceptor} refuses
+ * device handshakes until then.
+ */
+@Service
+public class WarmupService implements ApplicationRunner {
+
+  private static final Logger log = LoggerFactory.getLogger(WarmupService.class);
+
+  private static final String REGISTER_FRAME =
+      "{\"type\":\"register\",\"deviceId\":\"%s\",\"deviceName\":\"warm-up\",\"ipAddress\":\"127.0.0.1\"}";
+  private static final String STATUS_FRAME = "{\"type\":\"status\",\"lockStatus\":\"UNLOCKED\"}";
+  private static final String EVENT_FRAME = "{\"type\":\"event\",\"eventType\":\"UNLOCK\",\"description\":\"warm-up\"}";
+
+  private final WarmupProperties properties;
+  private final DeviceService deviceService;
+  private final DeviceEventService deviceEventService;
+  private final HikariDataSource writeDataSource;
+  private final HikariDataSource readDataSource;
+  private final TransactionTemplate transactionTemplate;
+  private final ObjectMapper objectMapper;
+
+  private volatile long durationNanos;
+
+  public WarmupService(WarmupProperties properties,
+                       DeviceService deviceService,
+                       DeviceEventService deviceEventService,
+                       @Qualifier("writeDataSource") HikariDataSource writeDataSource,
+                       @Qualifier("readDataSource") HikariDataSource readDataSource,
+                       PlatformTransactionManager transactionManager,
+                       ObjectMapper objectMapper,
+                       MeterRegistry registry) {
+    this.properties = properties;
+    this.deviceService = deviceService;
+    this.deviceEventService = deviceEventService;
+    this.writeDataSource = writeDataSource;
+    this.readDataSource = readDataSource;
+    this.transactionTemplate = new TransactionTemplate(transactionManager);
+    this.objectMapper = objectMapper;
+    TimeGauge.builder("app.warmup.duration", this, TimeUnit.NANOSECONDS, service -> service.durationNanos)
+        .description("Time spent warming up before accepting device connections")
+        .register(registry);
+  }
+
+  @Override
+  public void run(ApplicationArguments args) {
+    if (!properties.isEnabled()) {
+      return;
+    }
+    long start = System.nanoTime();
+    long deadline = start + properties.getMaxDuration().toNanos();
+    if (properties.isPrefillPools()) {
+      prefill(writeDataSource);
+      prefill(readDataSource);
+    }
+    String scratchId = "warmup-" + UUID.randomUUID();
+    int rounds = 0;
+    try {
+      while (rounds < properties.getIterations() && System.nanoTime() < deadline) {
+        round(scratchId);
+        rounds++;
+      }
+    } catch (RuntimeException e) {
+      log.warn("Warm-up stopped after {} rounds: {}", rounds, e.getMessage());
+    }
+    durationNanos = System.nanoTime() - start;
+    log.info("Warm-up finished in {} ms ({} rounds, pools write={} read={})",
+        TimeUnit.NANOSECONDS.toMillis(durationNanos), rounds,
+        openConnections(writeDataSource), openConnections(readDataSource));
+  }
+
+  private void round(String scratchId) {
+    JsonNode register = objectMapper.readTree(REGISTER_FRAME.formatted(scratchId));
+    LockStatus status = LockStatus.valueOf(objectMapper.readTree(STATUS_FRAME).path("lockStatus").asString());
+    JsonNode event = objectMapper.readTree(EVENT_FRAME);
+
+    transactionTemplate.executeWithoutResult(tx -> {
+      tx.setRollbackOnly();
+      deviceService.registerOrUpdate(register.path("deviceId").asString(), register.path("deviceName").asString(),
+          register.path("ipAddress").asString());
+      deviceService.updateLockStatus(scratchId, status);
+      deviceEventService.logEvent(scratchId, EventType.valueOf(event.path("eventType").asString()),
+          event.path("description").asString());
+      deviceEventService.getEventsForDevice(scratchId, 0, 20);
+      DeviceResponse device = deviceService.getDevice(scratchId);
+      objectMapper.writeValueAsString(device);
+      deviceService.markOffline(scratchId);
+    });
+
+    objectMapper.writeValueAsString(deviceService.getDevicePage(null, null, null, DeviceSort.LAST_SEEN, true,
+        null, 50));
+    objectMapper.writeValueAsString(Map.of("type", "command", "command", "LOCK", "delaySeconds", 60));
+  }
+
+  private static int openConnections(HikariDataSource pool) {
+    return pool.getHikariPoolMXBean() != null ? pool.getHikariPoolMXBean().getTotalConnections() : 0;
+  }
+
+  /**
+   * Checks out as many connections as the pool allows at once, so all of them stay open for the first burst.
+   */
+  private void prefill(HikariDataSource pool) {
+    List<Connection> connections = new ArrayList<>();
+    try {
+      for (int i = 0; i < pool.getMaximumPoolSize(); i++) {
+        connections.add(pool.getConnection());
+      }
+    } catch (SQLException e) {
+      log.warn("Could not pre-fill pool {}: {}", pool.getPoolName(), e.getMessage());
+    } finally {
+      for (Connection connection : connections) {
+        try {
+          connection.close();
+        } catch (SQLException e) {
+          log.debug("Error returning warm-up connection to pool {}", pool.getPoolName(), e);
+        }
+      }
+    }
+  }
+
+}
@@ -0,0 +1,157 @@
+package com.bravos.parentalv2.websocket;
+
+import com.bravos.parentalv2.config.ConcurrencyLimiter;
+import com.bravos.parentalv2.config.ConcurrencyLimiters;
+import com.bravos.parentalv2.config.IngestProperties;
+import com.bravos.parentalv2.config.WorkloadClass;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Runs work for each device in submission order on a virtual thread, so the WebSocket I/O threads never block
+ * on the database. Different devices run concurrently, up to the adaptive {@link WorkloadClass#INGEST} limit,
+ * so tasks wait here rather than inside Hikari. A mailbox and its thread exist only while work is queued.
+ */
+@Component
+public class DeviceMailboxes {
+
+  private static final Logger log = LoggerFactory.getLogger(DeviceMailboxes.class);
+
+  private final Map<String, Mailbox> mailboxes = new ConcurrentHashMap<>();
+  private final ConcurrencyLimiters limiters;
+  private final int capacity;
+
+  public DeviceMailboxes(IngestProperties properties, ConcurrencyLimiters limiters, DeviceMetrics metrics) {
+    this.limiters = limiters;
+    this.capacity = properties.getMailboxCapacity();
+    metrics.gauge("ws.mailboxes.active", "Devices with queued or running work", mailboxes::size);
+  }
+
+  /**
+   * @return false if the device already has too much work queued and the task was dropped
+   */
+  public boolean submit(String deviceId, Runnable task) {
+    return submit(deviceId, task, true);
+  }
+
+  /**
+   * Queues work that must run whatever the backlog, such as marking a device offline. Each connection submits
+   * at most one such task, so the queue stays bounded by the connection count.
+   */
+  public void submitLifecycle(String deviceId, Runnable task) {
+    submit(deviceId, task, false);
+  }
+
+  public int activeMailboxes() {
+    return mailboxes.size();
+  }
+
+  private boolean submit(String deviceId, Runnable task, boolean bounded) {
+    while (true) {
+      Mailbox mailbox = mailboxes.computeIfAbsent(deviceId, _ -> new Mailbox());
+      boolean start;
+      synchronized (mailbox) {
+        if (mailbox.closed) {
+          continue;
+        }
+        if (bounded && mailbox.queue.size() >= capacity) {
+          log.warn("Mailbox for device {} is full, dropping task", deviceId);
+          return false;
+        }
+        mailbox.queue.add(task);
+        start = !mailbox.running;
+        mailbox.running = true;
+      }
+      if (start) {
+        start(deviceId, mailbox);
+      }
+      return true;
+    }
+  }
+
+  private void start(String deviceId, Mailbox mailbox) {
+    Thread.ofVirtual().name("device-", 0).start(() -> drain(deviceId, mailbox));
+  }
+
+  private void drain(String deviceId, Mailbox mailbox) {
+    boolean retired = false;
+    try {
+      retired = runQueued(deviceId, mailbox);
+    } finally {
+      if (!retired) {
+        // Left through an interrupt or an Error: hand any remaining work to a fresh thread
+        reschedule(deviceId, mailbox);
+      }
+    }
+  }
+
+  /**
+   * @return true once the queue is empty and the mailbox retired, false if draining stopped early
+   */
+  private boolean runQueued(String deviceId, Mailbox mailbox) {
+    while (true) {
+      Runnable task;
+      synchronized (mailbox) {
+        task = mailbox.queue.poll();
+        if (task == null) {
+          retire(deviceId, mailbox);
+          return true;
+        }
+      }
+      ConcurrencyLimiter.Permit permit;
+      try {
+        permit = limiters.acquire(WorkloadClass.INGEST);
+      } catch (InterruptedException e) {
+        synchronized (mailbox) {
+          mailbox.queue.addFirst(task);
+        }
+        Thread.currentThread().interrupt();
+        return false;
+      }
+      boolean dropped = false;
+      try {
+        task.run();
+      } catch (Exception e) {
+        dropped = ConcurrencyLimiters.isCapacityFailure(e);
+        log.error("Task for device {} failed: {}", deviceId, e.getMessage(), e);
+      } finally {
+        permit.release(dropped);
+      }
+    }
+  }
+
+  private void reschedule(String deviceId, Mailbox mailbox) {
+    boolean remaining;
+    synchronized (mailbox) {
+      remaining = !mailbox.queue.isEmpty();
+      if (!remaining) {
+        retire(deviceId, mailbox);
+      }
+    }
+    if (remaining) {
+      log.warn("Mailbox drain for device {} stopped early, restarting", deviceId);
+      start(deviceId, mailbox);
+    }
+  }
+
+  // Called holding the mailbox lock; a concurrent submit will see it closed and create a fresh one
+  private void retire(String deviceId, Mailbox mailbox) {
+    mailbox.running = false;
+    mailbox.closed = true;
+    mailboxes.remove(deviceId, mailbox);
+  }
+
+  private static final class Mailbox {
+
+    private final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+    private boolean running;
+    private boolean closed;
+
+  }
+
+}
@@ -0,0 +1,111 @@
+package com.bravos.parentalv2.websocket;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+/**
+ * Meters for the device WebSocket path. Every meter is registered up front and held in a field or array, so
+ * recording never goes through the registry's lookup.
+ */
+@Component
+public class DeviceMetrics {
+
+  public enum MessageType {
+    REGISTER, STATUS, EVENT, UNKNOWN;
+
+    private final String tag = name().toLowerCase();
+  }
+
+  public enum Outcome {
+    ACCEPTED, INVALID, DROPPED, ERROR;
+
+    private final String tag = name().toLowerCase();
+  }
+
+  private final MeterRegistry registry;
+  private final Counter[][] inbound = new Counter[MessageType.values().length][Outcome.values().length];
+  private final Timer[] handling = new Timer[MessageType.values().length];
+  private final Timer disconnectHandling;
+  private final Timer send;
+  private final Counter sendFailures;
+  private final Counter handshakeAccepted;
+  private final Counter handshakeRejected;
+  private final Counter handshakeNotReady;
+
+  public DeviceMetrics(MeterRegistry registry) {
+    this.registry = registry;
+    for (MessageType type : MessageType.values()) {
+      for (Outcome outcome : Outcome.values()) {
+        inbound[type.ordinal()][outcome.ordinal()] = Counter.builder("ws.messages.inbound")
+            .description("Inbound device frames by type and outcome")
+            .tag("type", type.tag)
+            .tag("outcome", outcome.tag)
+            .register(registry);
+      }
+      handling[type.ordinal()] = Timer.builder("ws.messages.handling")
+          .description("Time spent applying an inbound device frame")
+          .tag("type", type.tag)
+          .publishPercentileHistogram()
+          .register(registry);
+    }
+    this.disconnectHandling = Timer.builder("ws.messages.handling")
+        .description("Time spent applying an inbound device frame")
+        .tag("type", "disconnect")
+        .publishPercentileHistogram()
+        .register(registry);
+    this.send = Timer.builder("ws.send")
+        .description("Time to write one outbound frame to a device session")
+        .publishPercentileHistogram()
+        .register(registry);
+    this.sendFailures = Counter.builder("ws.send.failures")
+        .description("Outbound frames that could not be written")
+        .register(registry);
+    this.handshakeAccepted = Counter.builder("ws.handshakes")
+        .tag("outcome", "accepted")
+        .register(registry);
+    this.handshakeRejected = Counter.builder("ws.handshakes")
+        .tag("outcome", "rejected")
+        .register(registry);
+    this.handshakeNotReady = Counter.builder("ws.handshakes")
+        .tag("outcome", "not_ready")
+        .register(registry);
+  }
+
+  public void gauge(String name, String description, Supplier<Number> value) {
+    Gauge.builder(name, value).description(description).register(registry);
+  }
+
+  public void inbound(MessageType type, Outcome outcome) {
+    inbound[type.ordinal()][outcome.ordinal()].increment();
+  }
+
+  public Timer handling(MessageType type) {
+    return handling[type.ordinal()];
+  }
+
+  public Timer disconnectHandling() {
+    return disconnectHandling;
+  }
+
+  public void recordSend(long startNanos, boolean success) {
+    send.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+    if (!success) {
+      sendFailures.increment();
+    }
+  }
+
+  public void handshake(boolean accepted) {
+    (accepted ? handshakeAccepted : handshakeRejected).increment();
+  }
+
+  public void handshakeNotReady() {
+    handshakeNotReady.increment();
+  }
+
+}
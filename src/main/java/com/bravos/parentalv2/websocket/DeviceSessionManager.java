@@ -1,5 +1,7 @@
 package com.bravos.parentalv2.websocket;
 
+import com.bravos.parentalv2.jfr.DeviceSendEvent;
+import com.bravos.parentalv2.model.CommandOutcome;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.stereotype.Component;
@@ -7,44 +9,73 @@ import org.springframework.web.socket.TextMessage;
 import org.springframework.web.socket.WebSocketSession;
 
 import java.io.IOException;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 @Component
 public class DeviceSessionManager {
 
   private static final Logger log = LoggerFactory.getLogger(DeviceSessionManager.class);
 
+  /**
+   * Session attribute holding the device a session is bound to. The reverse lookup lives on the session itself
+   * rather than in a second map keyed by session id, which would cost an entry and a key string per connection.
+   */
+  static final String DEVICE_ID_ATTRIBUTE = "deviceId";
+
   private final Map<String, WebSocketSession> deviceSessions = new ConcurrentHashMap<>();
-  private final Map<String, String> sessionToDevice = new ConcurrentHashMap<>();
+  private final DeviceMetrics metrics;
+
+  public DeviceSessionManager(DeviceMetrics metrics) {
+    this.metrics = metrics;
+    metrics.gauge("ws.sessions.active", "Registered device sessions", deviceSessions::size);
+  }
 
+  /**
+   * Binds the session to the device, closing the session it replaces. Safe against a concurrent register or
+   * remove for the same device: the registry ends up pointing at exactly one open session.
+   */
   public void registerSession(String deviceId, WebSocketSession session) {
-    WebSocketSession existingSession = deviceSessions.get(deviceId);
-    if (existingSession != null && existingSession.isOpen()) {
+    Object previousDevice = session.getAttributes().put(DEVICE_ID_ATTRIBUTE, deviceId);
+    if (previousDevice != null && !previousDevice.equals(deviceId)) {
+      deviceSessions.remove((String) previousDevice, session);
+    }
+    WebSocketSession existingSession = deviceSessions.put(deviceId, session);
+    if (existingSession != null && existingSession != session && existingSession.isOpen()) {
       try {
         existingSession.close();
       } catch (IOException e) {
         log.warn("Error closing existing session for device {}", deviceId, e);
       }
     }
-
-    deviceSessions.put(deviceId, session);
-    sessionToDevice.put(session.getId(), deviceId);
     log.info("Device registered: {} (session: {})", deviceId, session.getId());
   }
 
-  public void removeSession(WebSocketSession session) {
-    String deviceId = sessionToDevice.remove(session.getId());
-    if (deviceId != null) {
-      deviceSessions.remove(deviceId);
+  /**
+   * Unbinds a closed session.
+   *
+   * @return true if it was still the device's current session, false if it had already been replaced
+   */
+  public boolean removeSession(WebSocketSession session) {
+    String deviceId = (String) session.getAttributes().remove(DEVICE_ID_ATTRIBUTE);
+    if (deviceId == null) {
+      return false;
+    }
+    boolean current = deviceSessions.remove(deviceId, session);
+    if (current) {
       log.info("Device unregistered: {} (session: {})", deviceId, session.getId());
     }
+    return current;
   }
 
   public String getDeviceId(WebSocketSession session) {
-    return sessionToDevice.get(session.getId());
+    return (String) session.getAttributes().get(DEVICE_ID_ATTRIBUTE);
   }
 
   public WebSocketSession getSession(String deviceId) {
@@ -63,17 +94,49 @@ public class DeviceSessionManager {
   public void sendToDevice(String deviceId, String message) throws IOException {
     WebSocketSession session = deviceSessions.get(deviceId);
     if (session != null && session.isOpen()) {
-      session.sendMessage(new TextMessage(message));
+      send(session, new TextMessage(message));
     } else {
       throw new IOException("Device " + deviceId + " is not connected");
     }
   }
 
+  /**
+   * Sends the message to each listed device in parallel and reports the outcome per device, in input order.
+   */
+  public Map<String, CommandOutcome> sendToDevices(Collection<String> deviceIds, String message) {
+    TextMessage textMessage = new TextMessage(message);
+    Map<String, CommandOutcome> outcomes = new ConcurrentHashMap<>();
+    try (ExecutorService executor = Executors.newVirtualThreadPerTaskExecutor()) {
+      for (String deviceId : deviceIds) {
+        WebSocketSession session = deviceSessions.get(deviceId);
+        if (session == null || !session.isOpen()) {
+          outcomes.put(deviceId, CommandOutcome.OFFLINE);
+          continue;
+        }
+        executor.execute(() -> {
+          try {
+            send(session, textMessage);
+            outcomes.put(deviceId, CommandOutcome.SENT);
+          } catch (IOException | IllegalStateException e) {
+            log.warn("Error sending message to device {}: {}", deviceId, e.getMessage());
+            outcomes.put(deviceId, CommandOutcome.FAILED);
+          }
+        });
+      }
+    }
+    Map<String, CommandOutcome> ordered = new LinkedHashMap<>();
+    for (String deviceId : deviceIds) {
+      ordered.put(deviceId, outcomes.get(deviceId));
+    }
+    return ordered;
+  }
+
   public void sendToAll(String message) {
+    TextMessage textMessage = new TextMessage(message);
     deviceSessions.forEach((deviceId, session) -> {
       if (session.isOpen()) {
         try {
-          session.sendMessage(new TextMessage(message));
+          send(session, textMessage);
         } catch (IOException e) {
           log.error("Error sending message to device {}", deviceId, e);
         }
@@ -81,4 +144,37 @@ public class DeviceSessionManager {
     });
   }
 
+  /**
+   * Sends on the same serialized path as commands and broadcasts, for replies that are not addressed by device id.
+   */
+  public void sendToSession(WebSocketSession session, String message) throws IOException {
+    send(session, new TextMessage(message));
+  }
+
+  /**
+   * Sends one frame, holding the session's monitor: the container rejects a send that overlaps another on the same
+   * session, and a broadcast, a bulk command and a registration ack may all target it at once.
+   */
+  private void send(WebSocketSession session, TextMessage message) throws IOException {
+    DeviceSendEvent event = new DeviceSendEvent();
+    event.begin();
+    long start = System.nanoTime();
+    boolean success = false;
+    try {
+      synchronized (session) {
+        session.sendMessage(message);
+      }
+      success = true;
+    } finally {
+      metrics.recordSend(start, success);
+      event.end();
+      if (event.shouldCommit()) {
+        event.deviceId = getDeviceId(session);
+        event.size = message.getPayloadLength();
+        event.success = success;
+        event.commit();
+      }
+    }
+  }
+
 }
@@ -1,11 +1,16 @@
 package com.bravos.parentalv2.websocket;
 
+import com.bravos.parentalv2.config.SqlAccounting;
+import com.bravos.parentalv2.config.SqlAccountingRecorder;
+import com.bravos.parentalv2.jfr.FrameHandledEvent;
 import com.bravos.parentalv2.model.CommandType;
-import com.bravos.parentalv2.model.Device;
 import com.bravos.parentalv2.model.EventType;
 import com.bravos.parentalv2.model.LockStatus;
-import com.bravos.parentalv2.service.DeviceEventService;
-import com.bravos.parentalv2.service.DeviceService;
+import com.bravos.parentalv2.service.CommandLatencyTracker;
+import com.bravos.parentalv2.service.DeviceIngest;
+import com.bravos.parentalv2.websocket.DeviceMetrics.MessageType;
+import com.bravos.parentalv2.websocket.DeviceMetrics.Outcome;
+import io.micrometer.core.instrument.Timer;
 import org.jspecify.annotations.NonNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +22,7 @@ import org.springframework.web.socket.handler.TextWebSocketHandler;
 import tools.jackson.databind.JsonNode;
 import tools.jackson.databind.ObjectMapper;
 
+import java.io.IOException;
 import java.net.InetAddress;
 import java.util.Map;
 
@@ -25,21 +31,45 @@ public class DeviceWebSocketHandler extends TextWebSocketHandler {
 
   private static final Logger log = LoggerFactory.getLogger(DeviceWebSocketHandler.class);
 
+  /**
+   * Longest event description stored; longer ones are refused with an error frame.
+   */
+  static final int MAX_DESCRIPTION_LENGTH = 255;
+
+  /**
+   * Longest frame reassembled from parts. Frames beyond the container's text buffer arrive in parts instead of
+   * closing the session, and anything past this is discarded with an error frame.
+   */
+  static final int MAX_FRAME_LENGTH = 8192;
+
+  private static final String PARTIAL_FRAME_ATTRIBUTE = "partialFrame";
+
   private final DeviceSessionManager sessionManager;
-  private final DeviceService deviceService;
-  private final DeviceEventService deviceEventService;
+  private final DeviceIngest deviceIngest;
+  private final DeviceMailboxes mailboxes;
+  private final DeviceMetrics metrics;
+  private final SqlAccountingRecorder sqlAccounting;
+  private final CommandLatencyTracker latencyTracker;
   private final ObjectMapper objectMapper;
 
   private final String lockNowMessage;
   private final String okMessage;
+  private final String frameTooLargeMessage;
+  private final String descriptionTooLongMessage;
 
   public DeviceWebSocketHandler(DeviceSessionManager sessionManager,
-                                DeviceService deviceService,
-                                DeviceEventService deviceEventService,
+                                DeviceIngest deviceIngest,
+                                DeviceMailboxes mailboxes,
+                                DeviceMetrics metrics,
+                                SqlAccountingRecorder sqlAccounting,
+                                CommandLatencyTracker latencyTracker,
                                 ObjectMapper objectMapper) {
     this.sessionManager = sessionManager;
-    this.deviceService = deviceService;
-    this.deviceEventService = deviceEventService;
+    this.deviceIngest = deviceIngest;
+    this.mailboxes = mailboxes;
+    this.metrics = metrics;
+    this.sqlAccounting = sqlAccounting;
+    this.latencyTracker = latencyTracker;
     this.objectMapper = objectMapper;
 
     this.lockNowMessage = objectMapper.writeValueAsString(Map.of
@@ -50,6 +80,19 @@ public class DeviceWebSocketHandler extends TextWebSocketHandler {
         )
     );
     this.okMessage = objectMapper.writeValueAsString(Map.of("type", "registered", "status", "ok"));
+    this.frameTooLargeMessage = objectMapper.writeValueAsString(Map.of(
+        "type", "error",
+        "code", "FRAME_TOO_LARGE",
+        "message", "Frames are limited to " + MAX_FRAME_LENGTH + " characters"));
+    this.descriptionTooLongMessage = objectMapper.writeValueAsString(Map.of(
+        "type", "error",
+        "code", "DESCRIPTION_TOO_LONG",
+        "message", "Event descriptions are limited to " + MAX_DESCRIPTION_LENGTH + " characters"));
+  }
+
+  @Override
+  public boolean supportsPartialMessages() {
+    return true;
   }
 
   @Override
@@ -60,16 +103,24 @@ public class DeviceWebSocketHandler extends TextWebSocketHandler {
   @Override
   protected void handleTextMessage(@NonNull WebSocketSession session,
                                    @NonNull TextMessage message) {
+    String payload = assemble(session, message);
+    if (payload == null) {
+      return;
+    }
     try {
-      JsonNode json = objectMapper.readTree(message.getPayload());
+      JsonNode json = objectMapper.readTree(payload);
       String type = json.path("type").asString();
       switch (type) {
         case "register" -> handleRegister(session, json);
         case "status" -> handleStatusUpdate(session, json);
         case "event" -> handleEvent(session, json);
-        default -> log.warn("Unknown message type: {} from session {}", type, session.getId());
+        default -> {
+          metrics.inbound(MessageType.UNKNOWN, Outcome.INVALID);
+          log.warn("Unknown message type: {} from session {}", type, session.getId());
+        }
       }
     } catch (Exception e) {
+      metrics.inbound(MessageType.UNKNOWN, Outcome.ERROR);
       log.error("Error handling message from session {}: {}", session.getId(), e.getMessage(), e);
     }
   }
@@ -83,24 +134,33 @@ public class DeviceWebSocketHandler extends TextWebSocketHandler {
       ipAddress = inetAddress != null ? inetAddress.getHostAddress() : json.path("ipAddress").asString("unknown");
     }
     if (deviceId.isBlank()) {
+      metrics.inbound(MessageType.REGISTER, Outcome.INVALID);
       log.warn("Register message missing deviceId from session {}", session.getId());
       return;
     }
-    Device device = deviceService.registerOrUpdate(deviceId, deviceName, ipAddress);
-    sessionManager.registerSession(device.getDeviceId(), session);
-    deviceEventService.logEvent(device.getDeviceId(), EventType.CONNECT);
-    log.info("Device registered: {} ({}) from {}", device.getDeviceName(), device.getDeviceId(), ipAddress);
-    try {
-      session.sendMessage(new TextMessage(okMessage));
-      session.sendMessage(new TextMessage(lockNowMessage));
-    } catch (Exception e) {
-      log.error("Error sending registration ack to device {}", deviceId, e);
+    // Bind the session right away so status and event frames that follow resolve to this device
+    sessionManager.registerSession(deviceId, session);
+    String resolvedIp = ipAddress;
+    boolean queued = dispatch(deviceId, MessageType.REGISTER, () -> {
+      deviceIngest.register(deviceId, deviceName, resolvedIp);
+      log.info("Device registered: {} ({}) from {}", deviceName, deviceId, resolvedIp);
+      try {
+        sessionManager.sendToSession(session, okMessage);
+        sessionManager.sendToSession(session, lockNowMessage);
+      } catch (Exception e) {
+        log.error("Error sending registration ack to device {}", deviceId, e);
+      }
+    });
+    if (!queued) {
+      // Without the register the device would sit online with no record; make it reconnect instead
+      closeQuietly(session, CloseStatus.SERVICE_OVERLOAD);
     }
   }
 
   private void handleStatusUpdate(WebSocketSession session, JsonNode json) {
     String deviceId = sessionManager.getDeviceId(session);
     if (deviceId == null) {
+      metrics.inbound(MessageType.STATUS, Outcome.INVALID);
       log.warn("Status update from unregistered session {}", session.getId());
       return;
     }
@@ -109,10 +169,10 @@ public class DeviceWebSocketHandler extends TextWebSocketHandler {
     if (!lockStatus.isBlank()) {
       try {
         LockStatus status = LockStatus.valueOf(lockStatus.toUpperCase());
-        deviceService.updateLockStatus(deviceId, status);
-        EventType eventType = status == LockStatus.LOCKED ? EventType.LOCK : EventType.UNLOCK;
-        deviceEventService.logEvent(deviceId, eventType);
+        latencyTracker.statusReported(deviceId, status);
+        dispatch(deviceId, MessageType.STATUS, () -> deviceIngest.lockStatus(deviceId, status));
       } catch (IllegalArgumentException e) {
+        metrics.inbound(MessageType.STATUS, Outcome.INVALID);
         log.warn("Invalid lock status: {} from device {}", lockStatus, deviceId);
       }
     }
@@ -121,32 +181,84 @@ public class DeviceWebSocketHandler extends TextWebSocketHandler {
   private void handleEvent(WebSocketSession session, JsonNode json) {
     String deviceId = sessionManager.getDeviceId(session);
     if (deviceId == null) {
+      metrics.inbound(MessageType.EVENT, Outcome.INVALID);
       log.warn("Event from unregistered session {}", session.getId());
       return;
     }
 
     String eventTypeStr = json.path("eventType").asString();
     String description = json.path("description").asString(null);
+    if (description != null && description.length() > MAX_DESCRIPTION_LENGTH) {
+      metrics.inbound(MessageType.EVENT, Outcome.INVALID);
+      log.warn("Event description of {} characters from device {}", description.length(), deviceId);
+      sendError(session, descriptionTooLongMessage);
+      return;
+    }
     try {
       EventType eventType = EventType.valueOf(eventTypeStr.toUpperCase());
-      deviceEventService.logEvent(deviceId, eventType, description);
+      dispatch(deviceId, MessageType.EVENT, () -> deviceIngest.event(deviceId, eventType, description));
     } catch (IllegalArgumentException e) {
+      metrics.inbound(MessageType.EVENT, Outcome.INVALID);
       log.warn("Invalid event type: {} from device {}", eventTypeStr, deviceId);
     }
   }
 
+  private boolean dispatch(String deviceId, MessageType type, Runnable task) {
+    Timer timer = metrics.handling(type);
+    long enqueuedAt = System.nanoTime();
+    boolean queued = mailboxes.submit(deviceId, () -> {
+      FrameHandledEvent event = new FrameHandledEvent();
+      event.begin();
+      long queueTime = System.nanoTime() - enqueuedAt;
+      Outcome outcome = Outcome.ERROR;
+      try (SqlAccounting.Scope scope = SqlAccounting.begin()) {
+        timer.record(task);
+        outcome = Outcome.ACCEPTED;
+        sqlAccounting.record("ws " + type.name(), scope);
+      } finally {
+        metrics.inbound(type, outcome);
+        event.end();
+        if (event.shouldCommit()) {
+          event.messageType = type.name();
+          event.deviceId = deviceId;
+          event.outcome = outcome.name();
+          event.queueTime = queueTime;
+          event.commit();
+        }
+      }
+    });
+    if (!queued) {
+      metrics.inbound(type, Outcome.DROPPED);
+    }
+    return queued;
+  }
+
   @Override
   public void afterConnectionClosed(@NonNull WebSocketSession session,
                                     @NonNull CloseStatus status) {
     String deviceId = sessionManager.getDeviceId(session);
-    if (deviceId != null) {
-      deviceService.markOffline(deviceId);
-      deviceEventService.logEvent(deviceId, EventType.DISCONNECT);
-      sessionManager.removeSession(session);
-      log.info("Device disconnected: {} (reason: {})", deviceId, status);
-    } else {
+    if (deviceId == null) {
       log.info("Unregistered session disconnected: {}", session.getId());
+      return;
+    }
+    if (!sessionManager.removeSession(session)) {
+      // Replaced by a newer connection of the same device, which must stay online
+      log.info("Replaced session of device {} closed (reason: {})", deviceId, status);
+      return;
     }
+    latencyTracker.deviceDisconnected(deviceId);
+    Timer timer = metrics.disconnectHandling();
+    mailboxes.submitLifecycle(deviceId, () -> {
+      if (sessionManager.isOnline(deviceId)) {
+        // The device reconnected before this ran; its register already marked it online
+        return;
+      }
+      try (SqlAccounting.Scope scope = SqlAccounting.begin()) {
+        timer.record(() -> deviceIngest.disconnected(deviceId));
+        sqlAccounting.record("ws DISCONNECT", scope);
+      }
+    });
+    log.info("Device disconnected: {} (reason: {})", deviceId, status);
   }
 
   @Override
@@ -155,4 +267,59 @@ public class DeviceWebSocketHandler extends TextWebSocketHandler {
     log.error("Transport error for device {}: {}", deviceId != null ? deviceId : session.getId(), exception.getMessage());
   }
 
+  /**
+   * @return the whole frame once its last part has arrived, or null while parts are pending or after an
+   * oversized frame was discarded
+   */
+  private String assemble(WebSocketSession session, TextMessage message) {
+    PartialFrame partial = (PartialFrame) session.getAttributes().get(PARTIAL_FRAME_ATTRIBUTE);
+    if (partial == null) {
+      if (message.isLast()) {
+        return message.getPayload();
+      }
+      partial = new PartialFrame();
+      session.getAttributes().put(PARTIAL_FRAME_ATTRIBUTE, partial);
+    }
+    if (!partial.tooLarge && partial.text.length() + message.getPayloadLength() <= MAX_FRAME_LENGTH) {
+      partial.text.append(message.getPayload());
+    } else {
+      partial.tooLarge = true;
+      partial.text.setLength(0);
+    }
+    if (!message.isLast()) {
+      return null;
+    }
+    session.getAttributes().remove(PARTIAL_FRAME_ATTRIBUTE);
+    if (partial.tooLarge) {
+      metrics.inbound(MessageType.UNKNOWN, Outcome.INVALID);
+      log.warn("Discarded frame over {} characters from session {}", MAX_FRAME_LENGTH, session.getId());
+      sendError(session, frameTooLargeMessage);
+      return null;
+    }
+    return partial.text.toString();
+  }
+
+  private void sendError(WebSocketSession session, String message) {
+    try {
+      sessionManager.sendToSession(session, message);
+    } catch (IOException e) {
+      log.debug("Error sending error frame to session {}: {}", session.getId(), e.getMessage());
+    }
+  }
+
+  private void closeQuietly(WebSocketSession session, CloseStatus status) {
+    try {
+      session.close(status);
+    } catch (IOException e) {
+      log.debug("Error closing session {}: {}", session.getId(), e.getMessage());
+    }
+  }
+
+  private static final class PartialFrame {
+
+    private final StringBuilder text = new StringBuilder();
+    private boolean tooLarge;
+
+  }
+
 }
@@ -0,0 +1,60 @@
+package com.bravos.parentalv2.websocket;
+
+import jakarta.servlet.http.HttpServletRequest;
+import org.jspecify.annotations.NonNull;
+import org.jspecify.annotations.Nullable;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.server.ServerHttpRequest;
+import org.springframework.http.server.ServerHttpResponse;
+import org.springframework.http.server.ServletServerHttpRequest;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketHandler;
+import org.springframework.web.socket.server.HandshakeFailureException;
+import org.springframework.web.socket.server.standard.StandardWebSocketUpgradeStrategy;
+
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Upgrades with only the handshake headers the handler reads later. The session keeps the headers it was opened
+ * with for its whole lifetime; a device handshake carries a dozen of them (cookies, user agent, the secret key),
+ * none needed once the handshake has been authorized.
+ */
+class TrimmedHandshakeUpgradeStrategy extends StandardWebSocketUpgradeStrategy {
+
+  static final List<String> RETAINED_HEADERS = List.of("X-Real-IP");
+
+  @Override
+  public void upgrade(@NonNull ServerHttpRequest request, @NonNull ServerHttpResponse response,
+                      @Nullable String selectedProtocol, @NonNull List<WebSocketExtension> selectedExtensions,
+                      @Nullable Principal user, @NonNull WebSocketHandler wsHandler,
+                      @NonNull Map<String, Object> attrs) throws HandshakeFailureException {
+    ServerHttpRequest upgradeRequest = request instanceof ServletServerHttpRequest servletRequest
+        ? new TrimmedRequest(servletRequest.getServletRequest(), request.getHeaders())
+        : request;
+    super.upgrade(upgradeRequest, response, selectedProtocol, selectedExtensions, user, wsHandler, attrs);
+  }
+
+  private static final class TrimmedRequest extends ServletServerHttpRequest {
+
+    private final HttpHeaders headers = new HttpHeaders();
+
+    TrimmedRequest(HttpServletRequest servletRequest, HttpHeaders original) {
+      super(servletRequest);
+      for (String name : RETAINED_HEADERS) {
+        List<String> values = original.getOrEmpty(name);
+        if (!values.isEmpty()) {
+          headers.addAll(name, values);
+        }
+      }
+    }
+
+    @Override
+    public @NonNull HttpHeaders getHeaders() {
+      return headers;
+    }
+
+  }
+
+}
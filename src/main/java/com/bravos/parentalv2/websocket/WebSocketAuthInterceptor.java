@@ -1,10 +1,14 @@
 package com.bravos.parentalv2.websocket;
 
+import com.bravos.parentalv2.jfr.HandshakeEvent;
 import com.bravos.parentalv2.service.WebSocketSecretService;
 import jakarta.servlet.http.HttpServletRequest;
 import org.jspecify.annotations.NonNull;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.boot.availability.ApplicationAvailability;
+import org.springframework.boot.availability.ReadinessState;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.server.ServerHttpRequest;
 import org.springframework.http.server.ServerHttpResponse;
@@ -21,15 +25,46 @@ public class WebSocketAuthInterceptor implements HandshakeInterceptor {
   private static final Logger log = LoggerFactory.getLogger(WebSocketAuthInterceptor.class);
   private static final String SECRET_KEY_HEADER = "X-Secret-Key";
 
+  private static final String NOT_READY_RETRY_AFTER_SECONDS = "5";
+
   private final WebSocketSecretService secretService;
+  private final DeviceMetrics metrics;
+  private final ApplicationAvailability availability;
 
-  public WebSocketAuthInterceptor(WebSocketSecretService secretService) {
+  public WebSocketAuthInterceptor(WebSocketSecretService secretService, DeviceMetrics metrics,
+                                  ApplicationAvailability availability) {
     this.secretService = secretService;
+    this.metrics = metrics;
+    this.availability = availability;
   }
 
   @Override
   public boolean beforeHandshake(@NonNull ServerHttpRequest request, @NonNull ServerHttpResponse response,
                                  @NonNull WebSocketHandler wsHandler, @NonNull Map<String, Object> attributes) {
+    HandshakeEvent event = new HandshakeEvent();
+    event.begin();
+    boolean accepted = false;
+    try {
+      accepted = authorize(request, response);
+      return accepted;
+    } finally {
+      event.end();
+      if (event.shouldCommit()) {
+        event.remoteAddress = String.valueOf(request.getRemoteAddress());
+        event.accepted = accepted;
+        event.commit();
+      }
+    }
+  }
+
+  private boolean authorize(ServerHttpRequest request, ServerHttpResponse response) {
+    // Refused while warming up and while shutting down; devices retry after the hinted delay
+    if (availability.getReadinessState() != ReadinessState.ACCEPTING_TRAFFIC) {
+      response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+      response.getHeaders().set(HttpHeaders.RETRY_AFTER, NOT_READY_RETRY_AFTER_SECONDS);
+      metrics.handshakeNotReady();
+      return false;
+    }
     String secretKey = null;
     if (!request.getHeaders().isEmpty()) {
       secretKey = request.getHeaders().getFirst(SECRET_KEY_HEADER);
@@ -42,8 +77,10 @@ public class WebSocketAuthInterceptor implements HandshakeInterceptor {
     if (!secretService.validateKey(secretKey)) {
       log.warn("WebSocket connection rejected: invalid or missing secret key from {}", request.getRemoteAddress());
       response.setStatusCode(HttpStatus.UNAUTHORIZED);
+      metrics.handshake(false);
       return false;
     }
+    metrics.handshake(true);
     log.debug("WebSocket handshake authorized from {}", request.getRemoteAddress());
     return true;
   }
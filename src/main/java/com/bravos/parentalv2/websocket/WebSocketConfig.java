@@ -1,11 +1,14 @@
 package com.bravos.parentalv2.websocket;
 
+import com.bravos.parentalv2.config.WebSocketProperties;
+import org.springframework.boot.tomcat.TomcatConnectorCustomizer;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.web.socket.config.annotation.EnableWebSocket;
 import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
 import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
 import org.springframework.web.socket.server.standard.ServletServerContainerFactoryBean;
+import org.springframework.web.socket.server.support.DefaultHandshakeHandler;
 
 @Configuration
 @EnableWebSocket
@@ -13,16 +16,20 @@ public class WebSocketConfig implements WebSocketConfigurer {
 
   private final DeviceWebSocketHandler deviceWebSocketHandler;
   private final WebSocketAuthInterceptor webSocketAuthInterceptor;
+  private final WebSocketProperties properties;
 
   public WebSocketConfig(DeviceWebSocketHandler deviceWebSocketHandler,
-                         WebSocketAuthInterceptor webSocketAuthInterceptor) {
+                         WebSocketAuthInterceptor webSocketAuthInterceptor,
+                         WebSocketProperties properties) {
     this.deviceWebSocketHandler = deviceWebSocketHandler;
     this.webSocketAuthInterceptor = webSocketAuthInterceptor;
+    this.properties = properties;
   }
 
   @Override
   public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
     registry.addHandler(deviceWebSocketHandler, "/ws/device")
+        .setHandshakeHandler(new DefaultHandshakeHandler(new TrimmedHandshakeUpgradeStrategy()))
         .addInterceptors(webSocketAuthInterceptor)
         .setAllowedOrigins("*");
   }
@@ -30,9 +37,18 @@ public class WebSocketConfig implements WebSocketConfigurer {
   @Bean
   public ServletServerContainerFactoryBean createWebSocketContainer() {
     ServletServerContainerFactoryBean container = new ServletServerContainerFactoryBean();
-    container.setMaxTextMessageBufferSize(8 * 1024);
-    container.setMaxBinaryMessageBufferSize(8 * 1024);
+    container.setMaxTextMessageBufferSize((int) properties.getTextBufferSize().toBytes());
+    container.setMaxBinaryMessageBufferSize((int) properties.getBinaryBufferSize().toBytes());
     return container;
   }
 
+  @Bean
+  public TomcatConnectorCustomizer connectionBufferCustomizer() {
+    String socketBufferSize = String.valueOf(properties.getSocketBufferSize().toBytes());
+    return connector -> {
+      connector.setProperty("socket.appReadBufSize", socketBufferSize);
+      connector.setProperty("socket.appWriteBufSize", socketBufferSize);
+    };
+  }
+
 }
@@ -0,0 +1,66 @@
+package com.bravos.parentalv2.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.FilterChain;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ConcurrencyLimitFilterTest {
+
+  @Test
+  void singleDeviceCommandsPassDuringBroadcast() throws Exception {
+    DataSourcePoolProperties pools = new DataSourcePoolProperties();
+    pools.getWrite().setMaximumPoolSize(2);
+    ConcurrencyLimiters limiters = new ConcurrencyLimiters(new ConcurrencyLimitProperties(), pools,
+        new IngestProperties(), new SimpleMeterRegistry());
+    ConcurrencyLimitFilter filter = new ConcurrencyLimitFilter(limiters);
+
+    CountDownLatch broadcasting = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    FilterChain slowBroadcast = (_, _) -> {
+      broadcasting.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    };
+    Thread broadcast = Thread.ofVirtual().start(() -> {
+      try {
+        filter.doFilter(post("/api/devices/command"), new MockHttpServletResponse(), slowBroadcast);
+      } catch (Exception e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    assertThat(broadcasting.await(5, TimeUnit.SECONDS)).isTrue();
+
+    // The fan-out slot is taken: another broadcast is shed...
+    MockHttpServletResponse second = new MockHttpServletResponse();
+    filter.doFilter(post("/api/devices/bulk/command"), second, (_, _) -> { });
+    assertThat(second.getStatus()).isEqualTo(503);
+
+    // ...while commands to single devices keep the whole command limit
+    for (int i = 0; i < 20; i++) {
+      MockHttpServletResponse response = new MockHttpServletResponse();
+      filter.doFilter(post("/api/devices/PC-0" + (i % 3) + "/command"), response, (_, _) -> { });
+      assertThat(response.getStatus()).isEqualTo(200);
+    }
+    assertThat(limiters.tryAcquire(WorkloadClass.COMMAND)).isNotNull();
+
+    release.countDown();
+    broadcast.join();
+  }
+
+  private static MockHttpServletRequest post(String uri) {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", uri);
+    request.setRequestURI(uri);
+    return request;
+  }
+
+}
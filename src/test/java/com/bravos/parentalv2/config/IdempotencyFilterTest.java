@@ -0,0 +1,89 @@
+package com.bravos.parentalv2.config;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.Test;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.util.unit.DataSize;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class IdempotencyFilterTest {
+
+  private final IdempotencyProperties properties = new IdempotencyProperties();
+  private final IdempotencyFilter filter = new IdempotencyFilter(new InMemoryIdempotencyStore(properties), properties);
+  private final AtomicInteger executions = new AtomicInteger();
+
+  @Test
+  void replaysSameBodyAndRefusesDifferentBody() throws Exception {
+    FilterChain ok = respondWith(200);
+
+    assertThat(send("k1", "{\"commandType\":\"LOCK\"}", ok).getStatus()).isEqualTo(200);
+    MockHttpServletResponse replay = send("k1", "{\"commandType\":\"LOCK\"}", ok);
+    assertThat(replay.getStatus()).isEqualTo(200);
+    assertThat(replay.getHeader("Idempotent-Replayed")).isEqualTo("true");
+    assertThat(send("k1", "{\"commandType\":\"SHUTDOWN\"}", ok).getStatus()).isEqualTo(422);
+    assertThat(executions).hasValue(1);
+  }
+
+  @Test
+  void retryableOutcomesAreNotStored() throws Exception {
+    assertThat(send("k2", "{}", respondWith(429)).getStatus()).isEqualTo(429);
+    assertThat(send("k2", "{}", respondWith(503)).getStatus()).isEqualTo(503);
+    assertThat(send("k2", "{}", respondWith(200)).getStatus()).isEqualTo(200);
+    assertThat(executions).hasValue(3);
+  }
+
+  @Test
+  void oversizedBodyIsRefusedBeforeItRuns() throws Exception {
+    properties.setMaxRequestSize(DataSize.ofBytes(16));
+    IdempotencyFilter limited = new IdempotencyFilter(new InMemoryIdempotencyStore(properties), properties);
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/devices/bulk/command");
+    request.addHeader(IdempotencyFilter.HEADER, "k3");
+    request.setContent("{\"deviceIds\":[\"PC-01\",\"PC-02\"]}".getBytes(StandardCharsets.UTF_8));
+    MockHttpServletResponse response = new MockHttpServletResponse();
+
+    limited.doFilter(request, response, respondWith(200));
+
+    assertThat(response.getStatus()).isEqualTo(413);
+    assertThat(executions).hasValue(0);
+  }
+
+  @Test
+  void inFlightKeySurvivesLruPressure() {
+    properties.setMaxEntries(1);
+    InMemoryIdempotencyStore store = new InMemoryIdempotencyStore(properties);
+
+    assertThat(store.claim("slow", "h").acquired()).isTrue();
+    for (int i = 0; i < 10; i++) {
+      store.claim("k" + i, "h");
+      store.complete("k" + i, new IdempotencyStore.StoredResponse(200, null, new byte[0]));
+    }
+
+    IdempotencyStore.Claim retry = store.claim("slow", "h");
+    assertThat(retry.acquired()).isFalse();
+    assertThat(retry.response()).isNull();
+  }
+
+  private FilterChain respondWith(int status) {
+    return (request, response) -> {
+      executions.incrementAndGet();
+      request.getInputStream().readAllBytes();
+      ((HttpServletResponse) response).setStatus(status);
+    };
+  }
+
+  private MockHttpServletResponse send(String key, String body, FilterChain chain) throws Exception {
+    MockHttpServletRequest request = new MockHttpServletRequest("POST", "/api/devices/PC-01/command");
+    request.addHeader(IdempotencyFilter.HEADER, key);
+    request.setContent(body.getBytes(StandardCharsets.UTF_8));
+    MockHttpServletResponse response = new MockHttpServletResponse();
+    filter.doFilter(request, response, chain);
+    return response;
+  }
+
+}
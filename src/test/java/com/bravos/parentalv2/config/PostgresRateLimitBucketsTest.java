@@ -0,0 +1,78 @@
+package com.bravos.parentalv2.config;
+
+import com.zaxxer.hikari.HikariDataSource;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class PostgresRateLimitBucketsTest {
+
+  private final List<HikariDataSource> pools = new ArrayList<>();
+
+  @AfterEach
+  void closePools() {
+    pools.forEach(HikariDataSource::close);
+  }
+
+  @Test
+  void loginFloodOnBusyLimiterPoolFailsOpenFastAndLeavesWritePoolAlone() throws Exception {
+    HikariDataSource writePool = pool("write", 5, Duration.ofSeconds(30));
+    HikariDataSource limiterPool = pool("ratelimit", 2, Duration.ofMillis(250));
+    RateLimitProperties properties = new RateLimitProperties();
+    properties.setPolicies(List.of(new RateLimitProperties.Policy("/api/auth/login", 5, Duration.ofMinutes(2))));
+    RouteRateLimiter limiter = new RouteRateLimiter(properties,
+        new PostgresRateLimitBuckets(limiterPool, properties), new SimpleMeterRegistry());
+
+    // Every limiter connection is taken, e.g. by checks stuck behind another node's row lock
+    List<Connection> held = List.of(limiterPool.getConnection(), limiterPool.getConnection());
+    try (ExecutorService flood = Executors.newVirtualThreadPerTaskExecutor()) {
+      List<Future<Long>> checks = IntStream.range(0, 50)
+          .mapToObj(i -> flood.submit(() -> {
+            long start = System.nanoTime();
+            assertThat(limiter.tryConsume("/api/auth/login", "10.0.0." + i)).isZero();
+            return System.nanoTime() - start;
+          }))
+          .toList();
+
+      // Ingest and commands keep getting write connections while the flood waits on its own pool
+      for (int i = 0; i < 20; i++) {
+        long start = System.nanoTime();
+        try (Connection _ = writePool.getConnection()) {
+          assertThat(Duration.ofNanos(System.nanoTime() - start)).isLessThan(Duration.ofMillis(100));
+        }
+      }
+      assertThat(writePool.getHikariPoolMXBean().getThreadsAwaitingConnection()).isZero();
+
+      for (Future<Long> check : checks) {
+        assertThat(Duration.ofNanos(check.get())).isLessThan(Duration.ofSeconds(1));
+      }
+    } finally {
+      for (Connection connection : held) {
+        connection.close();
+      }
+    }
+  }
+
+  private HikariDataSource pool(String name, int size, Duration connectionTimeout) {
+    HikariDataSource pool = new HikariDataSource();
+    pool.setPoolName(name);
+    pool.setDataSource(new StubDataSource());
+    pool.setMaximumPoolSize(size);
+    pool.setMinimumIdle(size);
+    pool.setConnectionTimeout(connectionTimeout.toMillis());
+    pools.add(pool);
+    return pool;
+  }
+
+}
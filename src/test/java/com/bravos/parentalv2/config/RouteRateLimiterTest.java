@@ -0,0 +1,30 @@
+package com.bravos.parentalv2.config;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RouteRateLimiterTest {
+
+  @Test
+  void fullTableTurnsAwayOnlyNewClients() {
+    RateLimitProperties properties = new RateLimitProperties();
+    properties.setMaxBucketsPerRoute(2);
+    properties.setPolicies(List.of(new RateLimitProperties.Policy("/api/auth/login", 2, Duration.ofMinutes(2))));
+    RouteRateLimiter limiter = new RouteRateLimiter(properties, new LocalRateLimitBuckets(), new SimpleMeterRegistry());
+
+    assertThat(limiter.tryConsume("/api/auth/login", "10.0.0.1")).isZero();
+    assertThat(limiter.tryConsume("/api/auth/login", "10.0.0.2")).isZero();
+
+    // The newcomer is refused, and exhausting nothing on its behalf leaves the tracked clients' budgets intact
+    assertThat(limiter.tryConsume("/api/auth/login", "10.0.0.3")).isPositive();
+    assertThat(limiter.tryConsume("/api/auth/login", "10.0.0.1")).isZero();
+    assertThat(limiter.tryConsume("/api/auth/login", "10.0.0.2")).isZero();
+    assertThat(limiter.tryConsume("/api/auth/login", "10.0.0.1")).isPositive();
+  }
+
+}
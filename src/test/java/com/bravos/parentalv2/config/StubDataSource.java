@@ -0,0 +1,70 @@
+package com.bravos.parentalv2.config;
+
+import javax.sql.DataSource;
+import java.io.PrintWriter;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.util.logging.Logger;
+
+/**
+ * Hands out connections that accept every call and do nothing, for testing pool behaviour without a database.
+ */
+final class StubDataSource implements DataSource {
+
+  @Override
+  public Connection getConnection() {
+    return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+        (_, method, _) -> {
+          Class<?> type = method.getReturnType();
+          if (type == boolean.class) {
+            return method.getName().equals("isValid");
+          }
+          if (type == int.class) {
+            return 0;
+          }
+          if (type == long.class) {
+            return 0L;
+          }
+          return null;
+        });
+  }
+
+  @Override
+  public Connection getConnection(String username, String password) {
+    return getConnection();
+  }
+
+  @Override
+  public PrintWriter getLogWriter() {
+    return null;
+  }
+
+  @Override
+  public void setLogWriter(PrintWriter out) {
+  }
+
+  @Override
+  public void setLoginTimeout(int seconds) {
+  }
+
+  @Override
+  public int getLoginTimeout() {
+    return 0;
+  }
+
+  @Override
+  public Logger getParentLogger() {
+    return Logger.getGlobal();
+  }
+
+  @Override
+  public <T> T unwrap(Class<T> type) {
+    return null;
+  }
+
+  @Override
+  public boolean isWrapperFor(Class<?> type) {
+    return false;
+  }
+
+}
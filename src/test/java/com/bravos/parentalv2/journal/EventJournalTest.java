@@ -0,0 +1,85 @@
+package com.bravos.parentalv2.journal;
+
+import com.bravos.parentalv2.config.JournalProperties;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+
+import static com.bravos.parentalv2.journal.JournalReaderTest.event;
+import static com.bravos.parentalv2.journal.JournalReaderTest.frame;
+import static com.bravos.parentalv2.journal.JournalReaderTest.writeSegment;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class EventJournalTest {
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void recoveryTruncatesTornTailAndContinuesSequence() throws Exception {
+    byte[] first = frame(event(1));
+    byte[] second = frame(event(2));
+    byte[] torn = frame(event(3));
+    writeSegment(directory, 1, first, second, Arrays.copyOf(torn, torn.length - 3));
+
+    EventJournal journal = start();
+    try {
+      assertThat(journal.durableMark()).isEqualTo(new EventJournal.DurableMark(1, first.length + second.length, 2));
+      assertThat(Files.size(EventJournal.segmentPath(directory, 1))).isEqualTo(first.length + second.length);
+
+      journal.append(JournalEntry.offline("PC-01"));
+
+      assertThat(journal.durableMark().sequence()).isEqualTo(3);
+    } finally {
+      journal.stop();
+    }
+    try (JournalReader reader = JournalReader.open(directory, 3)) {
+      assertThat(reader.next(10, new EventJournal.DurableMark(-1, 0, 3), (_, e) -> {
+        throw e;
+      })).extracting(JournalEntry::type).containsExactly(JournalEntry.Type.OFFLINE);
+    }
+  }
+
+  @Test
+  void checkpointRoundTrips() throws IOException {
+    assertThat(JournalCheckpoint.read(directory)).isZero();
+
+    JournalCheckpoint.write(directory, 41);
+    JournalCheckpoint.write(directory, 42);
+
+    assertThat(JournalCheckpoint.read(directory)).isEqualTo(42);
+    assertThat(directory.resolve("checkpoint.tmp")).doesNotExist();
+  }
+
+  @Test
+  void onlyFullyAppliedClosedSegmentsAreDeleted() throws Exception {
+    writeSegment(directory, 1, frame(event(1)), frame(event(2)), frame(event(3)));
+    writeSegment(directory, 4, frame(event(4)), frame(event(5)), frame(event(6)));
+    writeSegment(directory, 7, frame(event(7)));
+
+    EventJournal journal = start();
+    try {
+      journal.deleteSegmentsUpTo(5);
+      assertThat(EventJournal.listSegments(directory)).containsOnlyKeys(4L, 7L);
+
+      // The active segment stays even once everything in it is applied
+      journal.deleteSegmentsUpTo(7);
+      assertThat(EventJournal.listSegments(directory)).containsOnlyKeys(7L);
+    } finally {
+      journal.stop();
+    }
+  }
+
+  private EventJournal start() throws IOException {
+    JournalProperties properties = new JournalProperties();
+    properties.setDirectory(directory.toString());
+    EventJournal journal = new EventJournal(properties);
+    journal.start();
+    return journal;
+  }
+
+}
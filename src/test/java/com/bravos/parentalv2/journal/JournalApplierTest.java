@@ -0,0 +1,115 @@
+package com.bravos.parentalv2.journal;
+
+import com.bravos.parentalv2.config.JournalProperties;
+import com.bravos.parentalv2.exception.DeviceNotFoundException;
+import com.bravos.parentalv2.service.DeviceService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.AbstractPlatformTransactionManager;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.util.concurrent.TimeUnit;
+
+import static com.bravos.parentalv2.journal.JournalReaderTest.event;
+import static com.bravos.parentalv2.journal.JournalReaderTest.frame;
+import static com.bravos.parentalv2.journal.JournalReaderTest.undecodable;
+import static com.bravos.parentalv2.journal.JournalReaderTest.writeSegment;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JournalApplierTest {
+
+  /**
+   * Stands in for the database, which no longer knows any device.
+   */
+  private static final class UnknownDevices extends DeviceService {
+
+    UnknownDevices() {
+      super(null, null, null, null);
+    }
+
+    @Override
+    public void markOffline(String deviceId, LocalDateTime seenAt) {
+      throw new DeviceNotFoundException(deviceId);
+    }
+
+  }
+
+  private static final class NoOpTransactionManager extends AbstractPlatformTransactionManager {
+
+    @Override
+    protected Object doGetTransaction() {
+      return new Object();
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+    }
+
+  }
+
+  @TempDir
+  Path directory;
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+
+  @Test
+  void undecodableFrameIsDeadLetteredAndPassed() throws Exception {
+    byte[] frame = undecodable(event(1));
+    writeSegment(directory, 1, frame);
+
+    runUntilApplied(1);
+
+    assertThat(Files.readAllBytes(directory.resolve(JournalApplier.DEAD_LETTER_FILE))).isEqualTo(frame);
+    assertThat(registry.get("journal.dead.letters").tag("reason", "ArrayIndexOutOfBoundsException").counter()
+        .count()).isEqualTo(1);
+  }
+
+  @Test
+  void entryRejectedByDatabaseIsDeadLetteredAndPassed() throws Exception {
+    JournalEntry offline = new JournalEntry(1, JournalEntry.Type.OFFLINE, 1_000, "PC-01", null, null, null, null,
+        null);
+    writeSegment(directory, 1, frame(offline));
+
+    runUntilApplied(1);
+
+    assertThat(Files.readAllBytes(directory.resolve(JournalApplier.DEAD_LETTER_FILE))).isEqualTo(frame(offline));
+    assertThat(registry.get("journal.dead.letters").tag("reason", "DeviceNotFoundException").counter().count())
+        .isEqualTo(1);
+    assertThat(registry.get("journal.applier.lag").gauge().value()).isZero();
+  }
+
+  private void runUntilApplied(long sequence) throws Exception {
+    JournalProperties properties = new JournalProperties();
+    properties.setDirectory(directory.toString());
+    EventJournal journal = new EventJournal(properties);
+    journal.start();
+    JournalApplier applier = new JournalApplier(journal, properties, new UnknownDevices(), null, null,
+        new NoOpTransactionManager(), null, registry);
+    applier.start();
+    try {
+      long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+      while (JournalCheckpoint.read(directory) < sequence && System.nanoTime() < deadline) {
+        Thread.sleep(10);
+      }
+      assertThat(applier.getAppliedSequence()).isEqualTo(sequence);
+      assertThat(registry.get("journal.applier.alive").gauge().value()).isEqualTo(1);
+    } finally {
+      applier.stop();
+      journal.stop();
+    }
+  }
+
+}
@@ -0,0 +1,123 @@
+package com.bravos.parentalv2.journal;
+
+import com.bravos.parentalv2.model.EventType;
+import com.bravos.parentalv2.model.LockStatus;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class JournalReaderTest {
+
+  // Never the segment being read, so every segment is read to its end
+  private static final EventJournal.DurableMark ALL_CLOSED = new EventJournal.DurableMark(-1, 0, Long.MAX_VALUE);
+
+  @TempDir
+  Path directory;
+
+  @Test
+  void framesRoundTripAcrossSegmentsFromStartingSequence() throws IOException {
+    writeSegment(directory, 1, frame(event(1)), frame(lockStatus(2)));
+    writeSegment(directory, 3, frame(event(3)));
+
+    try (JournalReader reader = JournalReader.open(directory, 2)) {
+      List<JournalEntry> entries = reader.next(10, ALL_CLOSED, (_, e) -> {
+        throw e;
+      });
+
+      assertThat(entries).containsExactly(lockStatus(2), event(3));
+      assertThat(reader.lastSequence()).isEqualTo(3);
+    }
+  }
+
+  @Test
+  void tornOrCorruptTailIsSkippedUpToNextSegment() throws IOException {
+    byte[] corrupt = frame(event(2));
+    corrupt[corrupt.length - 1] ^= 1;
+    writeSegment(directory, 1, frame(event(1)), corrupt, frame(event(3)));
+    byte[] torn = frame(event(5));
+    writeSegment(directory, 4, frame(event(4)), Arrays.copyOf(torn, torn.length / 2));
+    writeSegment(directory, 6, frame(event(6)));
+
+    try (JournalReader reader = JournalReader.open(directory, 1)) {
+      assertThat(reader.next(10, ALL_CLOSED, (_, e) -> {
+        throw e;
+      })).containsExactly(event(1), event(4), event(6));
+    }
+  }
+
+  @Test
+  void activeSegmentIsNotReadPastDurableMark() throws IOException {
+    byte[] first = frame(event(1));
+    writeSegment(directory, 1, first, frame(event(2)));
+
+    try (JournalReader reader = JournalReader.open(directory, 1)) {
+      EventJournal.DurableMark mark = new EventJournal.DurableMark(1, first.length, 1);
+      assertThat(reader.next(10, mark, (_, e) -> {
+        throw e;
+      })).containsExactly(event(1));
+    }
+  }
+
+  @Test
+  void undecodableFrameIsHandedOverAndSkipped() throws IOException {
+    writeSegment(directory, 1, frame(event(1)), undecodable(event(2)), frame(event(3)));
+    List<byte[]> skipped = new ArrayList<>();
+
+    try (JournalReader reader = JournalReader.open(directory, 1)) {
+      List<JournalEntry> entries = reader.next(10, ALL_CLOSED, (body, _) -> skipped.add(body));
+
+      assertThat(entries).containsExactly(event(1), event(3));
+      assertThat(skipped).hasSize(1);
+      assertThat(JournalCodec.sequence(skipped.getFirst())).isEqualTo(2);
+    }
+  }
+
+  static JournalEntry event(long sequence) {
+    return new JournalEntry(sequence, JournalEntry.Type.EVENT, 1_000L * sequence, "PC-01", null, null, null,
+        EventType.LOCK, "event " + sequence);
+  }
+
+  static JournalEntry lockStatus(long sequence) {
+    return new JournalEntry(sequence, JournalEntry.Type.LOCK_STATUS, 1_000L * sequence, "PC-01", null, null,
+        LockStatus.LOCKED, null, null);
+  }
+
+  static byte[] frame(JournalEntry entry) throws IOException {
+    return bytes(JournalCodec.encode(entry));
+  }
+
+  /**
+   * A frame with a valid checksum whose entry type no longer exists.
+   */
+  static byte[] undecodable(JournalEntry entry) throws IOException {
+    byte[] frame = frame(entry);
+    byte[] body = Arrays.copyOfRange(frame, 4, frame.length - 4);
+    body[Long.BYTES] = 99;
+    return bytes(JournalCodec.frame(body));
+  }
+
+  static void writeSegment(Path directory, long firstSeq, byte[]... frames) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    for (byte[] frame : frames) {
+      out.write(frame);
+    }
+    Files.write(EventJournal.segmentPath(directory, firstSeq), out.toByteArray());
+  }
+
+  private static byte[] bytes(ByteBuffer buffer) {
+    byte[] bytes = new byte[buffer.remaining()];
+    buffer.get(bytes);
+    return bytes;
+  }
+
+}
@@ -0,0 +1,145 @@
+package com.bravos.parentalv2.service;
+
+import com.bravos.parentalv2.config.AuthProperties;
+import com.bravos.parentalv2.dto.TokenResponse;
+import com.bravos.parentalv2.model.Admin;
+import com.bravos.parentalv2.model.RefreshTokenFamily;
+import com.bravos.parentalv2.repository.AdminRepository;
+import com.bravos.parentalv2.repository.RefreshTokenFamilyRepository;
+import org.junit.jupiter.api.Test;
+import org.springframework.security.authentication.BadCredentialsException;
+import org.springframework.security.core.Authentication;
+
+import java.lang.reflect.Proxy;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class AuthTokenServiceTest {
+
+  private final Admin admin = Admin.builder().username("admin").password("$2a$10$hash").build();
+  private final Map<String, RefreshTokenFamily> families = new HashMap<>();
+  private final AdminRepository adminRepository = stub(AdminRepository.class, (method, args) -> {
+    if (method.equals("findByUsername")) {
+      return Optional.ofNullable(admin.getUsername().equals(args[0]) ? admin : null);
+    }
+    throw new UnsupportedOperationException(method);
+  });
+  private final RefreshTokenFamilyRepository familyRepository = stub(RefreshTokenFamilyRepository.class,
+      (method, args) -> switch (method) {
+        case "save" -> {
+          RefreshTokenFamily family = (RefreshTokenFamily) args[0];
+          families.put(family.getId(), family);
+          yield family;
+        }
+        case "findById" -> Optional.ofNullable(families.get(args[0]));
+        case "rotate" -> {
+          RefreshTokenFamily family = families.get(args[0]);
+          if (family == null || !family.getCurrentJti().equals(args[1]) || family.getRevokedAt() != null
+              || !family.getExpiresAt().isAfter((LocalDateTime) args[3])) {
+            yield 0;
+          }
+          family.setCurrentJti((String) args[2]);
+          yield 1;
+        }
+        case "revoke" -> {
+          RefreshTokenFamily family = families.get(args[0]);
+          if (family == null || family.getRevokedAt() != null) {
+            yield 0;
+          }
+          family.setRevokedAt((LocalDateTime) args[1]);
+          yield 1;
+        }
+        default -> throw new UnsupportedOperationException(method);
+      });
+  private final AuthProperties properties = properties();
+  private final AuthTokenService service = new AuthTokenService(adminRepository, familyRepository, properties);
+
+  @Test
+  void accessTokenNeedsValidSignatureAndType() {
+    TokenResponse tokens = service.issue("admin");
+
+    Authentication authentication = service.authenticate(tokens.getAccessToken());
+    assertThat(authentication.getName()).isEqualTo("admin");
+    assertThat(authentication.getDetails()).isIn(families.keySet());
+
+    String accessToken = tokens.getAccessToken();
+    String otherToken = service.issue("admin").getAccessToken();
+    String payload = accessToken.substring(0, accessToken.indexOf('.'));
+    assertThat(service.authenticate(payload + otherToken.substring(otherToken.indexOf('.')))).isNull();
+    assertThat(service.authenticate(tokens.getRefreshToken())).isNull();
+    assertThat(service.authenticate("not-a-token")).isNull();
+    AuthTokenService otherKey = new AuthTokenService(adminRepository, familyRepository,
+        properties("another-secret-of-32-bytes-or-more"));
+    assertThat(otherKey.authenticate(accessToken)).isNull();
+  }
+
+  @Test
+  void expiredAccessTokenIsRefused() {
+    properties.setAccessTokenTtl(Duration.ZERO);
+
+    assertThat(service.authenticate(service.issue("admin").getAccessToken())).isNull();
+  }
+
+  @Test
+  void replayedRefreshTokenRevokesTheLogin() {
+    TokenResponse first = service.issue("admin");
+    TokenResponse second = service.refresh(first.getRefreshToken());
+
+    assertThatThrownBy(() -> service.refresh(first.getRefreshToken())).isInstanceOf(BadCredentialsException.class);
+    assertThat(families.values()).allSatisfy(family -> assertThat(family.getRevokedAt()).isNotNull());
+    assertThatThrownBy(() -> service.refresh(second.getRefreshToken())).isInstanceOf(BadCredentialsException.class);
+  }
+
+  @Test
+  void passwordChangeInvalidatesRefreshTokens() {
+    TokenResponse tokens = service.issue("admin");
+
+    admin.setPassword("$2a$10$changed");
+
+    assertThatThrownBy(() -> service.refresh(tokens.getRefreshToken())).isInstanceOf(BadCredentialsException.class);
+    assertThat(families.values()).allSatisfy(family -> assertThat(family.getRevokedAt()).isNotNull());
+  }
+
+  @Test
+  void logoutRefusesAccessTokensOnThisInstanceOnly() {
+    AuthTokenService otherInstance = new AuthTokenService(adminRepository, familyRepository, properties);
+    TokenResponse tokens = service.issue("admin");
+
+    service.revoke(service.authenticate(tokens.getAccessToken()));
+
+    assertThat(service.authenticate(tokens.getAccessToken())).isNull();
+    // Elsewhere the access token lapses with its TTL, but the refresh token is dead everywhere
+    assertThat(otherInstance.authenticate(tokens.getAccessToken())).isNotNull();
+    assertThatThrownBy(() -> otherInstance.refresh(tokens.getRefreshToken()))
+        .isInstanceOf(BadCredentialsException.class);
+  }
+
+  private static AuthProperties properties() {
+    return properties("test-secret-that-is-at-least-32-bytes");
+  }
+
+  private static AuthProperties properties(String secret) {
+    AuthProperties properties = new AuthProperties();
+    properties.setMode("token");
+    properties.setTokenSecret(secret);
+    return properties;
+  }
+
+  @FunctionalInterface
+  private interface Calls {
+    Object handle(String method, Object[] args);
+  }
+
+  @SuppressWarnings("unchecked")
+  private static <T> T stub(Class<T> type, Calls calls) {
+    return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type},
+        (_, method, args) -> calls.handle(method.getName(), args));
+  }
+
+}
@@ -0,0 +1,42 @@
+package com.bravos.parentalv2.service;
+
+import com.bravos.parentalv2.config.CommandLatencyProperties;
+import com.bravos.parentalv2.model.CommandType;
+import com.bravos.parentalv2.model.LockStatus;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class CommandLatencyTrackerTest {
+
+  private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+  private final CommandLatencyTracker tracker = new CommandLatencyTracker(new CommandLatencyProperties(), registry);
+
+  @Test
+  void failedSendForgetsOnlyItsOwnCommand() {
+    long lock = tracker.commandSent("PC-01", CommandType.LOCK, 0);
+    long unlock = tracker.commandSent("PC-01", CommandType.UNLOCK, 0);
+
+    // The earlier send is the one that failed, after a later one was already queued
+    tracker.commandFailed("PC-01", lock);
+    tracker.statusReported("PC-01", LockStatus.UNLOCKED);
+
+    assertThat(unlock).isNotEqualTo(lock);
+    assertThat(tracker.device("PC-01").getSamples()).isEqualTo(1);
+    assertThat(registry.get("command.rtt.unanswered").tag("reason", "superseded").counter().count()).isZero();
+  }
+
+  @Test
+  void disconnectDropsDeviceSummary() {
+    tracker.commandSent("PC-01", CommandType.LOCK, 0);
+    tracker.statusReported("PC-01", LockStatus.LOCKED);
+    assertThat(tracker.device("PC-01").getSamples()).isEqualTo(1);
+
+    tracker.deviceDisconnected("PC-01");
+
+    assertThat(tracker.device("PC-01").getSamples()).isZero();
+    assertThat(registry.get("command.rtt.devices").gauge().value()).isZero();
+  }
+
+}
@@ -0,0 +1,81 @@
+package com.bravos.parentalv2.service;
+
+import com.bravos.parentalv2.config.CommandLatencyProperties;
+import com.bravos.parentalv2.dto.RolloutRequest;
+import com.bravos.parentalv2.model.CommandType;
+import com.bravos.parentalv2.model.RolloutState;
+import com.bravos.parentalv2.websocket.DeviceMetrics;
+import com.bravos.parentalv2.websocket.DeviceSessionManager;
+import com.bravos.parentalv2.websocket.TestSession;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+import tools.jackson.databind.json.JsonMapper;
+
+import java.time.Duration;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class RolloutServiceTest {
+
+  /**
+   * Stands in for the database: like a JDBC call on an interrupted thread, recording fails if the caller is
+   * interrupted.
+   */
+  private static final class RecordingCommandService extends DeviceCommandService {
+
+    private final List<String> recorded = new CopyOnWriteArrayList<>();
+
+    RecordingCommandService() {
+      super(null, null, null);
+    }
+
+    @Override
+    public void recordCommand(Collection<String> deviceIds, CommandType commandType, String description) {
+      if (Thread.currentThread().isInterrupted()) {
+        throw new IllegalStateException("Connection closed: thread interrupted");
+      }
+      recorded.addAll(deviceIds);
+    }
+
+  }
+
+  @Test
+  void abortMidWaveRecordsTheDevicesAlreadySent() throws Exception {
+    DeviceSessionManager sessionManager = new DeviceSessionManager(new DeviceMetrics(new SimpleMeterRegistry()));
+    RecordingCommandService commandService = new RecordingCommandService();
+    RolloutService rolloutService = new RolloutService(sessionManager, commandService,
+        new CommandLatencyTracker(new CommandLatencyProperties(), new SimpleMeterRegistry()),
+        JsonMapper.builder().build());
+
+    CountDownLatch fastSent = new CountDownLatch(4);
+    for (int i = 0; i < 4; i++) {
+      sessionManager.registerSession("FAST-" + i, new TestSession("fast-" + i, _ -> fastSent.countDown()));
+    }
+    // Never completes on its own, so the wave is still running when it is aborted
+    sessionManager.registerSession("STUCK", new TestSession("stuck", _ -> Thread.sleep(Long.MAX_VALUE)));
+
+    RolloutRequest request = new RolloutRequest();
+    request.setCommandType(CommandType.LOCK);
+    request.setWaveSize(10);
+    request.setJitterMillis(0);
+    String id = rolloutService.start(request).getId();
+
+    assertThat(fastSent.await(5, TimeUnit.SECONDS)).isTrue();
+    rolloutService.abort(id);
+
+    long deadline = System.nanoTime() + Duration.ofSeconds(5).toNanos();
+    while (rolloutService.get(id).getState() == RolloutState.RUNNING && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(rolloutService.get(id).getState()).isEqualTo(RolloutState.ABORTED);
+    assertThat(Set.copyOf(commandService.recorded))
+        .containsExactlyInAnyOrder("FAST-0", "FAST-1", "FAST-2", "FAST-3");
+  }
+
+}
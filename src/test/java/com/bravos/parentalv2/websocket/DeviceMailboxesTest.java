@@ -0,0 +1,78 @@
+package com.bravos.parentalv2.websocket;
+
+import com.bravos.parentalv2.config.ConcurrencyLimitProperties;
+import com.bravos.parentalv2.config.ConcurrencyLimiters;
+import com.bravos.parentalv2.config.DataSourcePoolProperties;
+import com.bravos.parentalv2.config.IngestProperties;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class DeviceMailboxesTest {
+
+  private static DeviceMailboxes mailboxes(int capacity) {
+    IngestProperties ingest = new IngestProperties();
+    ingest.setMailboxCapacity(capacity);
+    SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    ConcurrencyLimiters limiters = new ConcurrencyLimiters(new ConcurrencyLimitProperties(),
+        new DataSourcePoolProperties(), ingest, registry);
+    return new DeviceMailboxes(ingest, limiters, new DeviceMetrics(registry));
+  }
+
+  @Test
+  void lifecycleTaskRunsWhenMailboxIsFull() throws InterruptedException {
+    DeviceMailboxes mailboxes = mailboxes(1);
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch blocker = new CountDownLatch(1);
+    CountDownLatch disconnected = new CountDownLatch(1);
+
+    assertThat(mailboxes.submit("PC-01", () -> {
+      started.countDown();
+      await(blocker);
+    })).isTrue();
+    assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+    // Fill the single slot behind the running task, then overflow it
+    assertThat(mailboxes.submit("PC-01", () -> { })).isTrue();
+    assertThat(mailboxes.submit("PC-01", () -> { })).isFalse();
+
+    mailboxes.submitLifecycle("PC-01", disconnected::countDown);
+    blocker.countDown();
+
+    assertThat(disconnected.await(5, TimeUnit.SECONDS)).isTrue();
+  }
+
+  @Test
+  void errorInTaskDoesNotStallQueuedWork() throws InterruptedException {
+    DeviceMailboxes mailboxes = mailboxes(16);
+    CountDownLatch blocker = new CountDownLatch(1);
+    CountDownLatch ran = new CountDownLatch(1);
+
+    mailboxes.submit("PC-01", () -> {
+      await(blocker);
+      throw new AssertionError("boom");
+    });
+    mailboxes.submit("PC-01", ran::countDown);
+    blocker.countDown();
+
+    assertThat(ran.await(5, TimeUnit.SECONDS)).isTrue();
+    // And once drained the mailbox is retired rather than left marked running
+    long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+    while (mailboxes.activeMailboxes() > 0 && System.nanoTime() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(mailboxes.activeMailboxes()).isZero();
+  }
+
+  private static void await(CountDownLatch latch) {
+    try {
+      latch.await();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+  }
+
+}
@@ -0,0 +1,170 @@
+package com.bravos.parentalv2.websocket;
+
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketExtension;
+import org.springframework.web.socket.WebSocketMessage;
+import org.springframework.web.socket.WebSocketSession;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.security.Principal;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Open session that counts the text frames sent to it and, like a real one, refuses to send once closed. It keeps
+ * the frames too, unless created with {@link #discarding}. An optional {@link Sender} runs before each frame is
+ * counted, to make sends slow or fail.
+ * <p>
+ * Shared with the benchmark and jcstress source sets.
+ */
+public class TestSession implements WebSocketSession {
+
+  @FunctionalInterface
+  public interface Sender {
+    void send(String payload) throws IOException, InterruptedException;
+  }
+
+  private final String id;
+  private final Sender sender;
+  private final boolean keepFrames;
+  private final Map<String, Object> attributes = new ConcurrentHashMap<>();
+  private final HttpHeaders handshakeHeaders = new HttpHeaders();
+  private final List<String> sent = new CopyOnWriteArrayList<>();
+  private final LongAdder sentCount = new LongAdder();
+  private volatile boolean open = true;
+
+  public TestSession(String id) {
+    this(id, _ -> {
+    });
+  }
+
+  public TestSession(String id, Sender sender) {
+    this(id, sender, true);
+  }
+
+  private TestSession(String id, Sender sender, boolean keepFrames) {
+    this.id = id;
+    this.sender = sender;
+    this.keepFrames = keepFrames;
+  }
+
+  /**
+   * A session that only counts frames, for benchmarks and stress tests that send without bound.
+   */
+  public static TestSession discarding(String id) {
+    return new TestSession(id, _ -> {
+    }, false);
+  }
+
+  public List<String> sent() {
+    return sent;
+  }
+
+  public int sentCount() {
+    return sentCount.intValue();
+  }
+
+  @Override
+  public String getId() {
+    return id;
+  }
+
+  @Override
+  public URI getUri() {
+    return URI.create("ws://localhost/ws/device");
+  }
+
+  @Override
+  public HttpHeaders getHandshakeHeaders() {
+    return handshakeHeaders;
+  }
+
+  @Override
+  public Map<String, Object> getAttributes() {
+    return attributes;
+  }
+
+  @Override
+  public Principal getPrincipal() {
+    return null;
+  }
+
+  @Override
+  public InetSocketAddress getLocalAddress() {
+    return new InetSocketAddress("127.0.0.1", 8080);
+  }
+
+  @Override
+  public InetSocketAddress getRemoteAddress() {
+    return new InetSocketAddress("127.0.0.1", 50000);
+  }
+
+  @Override
+  public String getAcceptedProtocol() {
+    return null;
+  }
+
+  @Override
+  public void setTextMessageSizeLimit(int messageSizeLimit) {
+  }
+
+  @Override
+  public int getTextMessageSizeLimit() {
+    return 2048;
+  }
+
+  @Override
+  public void setBinaryMessageSizeLimit(int messageSizeLimit) {
+  }
+
+  @Override
+  public int getBinaryMessageSizeLimit() {
+    return 128;
+  }
+
+  @Override
+  public List<WebSocketExtension> getExtensions() {
+    return List.of();
+  }
+
+  @Override
+  public void sendMessage(WebSocketMessage<?> message) throws IOException {
+    if (!open) {
+      throw new IOException("Session " + id + " is closed");
+    }
+    String payload = ((TextMessage) message).getPayload();
+    try {
+      sender.send(payload);
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Send interrupted", e);
+    }
+    sentCount.increment();
+    if (keepFrames) {
+      sent.add(payload);
+    }
+  }
+
+  @Override
+  public boolean isOpen() {
+    return open;
+  }
+
+  @Override
+  public void close() {
+    open = false;
+  }
+
+  @Override
+  public void close(CloseStatus status) {
+    open = false;
+  }
+
+}